@@ -14,6 +14,7 @@ import java.util.Set;
 import java.util.concurrent.Future;
 
 import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.as.controller.client.helpers.domain.DeployDeploymentPlanBuilder;
 import org.jboss.as.controller.client.helpers.domain.DeploymentAction;
 import org.jboss.as.controller.client.helpers.domain.DeploymentPlan;
@@ -54,6 +55,9 @@ public class ArchiveDeployer {
     @Deprecated
     private final DomainDeploymentManager deploymentManagerDeprecated;
     private final DeploymentManager deploymentManager;
+    private final ModelControllerClient controllerClient;
+    private final boolean deployByContentHash;
+    private final ContentHashDeployer contentHashDeployer;
 
     /**
      * Creates a new deployer.
@@ -68,6 +72,9 @@ public class ArchiveDeployer {
     public ArchiveDeployer(DomainDeploymentManager deploymentManager) {
         this.deploymentManagerDeprecated = Objects.requireNonNull(deploymentManager, "The deploymentManager cannot be null");
         this.deploymentManager = null;
+        this.controllerClient = null;
+        this.deployByContentHash = false;
+        this.contentHashDeployer = null;
     }
 
     /**
@@ -78,7 +85,11 @@ public class ArchiveDeployer {
     public ArchiveDeployer(final ManagementClient client) {
         Objects.requireNonNull(client, "The client cannot be null");
         deploymentManagerDeprecated = null;
-        this.deploymentManager = DeploymentManager.create(client.getControllerClient());
+        this.controllerClient = client.getControllerClient();
+        this.deploymentManager = DeploymentManager.create(controllerClient);
+        this.deployByContentHash = client.getContainerConfiguration() != null
+                && client.getContainerConfiguration().isDeployByContentHash();
+        this.contentHashDeployer = new ContentHashDeployer(controllerClient);
     }
 
     /**
@@ -110,19 +121,22 @@ public class ArchiveDeployer {
             throw new DeploymentException("No target server groups to deploy to.");
         }
         try {
-            final InputStream input = archive.as(ZipExporter.class).exportAsInputStream();
             // If a deployment manager is available use it, otherwise default to the previous behavior
             if (deploymentManager != null) {
-                final String name = archive.getName();
-                try (Deployment deployment = Deployment.of(input, name).setServerGroups(serverGroups)) {
+                if (deployByContentHash) {
+                    return contentHashDeployer.deploy(archive, serverGroups);
+                }
+                final InputStream input = archive.as(ZipExporter.class).exportAsInputStream();
+                try (Deployment deployment = Deployment.of(input, archive.getName()).setServerGroups(serverGroups)) {
                     final DeploymentResult result = deploymentManager.deploy(deployment);
                     if (!result.successful()) {
                         throw new DeploymentException("Could not deploy to container: " + result.getFailureMessage());
                     }
-                    return name;
+                    return archive.getName();
                 }
             } else {
                 // Fallback behavior if constructed with a DomainDeploymentManager
+                final InputStream input = archive.as(ZipExporter.class).exportAsInputStream();
                 try {
                     InitialDeploymentSetBuilder builder = deploymentManagerDeprecated.newDeploymentPlan()
                             .withRollbackAcrossGroups();
@@ -174,11 +188,32 @@ public class ArchiveDeployer {
      * @throws DeploymentException if an error occurs during undeployment
      */
     public void undeploy(String runtimeName, Set<String> serverGroups) throws DeploymentException {
+        undeploy(runtimeName, serverGroups, false);
+    }
+
+    /**
+     * Undeploys the content specified by the {@code runtimeName} from the server groups.
+     * <p>
+     * If the archive was deployed by content hash and {@code keepContent} is {@code true}, the content is retained on
+     * the domain controller once the deployment is removed from its last server group, so an archive with the same
+     * content is not uploaded again. The retained content is removed by {@link #removeRetainedContent()}.
+     * </p>
+     *
+     * @param runtimeName  the name of the deployment
+     * @param serverGroups the server groups to undeploy to
+     * @param keepContent  {@code true} to retain the content of an archive deployed by content hash
+     *
+     * @throws DeploymentException if an error occurs during undeployment
+     */
+    void undeploy(final String runtimeName, final Set<String> serverGroups, final boolean keepContent)
+            throws DeploymentException {
         if (serverGroups.isEmpty()) {
             throw new DeploymentException("No target server groups to deploy to.");
         }
         try {
-            if (deploymentManager != null) {
+            if (deployByContentHash) {
+                contentHashDeployer.undeploy(runtimeName, serverGroups, keepContent);
+            } else if (deploymentManager != null) {
                 final DeploymentResult result = deploymentManager.undeploy(UndeployDescription.of(runtimeName)
                         .addServerGroups(serverGroups));
                 if (!result.successful()) {
@@ -229,6 +264,20 @@ public class ArchiveDeployer {
         return deploymentManager.hasDeployment(name, serverGroup);
     }
 
+    /**
+     * Removes the content retained on the domain controller for archives deployed by content hash. Failures are
+     * logged.
+     */
+    void removeRetainedContent() {
+        if (deployByContentHash) {
+            try {
+                contentHashDeployer.removeRetainedContent();
+            } catch (Exception e) {
+                log.warnf(e, "Cannot remove the retained deployment content");
+            }
+        }
+    }
+
     private String executeDeploymentPlan(DeploymentPlan plan, DeploymentAction deployAction) throws Exception {
         Future<DeploymentPlanResult> future = deploymentManagerDeprecated.execute(plan);
         DeploymentPlanResult planResult = future.get();
@@ -248,4 +297,4 @@ public class ArchiveDeployer {
 
         return deployAction.getDeploymentUnitUniqueName();
     }
-}
\ No newline at end of file
+}
@@ -29,11 +29,13 @@ public class CommonContainerExtension implements LoadableExtension {
                 .service(DeploymentExceptionTransformer.class, ExceptionTransformer.class)
                 .service(ResourceProvider.class, ArchiveDeployerProvider.class)
                 .service(ResourceProvider.class, ManagementClientProvider.class)
+                .service(ResourceProvider.class, ManagementMetricsProvider.class)
                 .service(ResourceProvider.class, DomainContainerControllerProvider.class)
                 .service(AuxiliaryArchiveAppender.class, DomainArquillianDeploymentAppender.class)
                 // Register observers
                 .observer(ClientDomainContainerControllerCreator.class)
                 .observer(DomainContainerCommandObserver.class)
-                .observer(ServerGroupDeploymentObserver.class);
+                .observer(ServerGroupDeploymentObserver.class)
+                .observer(ManagementMetricsObserver.class);
     }
 }
@@ -37,9 +37,17 @@ public class CommonDomainContainerConfiguration implements ContainerConfiguratio
 
     private int serverOperationTimeoutInSeconds = 120;
 
+    private boolean deployByContentHash;
+
+    private boolean managementMetrics;
+
+    private String managementMetricsFile;
+
     public CommonDomainContainerConfiguration() {
         managementAddress = "127.0.0.1";
         managementPort = 9990 + Integer.decode(System.getProperty("jboss.socket.binding.port-offset", "0"));
+        managementMetrics = Boolean.getBoolean("wildfly.arquillian.management.metrics");
+        managementMetricsFile = System.getProperty("wildfly.arquillian.management.metrics.file");
     }
 
     public InetAddress getManagementAddress() {
@@ -152,6 +160,79 @@ public class CommonDomainContainerConfiguration implements ContainerConfiguratio
         return serverOperationTimeoutInSeconds;
     }
 
+    /**
+     * Indicates whether archives with the same content as a previously deployed archive are deployed by referencing the
+     * content already on the domain controller.
+     *
+     * @return {@code true} if archives are deployed by their content hash, otherwise {@code false}
+     */
+    public boolean isDeployByContentHash() {
+        return deployByContentHash;
+    }
+
+    /**
+     * Sets whether archives with the same content as a previously deployed archive should be deployed by referencing
+     * the content the domain controller already has, rather than uploading the archive again.
+     * <p>
+     * The content of each archive is hashed before it is deployed. The domain controller removes content as soon as no
+     * deployment references it, so when the container undeploys an archive from its last server group a deployment
+     * named {@code arquillian-retained-content-<hash>}, which is not added to a server group, is added to keep the
+     * content on the domain controller. Deploying an archive with the same content references the retained content
+     * instead of uploading the archive. Retained deployments are removed when the container is stopped. Undeploys
+     * through the public {@link ArchiveDeployer} methods do not retain the content.
+     * </p>
+     *
+     * @param deployByContentHash {@code true} to deploy archives by their content hash
+     */
+    public void setDeployByContentHash(boolean deployByContentHash) {
+        this.deployByContentHash = deployByContentHash;
+    }
+
+    /**
+     * Indicates whether metrics are collected for the management operations executed against the domain controller.
+     *
+     * @return {@code true} if management metrics are collected, otherwise {@code false}
+     */
+    public boolean isManagementMetrics() {
+        return managementMetrics;
+    }
+
+    /**
+     * Sets whether the number, latency and size of the management operations executed against the domain controller
+     * should be recorded for each operation name and test class. The metrics can be injected as a
+     * {@link ManagementMetrics} resource and are written as JSON after the test suite has completed.
+     * <p>
+     * The default can be set with the {@code wildfly.arquillian.management.metrics} system property.
+     * </p>
+     *
+     * @param managementMetrics {@code true} to collect management metrics
+     */
+    public void setManagementMetrics(final boolean managementMetrics) {
+        this.managementMetrics = managementMetrics;
+    }
+
+    /**
+     * Returns the file the management metrics are written to.
+     *
+     * @return the file or {@code null} if the metrics are logged
+     */
+    public String getManagementMetricsFile() {
+        return managementMetricsFile;
+    }
+
+    /**
+     * Sets the file the management metrics are written to after the test suite has completed. If not set, the metrics
+     * are logged.
+     * <p>
+     * The default can be set with the {@code wildfly.arquillian.management.metrics.file} system property.
+     * </p>
+     *
+     * @param managementMetricsFile the path to the file
+     */
+    public void setManagementMetricsFile(final String managementMetricsFile) {
+        this.managementMetricsFile = managementMetricsFile;
+    }
+
     /**
      * The {@linkplain URI URI} path for the authentication configuration.
      *
@@ -67,6 +67,7 @@ public abstract class CommonDomainDeployableContainer<T extends CommonDomainCont
     private T containerConfig;
     private ManagementClient managementClient;
     private volatile ContainerDomainManager domainManager;
+    private ManagementMetrics managementMetrics;
 
     @Inject
     @ContainerScoped
@@ -80,6 +81,10 @@ public abstract class CommonDomainDeployableContainer<T extends CommonDomainCont
     @ContainerScoped
     private InstanceProducer<Domain> domainInst;
 
+    @Inject
+    @ContainerScoped
+    private InstanceProducer<ManagementMetrics> managementMetricsInst;
+
     @Override
     public ProtocolDescription getDefaultProtocol() {
         return new ProtocolDescription("Servlet 5.0");
@@ -90,8 +95,14 @@ public abstract class CommonDomainDeployableContainer<T extends CommonDomainCont
         containerConfig = config;
 
         // Register on setup so these can be injected into manual mode client tests
-        final DomainClient domainClient = DomainClient.Factory
-                .create(new DelegatingModelControllerClient(DomainDelegateProvider.INSTANCE));
+        ModelControllerClient controllerClient = new DelegatingModelControllerClient(DomainDelegateProvider.INSTANCE);
+        if (config.isManagementMetrics()) {
+            final ManagementMetrics metrics = new ManagementMetrics();
+            controllerClient = new MetricsModelControllerClient(controllerClient, metrics);
+            managementMetrics = metrics;
+            managementMetricsInst.set(metrics);
+        }
+        final DomainClient domainClient = DomainClient.Factory.create(controllerClient);
         domainManager = new ContainerDomainManager(getContainerName(), isControllable(), domainClient);
         managementClient = new ManagementClient(domainClient, config, domainManager);
         managementClientInst.set(managementClient);
@@ -173,6 +184,10 @@ public abstract class CommonDomainDeployableContainer<T extends CommonDomainCont
     public final void stop() throws LifecycleException {
         domainManager.setContainerStarted(false);
         try {
+            final ArchiveDeployer deployer = archiveDeployerInst.get();
+            if (deployer != null) {
+                deployer.removeRetainedContent();
+            }
             updateDomainMembersState(State.STOPPED);
             stopInternal();
         } finally {
@@ -209,7 +224,7 @@ public abstract class CommonDomainDeployableContainer<T extends CommonDomainCont
         final Set<String> serverGroups = getServerGroups(archive);
         if (!serverGroups.isEmpty()) {
             final ArchiveDeployer deployer = archiveDeployerInst.get();
-            deployer.undeploy(archive.getName(), serverGroups);
+            deployer.undeploy(archive.getName(), serverGroups, true);
         } else {
             throw new DeploymentException("Could not determine the server-group for the undeploy.");
         }
@@ -242,6 +257,16 @@ public abstract class CommonDomainDeployableContainer<T extends CommonDomainCont
         return containerConfig;
     }
 
+    /**
+     * Returns the metrics collected for the management operations executed against the domain controller.
+     *
+     * @return the metrics or {@code null} if {@linkplain CommonDomainContainerConfiguration#isManagementMetrics()
+     *             metrics} are not collected
+     */
+    ManagementMetrics getManagementMetrics() {
+        return managementMetrics;
+    }
+
     protected ManagementClient getManagementClient() {
         return managementClient;
     }
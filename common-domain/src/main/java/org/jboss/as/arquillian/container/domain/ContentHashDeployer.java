@@ -0,0 +1,238 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container.domain;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.helpers.ClientConstants;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.as.controller.client.helpers.Operations.CompositeOperationBuilder;
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+
+/**
+ * Deploys archives to server groups so an archive with the same content as an archive the container undeployed is not
+ * uploaded to the domain controller again.
+ * <p>
+ * The domain controller removes content from its content repository as soon as no deployment references it. When an
+ * archive deployed by the container is removed from its last server group, a disabled deployment named
+ * {@code arquillian-retained-content-} followed by the hash of the archive content is added, in the same operation, so
+ * the content stays in the content repository. The retained deployment is not added to a server group. When an archive
+ * with the same content is deployed, the deployment references the retained content and the retained deployment is
+ * removed. Other undeploys do not retain the content.
+ * </p>
+ * <p>
+ * Retained deployments are removed when the container is stopped.
+ * </p>
+ */
+final class ContentHashDeployer {
+    private static final Logger LOGGER = Logger.getLogger(ContentHashDeployer.class);
+
+    static final String RETAINED_PREFIX = "arquillian-retained-content-";
+
+    private static final String ENABLED = "enabled";
+    private static final String HASH = "hash";
+
+    private final ModelControllerClient client;
+    // The content hashes of the archives deployed by this deployer keyed by the deployment name
+    private final Map<String, String> archiveHashes = new ConcurrentHashMap<>();
+
+    ContentHashDeployer(final ModelControllerClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Deploys the archive to the server groups, referencing the retained content of an archive with the same content if
+     * there is one.
+     *
+     * @param archive      the archive to deploy
+     * @param serverGroups the server groups to deploy to
+     *
+     * @return the runtime name of the deployment
+     *
+     * @throws DeploymentException if the deployment fails
+     */
+    String deploy(final Archive<?> archive, final Set<String> serverGroups) throws DeploymentException {
+        final String name = archive.getName();
+        try {
+            final String archiveHash = ArchiveContentHash.of(archive);
+            final String retainedName = RETAINED_PREFIX + archiveHash;
+            final ModelNode retained = readResource(deploymentAddress(retainedName));
+            final CompositeOperationBuilder builder = CompositeOperationBuilder.create(true);
+            final ModelNode addOp = Operations.createAddOperation(deploymentAddress(name));
+            addOp.get(ClientConstants.RUNTIME_NAME).set(name);
+            if (retained != null) {
+                addOp.get(ClientConstants.CONTENT).add().get(HASH).set(contentHash(retained));
+            } else {
+                addOp.get(ClientConstants.CONTENT).add().get("input-stream-index").set(0);
+                builder.addInputStream(new ByteArrayInputStream(export(archive)));
+            }
+            builder.addStep(addOp);
+            for (String serverGroup : serverGroups) {
+                final ModelNode op = Operations.createAddOperation(serverGroupDeploymentAddress(serverGroup, name));
+                op.get(ENABLED).set(true);
+                builder.addStep(op);
+            }
+            if (retained != null) {
+                builder.addStep(Operations.createRemoveOperation(deploymentAddress(retainedName)));
+            }
+            executeForResult(builder.build());
+            if (retained != null) {
+                LOGGER.debugf("Deployed %s using the content retained on the domain controller", name);
+            }
+            archiveHashes.put(name, archiveHash);
+            return name;
+        } catch (IOException | UncheckedIOException e) {
+            throw new DeploymentException("Cannot deploy: " + name, e);
+        }
+    }
+
+    /**
+     * Undeploys the deployment from the server groups. Once the deployment is not deployed to any server group it is
+     * removed. If the content should be kept and the deployment was deployed by this deployer, the content is retained
+     * for the next deployment of an archive with the same content.
+     *
+     * @param runtimeName  the name of the deployment
+     * @param serverGroups the server groups to undeploy from
+     * @param keepContent  {@code true} to retain the content of the deployment
+     *
+     * @throws IOException         if an error occurs communicating with the domain controller
+     * @throws DeploymentException if the deployment could not be undeployed
+     */
+    void undeploy(final String runtimeName, final Set<String> serverGroups, final boolean keepContent)
+            throws IOException, DeploymentException {
+        final ModelNode deployment = readResource(deploymentAddress(runtimeName));
+        if (deployment == null) {
+            archiveHashes.remove(runtimeName);
+            return;
+        }
+        final CompositeOperationBuilder builder = CompositeOperationBuilder.create();
+        final List<String> remainingGroups = new ArrayList<>();
+        for (String serverGroup : readServerGroups()) {
+            final ModelNode groupDeployment = readResource(serverGroupDeploymentAddress(serverGroup, runtimeName));
+            if (groupDeployment == null) {
+                continue;
+            }
+            if (!serverGroups.contains(serverGroup)) {
+                remainingGroups.add(serverGroup);
+                continue;
+            }
+            if (groupDeployment.get(ENABLED).asBoolean(false)) {
+                builder.addStep(Operations.createOperation("undeploy",
+                        serverGroupDeploymentAddress(serverGroup, runtimeName)));
+            }
+            builder.addStep(Operations.createRemoveOperation(serverGroupDeploymentAddress(serverGroup, runtimeName)));
+        }
+        if (remainingGroups.isEmpty()) {
+            final String archiveHash = archiveHashes.remove(runtimeName);
+            final ModelNode hash = contentHash(deployment);
+            if (keepContent && archiveHash != null && hash.isDefined()
+                    && readResource(deploymentAddress(RETAINED_PREFIX + archiveHash)) == null) {
+                final ModelNode addOp = Operations.createAddOperation(deploymentAddress(RETAINED_PREFIX + archiveHash));
+                addOp.get(ClientConstants.CONTENT).add().get(HASH).set(hash);
+                builder.addStep(addOp);
+            }
+            builder.addStep(Operations.createRemoveOperation(deploymentAddress(runtimeName)));
+        }
+        executeForResult(builder.build());
+    }
+
+    /**
+     * Removes all retained deployments, which allows the domain controller to remove the retained content.
+     *
+     * @throws IOException if an error occurs communicating with the domain controller
+     */
+    void removeRetainedContent() throws IOException {
+        final ModelNode op = Operations.createOperation(ClientConstants.READ_CHILDREN_NAMES_OPERATION);
+        op.get(ClientConstants.CHILD_TYPE).set(ClientConstants.DEPLOYMENT);
+        final ModelNode result = client.execute(op);
+        if (!Operations.isSuccessfulOutcome(result)) {
+            LOGGER.warnf("Cannot read the deployments: %s", Operations.getFailureDescription(result).asString());
+            return;
+        }
+        final CompositeOperationBuilder builder = CompositeOperationBuilder.create();
+        boolean retained = false;
+        for (ModelNode name : Operations.readResult(result).asList()) {
+            if (name.asString().startsWith(RETAINED_PREFIX)) {
+                builder.addStep(Operations.createRemoveOperation(deploymentAddress(name.asString())));
+                retained = true;
+            }
+        }
+        if (retained) {
+            final ModelNode removeResult = client.execute(builder.build());
+            if (!Operations.isSuccessfulOutcome(removeResult)) {
+                LOGGER.warnf("Cannot remove the retained deployment content: %s",
+                        Operations.getFailureDescription(removeResult).asString());
+            }
+        }
+    }
+
+    private List<String> readServerGroups() throws IOException, DeploymentException {
+        final ModelNode op = Operations.createOperation(ClientConstants.READ_CHILDREN_NAMES_OPERATION);
+        op.get(ClientConstants.CHILD_TYPE).set(ClientConstants.SERVER_GROUP);
+        final ModelNode result = client.execute(op);
+        if (!Operations.isSuccessfulOutcome(result)) {
+            throw new DeploymentException(Operations.getFailureDescription(result).asString());
+        }
+        final List<String> serverGroups = new ArrayList<>();
+        for (ModelNode name : Operations.readResult(result).asList()) {
+            serverGroups.add(name.asString());
+        }
+        return serverGroups;
+    }
+
+    private ModelNode readResource(final ModelNode address) throws IOException {
+        final ModelNode result = client.execute(Operations.createReadResourceOperation(address));
+        if (Operations.isSuccessfulOutcome(result)) {
+            return Operations.readResult(result);
+        }
+        return null;
+    }
+
+    private void executeForResult(final Operation op) throws IOException, DeploymentException {
+        final ModelNode result = client.execute(op);
+        if (!Operations.isSuccessfulOutcome(result)) {
+            throw new DeploymentException(Operations.getFailureDescription(result).asString());
+        }
+    }
+
+    private static ModelNode contentHash(final ModelNode deployment) {
+        if (deployment.hasDefined(ClientConstants.CONTENT)) {
+            for (ModelNode content : deployment.get(ClientConstants.CONTENT).asList()) {
+                if (content.hasDefined(HASH)) {
+                    return content.get(HASH);
+                }
+            }
+        }
+        return new ModelNode();
+    }
+
+    private static byte[] export(final Archive<?> archive) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archive.as(ZipExporter.class).exportTo(out);
+        return out.toByteArray();
+    }
+
+    private static ModelNode deploymentAddress(final String name) {
+        return Operations.createAddress(ClientConstants.DEPLOYMENT, name);
+    }
+
+    private static ModelNode serverGroupDeploymentAddress(final String serverGroup, final String name) {
+        return Operations.createAddress(ClientConstants.SERVER_GROUP, serverGroup, ClientConstants.DEPLOYMENT, name);
+    }
+}
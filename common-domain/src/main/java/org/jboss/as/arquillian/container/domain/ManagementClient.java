@@ -281,6 +281,15 @@ public class ManagementClient {
         }
     }
 
+    /**
+     * Returns the configuration of the container this client was created for.
+     *
+     * @return the container configuration
+     */
+    CommonDomainContainerConfiguration getContainerConfiguration() {
+        return configuration;
+    }
+
     // -------------------------------------------------------------------------------------||
     // Subsystem URI Lookup ---------------------------------------------------------------||
     // -------------------------------------------------------------------------------------||
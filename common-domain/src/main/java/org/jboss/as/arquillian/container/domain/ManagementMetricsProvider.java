@@ -0,0 +1,34 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container.domain;
+
+import java.lang.annotation.Annotation;
+
+import org.jboss.arquillian.container.test.impl.enricher.resource.OperatesOnDeploymentAwareProvider;
+import org.jboss.arquillian.core.api.Instance;
+import org.jboss.arquillian.core.api.annotation.Inject;
+import org.jboss.arquillian.test.api.ArquillianResource;
+import org.wildfly.arquillian.domain.AbstractTargetsContainerProvider;
+
+/**
+ * {@link OperatesOnDeploymentAwareProvider} implementation to provide {@link ManagementMetrics} injection to
+ * {@link ArquillianResource}-annotated fields. The metrics are only available if they are
+ * {@linkplain CommonDomainContainerConfiguration#isManagementMetrics() collected} for the container.
+ */
+public class ManagementMetricsProvider extends AbstractTargetsContainerProvider {
+
+    @Inject
+    private Instance<ManagementMetrics> managementMetrics;
+
+    @Override
+    public boolean canProvide(final Class<?> type) {
+        return type.isAssignableFrom(ManagementMetrics.class);
+    }
+
+    @Override
+    public Object doLookup(final ArquillianResource resource, final Annotation... qualifiers) {
+        return managementMetrics.get();
+    }
+}
@@ -4,6 +4,7 @@
  */
 package org.jboss.as.arquillian.container.domain;
 
+import java.util.Collections;
 import java.util.Set;
 
 import org.jboss.arquillian.container.spi.Container.State;
@@ -101,7 +102,7 @@ public class ServerGroupContainer implements DeployableContainer<EmptyConfigurat
 
     @Override
     public void undeploy(Archive<?> archive) throws DeploymentException {
-        deployer.undeploy(archive.getName(), serverGroup.getName());
+        deployer.undeploy(archive.getName(), Collections.singleton(serverGroup.getName()), true);
     }
 
     @Override
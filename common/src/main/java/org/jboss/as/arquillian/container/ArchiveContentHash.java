@@ -0,0 +1,89 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+
+/**
+ * Creates hashes of the content of an archive. The hash only depends on the paths and the content of the entries, not
+ * on the order the entries were added in or the time the archive is exported. Archives with the same content have the
+ * same hash, even though the exported bytes differ.
+ */
+final class ArchiveContentHash {
+
+    private ArchiveContentHash() {
+    }
+
+    /**
+     * Creates the hash of the content of the archive, including the content of nested archives.
+     *
+     * @param archive the archive to hash
+     *
+     * @return the hash of the content as a hex string
+     *
+     * @throws UncheckedIOException if the content of an entry cannot be read
+     */
+    static String of(final Archive<?> archive) {
+        return toHex(hash(archive));
+    }
+
+    private static byte[] hash(final Archive<?> archive) {
+        final MessageDigest digest = createDigest("SHA-256");
+        // Sort the entries so the hash does not depend on the order the entries were added in
+        final Map<String, Asset> entries = new TreeMap<>();
+        for (Map.Entry<ArchivePath, Node> entry : archive.getContent().entrySet()) {
+            entries.put(entry.getKey().get(), entry.getValue().getAsset());
+        }
+        final byte[] buffer = new byte[8192];
+        for (Map.Entry<String, Asset> entry : entries.entrySet()) {
+            digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            final Asset asset = entry.getValue();
+            if (asset instanceof ArchiveAsset) {
+                digest.update(hash(((ArchiveAsset) asset).getArchive()));
+            } else if (asset != null) {
+                try (InputStream in = asset.openStream()) {
+                    int len;
+                    while ((len = in.read(buffer)) > 0) {
+                        digest.update(buffer, 0, len);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(String.format("Failed to read %s from %s", entry.getKey(), archive), e);
+                }
+            }
+            digest.update((byte) 0);
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest createDigest(final String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder result = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return result.toString();
+    }
+}
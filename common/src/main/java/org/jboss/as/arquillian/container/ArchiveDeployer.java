@@ -4,16 +4,32 @@
  */
 package org.jboss.as.arquillian.container;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jboss.arquillian.container.spi.client.container.DeploymentException;
 import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationBuilder;
+import org.jboss.as.controller.client.helpers.ClientConstants;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.dmr.ModelNode;
 import org.jboss.logging.Logger;
 import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.exporter.ExplodedExporter;
 import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 import org.wildfly.plugin.tools.Deployment;
 import org.wildfly.plugin.tools.DeploymentManager;
@@ -37,7 +53,10 @@ public class ArchiveDeployer {
     private static final Logger log = Logger.getLogger(ArchiveDeployer.class);
 
     private final DeploymentManager deploymentManager;
+    private final ModelControllerClient controllerClient;
     private final ManagementClient client;
+    private final Map<String, Path> unmanagedContent = new ConcurrentHashMap<>();
+    private final ContentHashDeployer contentHashDeployer;
 
     /**
      * Creates a new deployer for deploying archives.
@@ -53,7 +72,9 @@ public class ArchiveDeployer {
     @Deprecated
     public ArchiveDeployer(ModelControllerClient modelControllerClient) {
         this.deploymentManager = DeploymentManager.create(modelControllerClient);
+        this.controllerClient = modelControllerClient;
         client = null;
+        contentHashDeployer = new ContentHashDeployer(modelControllerClient);
     }
 
     /**
@@ -63,7 +84,9 @@ public class ArchiveDeployer {
      */
     public ArchiveDeployer(ManagementClient client) {
         this.client = client;
-        this.deploymentManager = DeploymentManager.create(client.getControllerClient());
+        this.controllerClient = client.getControllerClient();
+        this.deploymentManager = DeploymentManager.create(controllerClient);
+        this.contentHashDeployer = new ContentHashDeployer(controllerClient);
     }
 
     /**
@@ -77,7 +100,11 @@ public class ArchiveDeployer {
      * @throws IllegalStateException if the client has been closed
      */
     public String deploy(Archive<?> archive) throws DeploymentException {
-        return deployInternal(archive);
+        try {
+            return deployInternal(archive);
+        } finally {
+            invalidateCache(archive.getName());
+        }
     }
 
     /**
@@ -92,7 +119,105 @@ public class ArchiveDeployer {
      * @throws IllegalStateException if the client has been closed
      */
     public String deploy(String name, InputStream input) throws DeploymentException {
-        return deployInternal(name, input);
+        try {
+            removeDisabledIncrementalDeployment(name);
+            return deployInternal(name, input);
+        } finally {
+            invalidateCache(name);
+        }
+    }
+
+    /**
+     * Deploys the archive to a running container asynchronously. Deployments of different archives may be in progress
+     * concurrently.
+     * <p>
+     * The archive is exported on the calling thread and added with an asynchronous management operation. If the
+     * container uses {@linkplain CommonContainerConfiguration#isUnmanagedDeployments() unmanaged},
+     * {@linkplain CommonContainerConfiguration#isIncrementalDeployments() incremental} or
+     * {@linkplain CommonContainerConfiguration#isDeployByContentHash() content hash} deployments, the deployment requires
+     * several dependent operations and is executed by {@link #deploy(Archive)} on a shared thread pool instead.
+     * </p>
+     *
+     * @param archive the archive to deploy
+     *
+     * @return a future which is completed with the runtime name of the deployment or exceptionally with a
+     *             {@link DeploymentException} if an error happens during deployment
+     *
+     * @throws IllegalStateException if the client has been closed
+     */
+    public CompletableFuture<String> deployAsync(final Archive<?> archive) {
+        checkState();
+        if (!isDefaultDeployment()) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return deploy(archive);
+                } catch (DeploymentException e) {
+                    throw new CompletionException(e);
+                }
+            }, ManagementClient.asyncExecutor());
+        }
+        final String name = archive.getName();
+        final byte[] exported = PreExportedArchives.take(archive);
+        final InputStream input = exported == null ? archive.as(ZipExporter.class).exportAsInputStream()
+                : new ByteArrayInputStream(exported);
+        final ModelNode op = Operations.createAddOperation(Operations.createAddress(ClientConstants.DEPLOYMENT, name));
+        op.get(ClientConstants.CONTENT).add().get("input-stream-index").set(0);
+        op.get(ClientConstants.RUNTIME_NAME).set(name);
+        op.get("enabled").set(true);
+        // The input stream is closed once the operation has completed
+        final Operation operation = OperationBuilder.create(op, true).addInputStream(input).build();
+        return ManagementClient.executeAsync(controllerClient, operation).handle((result, e) -> {
+            invalidateCache(name);
+            if (e != null) {
+                throw new CompletionException(createException("Cannot deploy: " + name, e));
+            }
+            if (!Operations.isSuccessfulOutcome(result)) {
+                throw new CompletionException(new DeploymentException(String.format("Cannot deploy %s: %s", name,
+                        Operations.getFailureDescription(result).asString())));
+            }
+            return name;
+        });
+    }
+
+    /**
+     * Removes an archive from the running container asynchronously.
+     * <p>
+     * All exceptions are caught and logged as a warning, the returned future is always completed normally.
+     * </p>
+     * <p>
+     * The deployment is undeployed and removed with an asynchronous management operation. If the container uses
+     * {@linkplain CommonContainerConfiguration#isUnmanagedDeployments() unmanaged},
+     * {@linkplain CommonContainerConfiguration#isIncrementalDeployments() incremental} or
+     * {@linkplain CommonContainerConfiguration#isDeployByContentHash() content hash} deployments, the undeploy is
+     * executed by {@link #undeploy(String)} on a shared thread pool instead.
+     * </p>
+     *
+     * @param runtimeName the runtime name for the deployment
+     *
+     * @return a future which is completed once the undeploy has finished
+     *
+     * @throws IllegalStateException if the client has been closed
+     */
+    public CompletableFuture<Void> undeployAsync(final String runtimeName) {
+        checkState();
+        if (!isDefaultDeployment()) {
+            return CompletableFuture.runAsync(() -> undeploy(runtimeName), ManagementClient.asyncExecutor());
+        }
+        final ModelNode address = Operations.createAddress(ClientConstants.DEPLOYMENT, runtimeName);
+        final Operation operation = Operations.CompositeOperationBuilder.create()
+                .addStep(Operations.createOperation("undeploy", address))
+                .addStep(Operations.createRemoveOperation(address))
+                .build();
+        return ManagementClient.executeAsync(controllerClient, operation).handle((result, e) -> {
+            invalidateCache(runtimeName);
+            if (e != null) {
+                log.warnf(e, "Cannot undeploy: %s", runtimeName);
+            } else if (!Operations.isSuccessfulOutcome(result)) {
+                log.warnf("Failed to undeploy %s: %s", runtimeName,
+                        Operations.getFailureDescription(result).asString());
+            }
+            return null;
+        });
     }
 
     /**
@@ -119,8 +244,32 @@ public class ArchiveDeployer {
      */
     @SuppressWarnings("SameParameterValue")
     public void undeploy(final String runtimeName, final boolean failOnMissing) {
+        undeploy(runtimeName, failOnMissing, false);
+    }
+
+    /**
+     * Removes an archive from the running container. If {@linkplain CommonContainerConfiguration#isIncrementalDeployments()
+     * incremental deployments} are enabled and the content should be kept, the deployment is only disabled so the next
+     * deployment of the archive only uploads the changed entries. If archives are
+     * {@linkplain CommonContainerConfiguration#isDeployByContentHash() deployed by their content hash} and the content
+     * should be kept, the content is retained on the server for the next deployment of the archive.
+     *
+     * @param runtimeName   the runtime name for the deployment
+     * @param failOnMissing {@code true} if the undeploy should fail if the deployment was not found on the server
+     * @param keepContent   {@code true} if an incremental deployment should only be disabled
+     */
+    void undeploy(final String runtimeName, final boolean failOnMissing, final boolean keepContent) {
         checkState();
+        final CommonContainerConfiguration config = client == null ? null : client.getContainerConfiguration();
         try {
+            if (config != null && config.isIncrementalDeployments()) {
+                new IncrementalDeployer(controllerClient, client).undeploy(runtimeName, failOnMissing, keepContent);
+                return;
+            }
+            if (config != null && config.isDeployByContentHash()) {
+                contentHashDeployer.undeploy(runtimeName, failOnMissing, keepContent);
+                return;
+            }
             final DeploymentResult result = deploymentManager
                     .undeploy(UndeployDescription.of(runtimeName).setFailOnMissing(failOnMissing));
             if (!result.successful()) {
@@ -128,6 +277,12 @@ public class ArchiveDeployer {
             }
         } catch (Exception ex) {
             log.warnf(ex, "Cannot undeploy: %s", runtimeName);
+        } finally {
+            invalidateCache(runtimeName);
+            final Path dir = unmanagedContent.remove(runtimeName);
+            if (dir != null) {
+                deleteDirectory(dir);
+            }
         }
     }
 
@@ -145,9 +300,39 @@ public class ArchiveDeployer {
         return deploymentManager.hasDeployment(name);
     }
 
+    /**
+     * Removes the content retained on the server for archives {@linkplain CommonContainerConfiguration#isDeployByContentHash()
+     * deployed by their content hash}. All exceptions are caught and logged as a warning.
+     */
+    void removeRetainedContent() {
+        final CommonContainerConfiguration config = client == null ? null : client.getContainerConfiguration();
+        if (config == null || !config.isDeployByContentHash() || client.isClosed()) {
+            return;
+        }
+        try {
+            contentHashDeployer.removeRetainedContent();
+        } catch (Exception e) {
+            log.warnf(e, "Cannot remove the retained deployment content");
+        }
+    }
+
     private String deployInternal(Archive<?> archive) throws DeploymentException {
         checkState();
-        final InputStream input = archive.as(ZipExporter.class).exportAsInputStream();
+        final CommonContainerConfiguration config = client == null ? null : client.getContainerConfiguration();
+        if (config != null && config.isUnmanagedDeployments()) {
+            return deployUnmanaged(archive, config.isExplodeUnmanagedDeployments());
+        }
+        if (config != null && config.isIncrementalDeployments()) {
+            // The archive is compared entry by entry, an exported archive is not required
+            PreExportedArchives.take(archive);
+            return new IncrementalDeployer(controllerClient, client).deploy(archive);
+        }
+        if (config != null && config.isDeployByContentHash()) {
+            return contentHashDeployer.deploy(archive, PreExportedArchives.take(archive));
+        }
+        final byte[] exported = PreExportedArchives.take(archive);
+        final InputStream input = exported == null ? archive.as(ZipExporter.class).exportAsInputStream()
+                : new ByteArrayInputStream(exported);
         try {
             return deployInternal(archive.getName(), input);
         } finally {
@@ -160,6 +345,48 @@ public class ArchiveDeployer {
         }
     }
 
+    /**
+     * Writes the archive to a temporary directory and deploys it as unmanaged content. This avoids transferring the
+     * archive to the server and the server copying it into its content repository.
+     */
+    private String deployUnmanaged(final Archive<?> archive, final boolean exploded) throws DeploymentException {
+        final String name = archive.getName();
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory("arquillian-deployment-");
+            final Path path = dir.resolve(name);
+            final byte[] exported = PreExportedArchives.take(archive);
+            if (exploded) {
+                archive.as(ExplodedExporter.class).exportExploded(dir.toFile(), name);
+            } else if (exported != null) {
+                Files.write(path, exported);
+            } else {
+                archive.as(ZipExporter.class).exportTo(path.toFile());
+            }
+            final ModelNode op = Operations.createAddOperation(Operations.createAddress(ClientConstants.DEPLOYMENT, name));
+            final ModelNode content = op.get(ClientConstants.CONTENT).add();
+            content.get("path").set(path.toAbsolutePath().toString());
+            content.get("archive").set(!exploded);
+            op.get(ClientConstants.RUNTIME_NAME).set(name);
+            op.get("enabled").set(true);
+            final ModelNode result = controllerClient.execute(op);
+            if (!Operations.isSuccessfulOutcome(result)) {
+                throw new DeploymentException(String.format("Cannot deploy %s: %s", name,
+                        Operations.getFailureDescription(result).asString()));
+            }
+            unmanagedContent.put(name, dir);
+            dir = null;
+            return name;
+        } catch (IOException e) {
+            throw createException("Cannot deploy: " + name, e);
+        } finally {
+            // Only set if the deployment failed
+            if (dir != null) {
+                deleteDirectory(dir);
+            }
+        }
+    }
+
     private String deployInternal(String name, InputStream input) throws DeploymentException {
         checkState();
         final DeploymentResult result;
@@ -174,6 +401,37 @@ public class ArchiveDeployer {
         throw new DeploymentException(String.format("Cannot deploy %s: %s", name, result.getFailureMessage()));
     }
 
+    /**
+     * Removes a deployment an incremental undeploy has left disabled on the server, so the content can be replaced.
+     */
+    private void removeDisabledIncrementalDeployment(final String name) throws DeploymentException {
+        final CommonContainerConfiguration config = client == null ? null : client.getContainerConfiguration();
+        if (config == null || !config.isIncrementalDeployments()) {
+            return;
+        }
+        checkState();
+        try {
+            new IncrementalDeployer(controllerClient, client).removeDisabled(name);
+        } catch (IOException e) {
+            throw createException("Cannot deploy: " + name, e);
+        }
+    }
+
+    /**
+     * Checks if archives are deployed by uploading them to the server, which requires a single operation.
+     */
+    private boolean isDefaultDeployment() {
+        final CommonContainerConfiguration config = client == null ? null : client.getContainerConfiguration();
+        return config == null || !(config.isUnmanagedDeployments() || config.isIncrementalDeployments()
+                || config.isDeployByContentHash());
+    }
+
+    private void invalidateCache(final String name) {
+        if (client != null && !client.isClosed()) {
+            client.getCachingControllerClient().invalidate(Operations.createAddress(ClientConstants.DEPLOYMENT, name));
+        }
+    }
+
     private void checkState() {
         // Checks the state
         if (client != null && client.isClosed()) {
@@ -181,6 +439,26 @@ public class ArchiveDeployer {
         }
     }
 
+    private static void deleteDirectory(final Path dir) {
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warnf(e, "Failed to delete directory %s", dir);
+        }
+    }
+
     /**
      * Creates a deployment exception with the root cause of the exception adding any other causes as a suppressed
      * exception.
@@ -0,0 +1,249 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationMessageHandler;
+import org.jboss.as.controller.client.OperationResponse;
+import org.jboss.as.controller.client.helpers.ClientConstants;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+import org.jboss.threads.AsyncFuture;
+
+/**
+ * A client which caches the successful results of read-only operations.
+ * <p>
+ * The {@code read-resource}, {@code read-children-resources}, {@code read-children-names},
+ * {@code read-children-types}, {@code read-resource-description} and {@code read-operation-description} operations
+ * are cached, unless they include runtime values. A {@code read-attribute} operation is only cached if the description
+ * of the resource declares the attribute as a configuration attribute, runtime attributes are always read from the
+ * server. Any other operation executed through this client invalidates the cached results for resources with an
+ * address which overlaps the address of the operation.
+ * </p>
+ * <p>
+ * Changes made through other clients are not seen by this client. Use {@link #invalidate(ModelNode)} or
+ * {@link #clear()} if the configuration has been changed by other means. Note that runtime attributes, for example
+ * the {@code status} of a deployment, should not be read with this client.
+ * </p>
+ * <p>
+ * Closing this client only clears the cache, the underlying client is not closed.
+ * </p>
+ *
+ * @see ManagementClient#getCachingControllerClient()
+ */
+public class CachingModelControllerClient implements ModelControllerClient {
+
+    private static final Set<String> CACHEABLE_OPERATIONS = Set.of(
+            ClientConstants.READ_RESOURCE_OPERATION,
+            "read-children-resources",
+            ClientConstants.READ_ATTRIBUTE_OPERATION,
+            ClientConstants.READ_CHILDREN_NAMES_OPERATION,
+            "read-children-types",
+            "read-resource-description",
+            "read-operation-description");
+
+    private static final String STORAGE = "storage";
+    private static final String CONFIGURATION = "configuration";
+
+    private final ModelControllerClient delegate;
+    private final Map<ModelNode, ModelNode> cache;
+    // Incremented before cached results are invalidated, results read while it changed are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Creates a new caching client.
+     *
+     * @param delegate the client to execute the operations with
+     */
+    public CachingModelControllerClient(final ModelControllerClient delegate) {
+        this.delegate = delegate;
+        cache = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public ModelNode execute(final ModelNode operation) throws IOException {
+        return execute(Operation.Factory.create(operation), null);
+    }
+
+    @Override
+    public ModelNode execute(final Operation operation) throws IOException {
+        return execute(operation, null);
+    }
+
+    @Override
+    public ModelNode execute(final ModelNode operation, final OperationMessageHandler messageHandler) throws IOException {
+        return execute(Operation.Factory.create(operation), messageHandler);
+    }
+
+    @Override
+    public ModelNode execute(final Operation operation, final OperationMessageHandler messageHandler) throws IOException {
+        final ModelNode op = operation.getOperation();
+        if (operation.getInputStreams().isEmpty() && isCacheable(op)) {
+            final ModelNode key = createKey(op);
+            final ModelNode cached = cache.get(key);
+            if (cached != null) {
+                return cached.clone();
+            }
+            final long start = generation.get();
+            final ModelNode result = delegate.execute(operation, messageHandler);
+            if (Operations.isSuccessfulOutcome(result)) {
+                final ModelNode value = result.clone();
+                cache.put(key, value);
+                // An invalidation while the operation was executed may not have seen the result
+                if (generation.get() != start) {
+                    cache.remove(key, value);
+                }
+            }
+            return result;
+        }
+        try {
+            return delegate.execute(operation, messageHandler);
+        } finally {
+            invalidateFor(op);
+        }
+    }
+
+    @Override
+    public OperationResponse executeOperation(final Operation operation, final OperationMessageHandler messageHandler)
+            throws IOException {
+        try {
+            return delegate.executeOperation(operation, messageHandler);
+        } finally {
+            invalidateFor(operation.getOperation());
+        }
+    }
+
+    @Override
+    public AsyncFuture<ModelNode> executeAsync(final ModelNode operation, final OperationMessageHandler messageHandler) {
+        invalidateFor(operation);
+        return delegate.executeAsync(operation, messageHandler);
+    }
+
+    @Override
+    public AsyncFuture<ModelNode> executeAsync(final Operation operation, final OperationMessageHandler messageHandler) {
+        invalidateFor(operation.getOperation());
+        return delegate.executeAsync(operation, messageHandler);
+    }
+
+    @Override
+    public AsyncFuture<OperationResponse> executeOperationAsync(final Operation operation,
+            final OperationMessageHandler messageHandler) {
+        invalidateFor(operation.getOperation());
+        return delegate.executeOperationAsync(operation, messageHandler);
+    }
+
+    /**
+     * Removes the cached results for all resources with an address which overlaps the address. That is resources at
+     * the address, its parents and its children.
+     *
+     * @param address the address to invalidate the cached results for
+     */
+    public void invalidate(final ModelNode address) {
+        generation.incrementAndGet();
+        cache.keySet().removeIf(key -> overlaps(Operations.getOperationAddress(key), address));
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * Clears the cache. The underlying client is not closed.
+     */
+    @Override
+    public void close() {
+        clear();
+    }
+
+    private void invalidateFor(final ModelNode op) {
+        final String name = Operations.getOperationName(op);
+        if (ClientConstants.COMPOSITE.equals(name)) {
+            if (op.hasDefined(ClientConstants.STEPS)) {
+                for (ModelNode step : op.get(ClientConstants.STEPS).asList()) {
+                    invalidateFor(step);
+                }
+            }
+        } else if (!CACHEABLE_OPERATIONS.contains(name)) {
+            invalidate(Operations.getOperationAddress(op));
+        }
+    }
+
+    private boolean isCacheable(final ModelNode op) throws IOException {
+        if (!op.hasDefined(ClientConstants.OP) || !CACHEABLE_OPERATIONS.contains(op.get(ClientConstants.OP).asString())) {
+            return false;
+        }
+        if (op.hasDefined(ClientConstants.INCLUDE_RUNTIME) && op.get(ClientConstants.INCLUDE_RUNTIME).asBoolean()) {
+            return false;
+        }
+        if (ClientConstants.READ_ATTRIBUTE_OPERATION.equals(Operations.getOperationName(op))) {
+            // Runtime attributes are returned regardless of include-runtime
+            return op.hasDefined(ClientConstants.NAME) && isConfigurationAttribute(Operations.getOperationAddress(op),
+                    op.get(ClientConstants.NAME).asString());
+        }
+        return true;
+    }
+
+    private boolean isConfigurationAttribute(final ModelNode address, final String name) throws IOException {
+        final ModelNode op = Operations.createOperation("read-resource-description", address);
+        // The description is cached, so each resource is only described once
+        final ModelNode result = execute(op);
+        if (!Operations.isSuccessfulOutcome(result)) {
+            return false;
+        }
+        ModelNode description = Operations.readResult(result);
+        // Descriptions of wildcard addresses are returned as a list
+        if (description.getType() == ModelType.LIST) {
+            final List<ModelNode> descriptions = description.asList();
+            if (descriptions.size() != 1) {
+                return false;
+            }
+            description = Operations.readResult(descriptions.get(0));
+        }
+        final ModelNode attribute = description.get("attributes", name);
+        return attribute.hasDefined(STORAGE) && CONFIGURATION.equals(attribute.get(STORAGE).asString());
+    }
+
+    private static ModelNode createKey(final ModelNode op) {
+        final ModelNode key = op.clone();
+        key.remove(ClientConstants.OPERATION_HEADERS);
+        // Ensure an undefined address and an empty address result in the same key
+        final ModelNode address = Operations.getOperationAddress(op);
+        key.get(ClientConstants.OP_ADDR).set(address.isDefined() ? address : new ModelNode().setEmptyList());
+        return key;
+    }
+
+    private static boolean overlaps(final ModelNode address1, final ModelNode address2) {
+        final List<Property> elements1 = address1.isDefined() ? address1.asPropertyList() : List.of();
+        final List<Property> elements2 = address2.isDefined() ? address2.asPropertyList() : List.of();
+        final int len = Math.min(elements1.size(), elements2.size());
+        for (int i = 0; i < len; i++) {
+            final Property element1 = elements1.get(i);
+            final Property element2 = elements2.get(i);
+            if (!element1.getName().equals(element2.getName())) {
+                return false;
+            }
+            final String value1 = element1.getValue().asString();
+            final String value2 = element2.getValue().asString();
+            if (!value1.equals(value2) && !"*".equals(value1) && !"*".equals(value2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -35,11 +35,26 @@ public class CommonContainerConfiguration implements ContainerConfiguration {
      */
     private int connectionTimeout;
 
+    private boolean preExportDeployments;
+    private boolean unmanagedDeployments;
+    private boolean explodeUnmanagedDeployments;
+    private boolean incrementalDeployments;
+    private boolean deployByContentHash;
+    private boolean coalesceServerSetupTasks;
+    private boolean coalesceReloads;
+    private boolean managementMetrics;
+    private String managementMetricsFile;
+
     public CommonContainerConfiguration() {
         managementAddress = "127.0.0.1";
         managementPort = 9990 + Integer.decode(System.getProperty("jboss.socket.binding.port-offset", "0"));
         host = null;
         port = -1;
+        preExportDeployments = Boolean.getBoolean("wildfly.arquillian.deployment.pre-export");
+        coalesceServerSetupTasks = Boolean.getBoolean("wildfly.arquillian.server.setup.coalesce");
+        coalesceReloads = Boolean.getBoolean("wildfly.arquillian.server.setup.coalesce-reloads");
+        managementMetrics = Boolean.getBoolean("wildfly.arquillian.management.metrics");
+        managementMetricsFile = System.getProperty("wildfly.arquillian.management.metrics.file");
     }
 
     public String getManagementAddress() {
@@ -174,6 +189,225 @@ public class CommonContainerConfiguration implements ContainerConfiguration {
         this.socketBindingName = socketBindingName;
     }
 
+    /**
+     * Indicates whether the archives of the deployments for a test class are exported in the background as soon as
+     * they have been generated rather than when they are deployed.
+     *
+     * @return {@code true} if the archives are exported in the background, otherwise {@code false}
+     */
+    public boolean isPreExportDeployments() {
+        return preExportDeployments;
+    }
+
+    /**
+     * Sets whether the archives of the deployments for a test class should be exported in the background as soon as
+     * they have been generated. This allows exporting the archives while the server setup tasks run and other
+     * deployments are deployed. Note the exported archives are held in memory until they are deployed.
+     * <p>
+     * The default can be set with the {@code wildfly.arquillian.deployment.pre-export} system property.
+     * </p>
+     *
+     * @param preExportDeployments {@code true} to export the archives in the background
+     */
+    public void setPreExportDeployments(final boolean preExportDeployments) {
+        this.preExportDeployments = preExportDeployments;
+    }
+
+    /**
+     * Indicates whether archives are written to the local file system and deployed as unmanaged content.
+     *
+     * @return {@code true} if archives are deployed as unmanaged content, otherwise {@code false}
+     */
+    public boolean isUnmanagedDeployments() {
+        return unmanagedDeployments;
+    }
+
+    /**
+     * Sets whether archives should be written to a temporary directory and deployed as unmanaged content referenced
+     * by its path. This avoids uploading the archive to the server and storing it in the servers content repository.
+     * <p>
+     * The server must be able to read the temporary directory of this JVM, which is generally only the case for
+     * managed and embedded containers.
+     * </p>
+     *
+     * @param unmanagedDeployments {@code true} to deploy archives as unmanaged content
+     */
+    public void setUnmanagedDeployments(final boolean unmanagedDeployments) {
+        this.unmanagedDeployments = unmanagedDeployments;
+    }
+
+    /**
+     * Indicates whether archives deployed as unmanaged content are written exploded.
+     *
+     * @return {@code true} if unmanaged deployments are exploded, otherwise {@code false}
+     */
+    public boolean isExplodeUnmanagedDeployments() {
+        return explodeUnmanagedDeployments;
+    }
+
+    /**
+     * Sets whether archives deployed as {@linkplain #setUnmanagedDeployments(boolean) unmanaged content} should be
+     * written exploded rather than as a single zip file.
+     *
+     * @param explodeUnmanagedDeployments {@code true} to write the unmanaged deployments exploded
+     */
+    public void setExplodeUnmanagedDeployments(final boolean explodeUnmanagedDeployments) {
+        this.explodeUnmanagedDeployments = explodeUnmanagedDeployments;
+    }
+
+    /**
+     * Indicates whether archives are deployed as exploded content which is updated incrementally when the same
+     * deployment is deployed again.
+     *
+     * @return {@code true} if deployments are updated incrementally, otherwise {@code false}
+     */
+    public boolean isIncrementalDeployments() {
+        return incrementalDeployments;
+    }
+
+    /**
+     * Sets whether archives should be deployed as exploded content which is updated incrementally. When enabled,
+     * undeploying an archive deployed by the container only disables the deployment. Deploying an archive with the
+     * same name again uploads only the entries which changed since it was last deployed. Other undeploys, for example
+     * with the {@link ArchiveDeployer}, remove the deployment.
+     * <p>
+     * Note the deployments of the container remain on the server, disabled, after the tests have completed. A disabled
+     * deployment is removed if content with the same name is deployed from an input stream.
+     * </p>
+     *
+     * @param incrementalDeployments {@code true} to update deployments incrementally
+     */
+    public void setIncrementalDeployments(final boolean incrementalDeployments) {
+        this.incrementalDeployments = incrementalDeployments;
+    }
+
+    /**
+     * Indicates whether archives with the same content as a previously deployed archive are deployed by referencing the
+     * content already on the server.
+     *
+     * @return {@code true} if archives are deployed by their content hash, otherwise {@code false}
+     */
+    public boolean isDeployByContentHash() {
+        return deployByContentHash;
+    }
+
+    /**
+     * Sets whether archives with the same content as a previously deployed archive should be deployed by referencing
+     * the content the server already has, rather than uploading the archive again. This helps when the same archive is
+     * deployed by several test classes.
+     * <p>
+     * The content of each archive is hashed before it is deployed. The server removes content as soon as no deployment
+     * references it, so when the container undeploys an archive a disabled deployment named
+     * {@code arquillian-retained-content-<hash>} is added to keep the content on the server. Deploying an archive with
+     * the same content references the retained content instead of uploading the archive. Retained deployments are
+     * removed when the container is stopped. Undeploys through the {@link ArchiveDeployer} do not retain the content.
+     * This is ignored if
+     * {@linkplain #setUnmanagedDeployments(boolean) unmanaged} or {@linkplain #setIncrementalDeployments(boolean)
+     * incremental} deployments are enabled.
+     * </p>
+     *
+     * @param deployByContentHash {@code true} to deploy archives by their content hash
+     */
+    public void setDeployByContentHash(final boolean deployByContentHash) {
+        this.deployByContentHash = deployByContentHash;
+    }
+
+    /**
+     * Indicates whether the tear down of {@linkplain org.jboss.as.arquillian.api.ServerSetup server setup tasks} is
+     * deferred so the setup can be reused by the next test class.
+     *
+     * @return {@code true} if identical server setups of consecutive test classes are coalesced
+     */
+    public boolean isCoalesceServerSetupTasks() {
+        return coalesceServerSetupTasks;
+    }
+
+    /**
+     * Sets whether the tear down of the {@linkplain org.jboss.as.arquillian.api.ServerSetup server setup tasks} of a
+     * test class should be deferred. If the next test class declares exactly the same setup tasks, in the same order,
+     * the tasks are neither torn down nor set up again. Otherwise, the deferred tasks are torn down before the next
+     * test class is set up.
+     * <p>
+     * Only enable this if the setup tasks do not depend on state of the test class or its deployments. The default
+     * can be set with the {@code wildfly.arquillian.server.setup.coalesce} system property.
+     * </p>
+     *
+     * @param coalesceServerSetupTasks {@code true} to coalesce identical server setups
+     */
+    public void setCoalesceServerSetupTasks(final boolean coalesceServerSetupTasks) {
+        this.coalesceServerSetupTasks = coalesceServerSetupTasks;
+    }
+
+    /**
+     * Indicates whether the reloads required by {@linkplain org.jboss.as.arquillian.api.ReloadIfRequired setup tasks}
+     * are deferred until all setup tasks have been executed.
+     *
+     * @return {@code true} if reloads are coalesced, otherwise {@code false}
+     */
+    public boolean isCoalesceReloads() {
+        return coalesceReloads;
+    }
+
+    /**
+     * Sets whether the reload of setup tasks annotated with {@link org.jboss.as.arquillian.api.ReloadIfRequired} should
+     * be deferred until all the setup tasks of the test class have been set up, or torn down. At most one reload then
+     * happens for the setup and one for the tear down. The longest timeout of the tasks is used for the reload.
+     * <p>
+     * Only enable this if the setup tasks do not depend on a reload of a previous task having happened. The default
+     * can be set with the {@code wildfly.arquillian.server.setup.coalesce-reloads} system property.
+     * </p>
+     *
+     * @param coalesceReloads {@code true} to coalesce reloads
+     */
+    public void setCoalesceReloads(final boolean coalesceReloads) {
+        this.coalesceReloads = coalesceReloads;
+    }
+
+    /**
+     * Indicates whether metrics are collected for the management operations executed against the container.
+     *
+     * @return {@code true} if management metrics are collected, otherwise {@code false}
+     */
+    public boolean isManagementMetrics() {
+        return managementMetrics;
+    }
+
+    /**
+     * Sets whether the number, latency and size of the management operations executed against the container should be
+     * recorded for each operation name and test class. The metrics can be injected as a {@link ManagementMetrics}
+     * resource and are written as JSON after the test suite has completed.
+     * <p>
+     * The default can be set with the {@code wildfly.arquillian.management.metrics} system property.
+     * </p>
+     *
+     * @param managementMetrics {@code true} to collect management metrics
+     */
+    public void setManagementMetrics(final boolean managementMetrics) {
+        this.managementMetrics = managementMetrics;
+    }
+
+    /**
+     * Returns the file the management metrics are written to.
+     *
+     * @return the file or {@code null} if the metrics are logged
+     */
+    public String getManagementMetricsFile() {
+        return managementMetricsFile;
+    }
+
+    /**
+     * Sets the file the management metrics are written to after the test suite has completed. If not set, the metrics
+     * are logged.
+     * <p>
+     * The default can be set with the {@code wildfly.arquillian.management.metrics.file} system property.
+     * </p>
+     *
+     * @param managementMetricsFile the path to the file
+     */
+    public void setManagementMetricsFile(final String managementMetricsFile) {
+        this.managementMetricsFile = managementMetricsFile;
+    }
+
     @Override
     public void validate() throws ConfigurationException {
         if (username != null && password == null) {
@@ -182,5 +416,12 @@ public class CommonContainerConfiguration implements ContainerConfiguration {
         if (protocol != null && !("http".equalsIgnoreCase(protocol) || "https".equalsIgnoreCase(protocol))) {
             throw new ConfigurationException("Only http and https are allowed protocol settings, found " + protocol);
         }
+        if (explodeUnmanagedDeployments && !unmanagedDeployments) {
+            throw new ConfigurationException(
+                    "explodeUnmanagedDeployments has been set, but unmanagedDeployments is not enabled");
+        }
+        if (incrementalDeployments && unmanagedDeployments) {
+            throw new ConfigurationException("incrementalDeployments and unmanagedDeployments cannot both be enabled");
+        }
     }
 }
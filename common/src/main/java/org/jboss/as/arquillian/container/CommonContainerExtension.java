@@ -28,6 +28,7 @@ public class CommonContainerExtension implements LoadableExtension {
         builder.service(DeploymentExceptionTransformer.class, ExceptionTransformer.class);
         builder.service(ResourceProvider.class, ArchiveDeployerProvider.class);
         builder.service(ResourceProvider.class, ManagementClientProvider.class);
+        builder.service(ResourceProvider.class, ManagementMetricsProvider.class);
         // Set up the providers for client injection of a ServerManager. We will not support injection for in-container
         // tests. The main reason for this is we likely shouldn't be managing a servers lifecycle from a deployment. In
         // some cases it may not even work.
@@ -36,6 +37,8 @@ public class CommonContainerExtension implements LoadableExtension {
         builder.service(AuxiliaryArchiveAppender.class, CommonContainerArchiveAppender.class);
 
         builder.observer(ServerSetupObserver.class);
+        builder.observer(DeploymentPreExporter.class);
+        builder.observer(ManagementMetricsObserver.class);
 
         // WildFlyContainerController
         builder
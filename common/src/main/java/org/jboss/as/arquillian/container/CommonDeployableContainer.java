@@ -59,6 +59,10 @@ public abstract class CommonDeployableContainer<T extends CommonContainerConfigu
     @ContainerScoped
     private InstanceProducer<ArchiveDeployer> archiveDeployer;
 
+    @Inject
+    @ContainerScoped
+    private InstanceProducer<ManagementMetrics> managementMetricsProducer;
+
     @Inject
     @ApplicationScoped
     private InstanceProducer<Context> jndiContext;
@@ -70,6 +74,7 @@ public abstract class CommonDeployableContainer<T extends CommonContainerConfigu
 
     private final StandaloneDelegateProvider mccProvider = new StandaloneDelegateProvider();
     private ManagementClient managementClient = null;
+    private ManagementMetrics managementMetrics = null;
     private ContainerDescription containerDescription = null;
     private URI authenticationConfig = null;
 
@@ -88,7 +93,14 @@ public abstract class CommonDeployableContainer<T extends CommonContainerConfigu
             this.authenticationConfig = URI.create(authenticationConfig);
         }
 
-        final ManagementClient client = new ManagementClient(new DelegatingModelControllerClient(mccProvider), containerConfig);
+        ModelControllerClient controllerClient = new DelegatingModelControllerClient(mccProvider);
+        if (containerConfig.isManagementMetrics()) {
+            final ManagementMetrics metrics = new ManagementMetrics();
+            controllerClient = new MetricsModelControllerClient(controllerClient, metrics);
+            managementMetrics = metrics;
+            managementMetricsProducer.set(metrics);
+        }
+        final ManagementClient client = new ManagementClient(controllerClient, containerConfig);
         managementClient = client;
         managementClientProducer.set(client);
 
@@ -150,6 +162,7 @@ public abstract class CommonDeployableContainer<T extends CommonContainerConfigu
 
     @Override
     public final void stop() throws LifecycleException {
+        removeRetainedContent();
         try {
             stopInternal(null);
         } finally {
@@ -158,6 +171,7 @@ public abstract class CommonDeployableContainer<T extends CommonContainerConfigu
     }
 
     public final void stop(Integer timeout) throws LifecycleException {
+        removeRetainedContent();
         try {
             stopInternal(timeout);
         } finally {
@@ -167,6 +181,13 @@ public abstract class CommonDeployableContainer<T extends CommonContainerConfigu
 
     protected abstract void stopInternal(Integer timeout) throws LifecycleException;
 
+    private void removeRetainedContent() {
+        final ArchiveDeployer deployer = archiveDeployer.get();
+        if (deployer != null) {
+            deployer.removeRetainedContent();
+        }
+    }
+
     /**
      * Returns a description for the running container. If the container has not been started {@code null} will be
      * returned.
@@ -222,6 +243,16 @@ public abstract class CommonDeployableContainer<T extends CommonContainerConfigu
         return managementClient;
     }
 
+    /**
+     * Returns the metrics collected for the management operations executed against this container.
+     *
+     * @return the metrics or {@code null} if {@linkplain CommonContainerConfiguration#isManagementMetrics() metrics}
+     *             are not collected
+     */
+    ManagementMetrics getManagementMetrics() {
+        return managementMetrics;
+    }
+
     protected ModelControllerClient getModelControllerClient() {
         if (managementClient == null) {
             throw new IllegalStateException("The container has not been setup. The client is not usable.");
@@ -299,7 +330,8 @@ public abstract class CommonDeployableContainer<T extends CommonContainerConfigu
 
     @Override
     public void undeploy(Archive<?> archive) throws DeploymentException {
-        archiveDeployer.get().undeploy(archive.getName());
+        // Incremental deployments are kept disabled so the next deployment of the archive only uploads the changes
+        archiveDeployer.get().undeploy(archive.getName(), true, true);
     }
 
     @Override
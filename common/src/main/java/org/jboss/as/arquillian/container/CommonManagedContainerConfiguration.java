@@ -34,6 +34,8 @@ public class CommonManagedContainerConfiguration extends CommonContainerConfigur
 
     private boolean outputToConsole = true;
 
+    private int outputBufferSizeInKb = 1024;
+
     private boolean allowConnectingToRunningServer = Boolean
             .parseBoolean(System.getProperty("allowConnectingToRunningServer", "false"));
 
@@ -41,11 +43,28 @@ public class CommonManagedContainerConfiguration extends CommonContainerConfigur
 
     private Integer waitForPortsTimeoutInSeconds;
 
+    private int serverPoolSize = Integer.parseInt(System.getProperty("wildfly.arquillian.server.pool.size", "0"));
+
+    private int serverPoolPortIncrement = 100;
+
+    private String serverPoolDirectory = System.getProperty("wildfly.arquillian.server.pool.dir");
+
     @Override
     public void validate() throws ConfigurationException {
         super.validate();
         if (javaHome != null)
             Validate.configurationDirectoryExists(javaHome, "javaHome '" + javaHome + "' must exist");
+        if (outputBufferSizeInKb < 0) {
+            throw new ConfigurationException(
+                    String.format("The outputBufferSizeInKb must be 0 or greater: %d", outputBufferSizeInKb));
+        }
+        if (serverPoolSize < 0) {
+            throw new ConfigurationException(String.format("The serverPoolSize must be 0 or greater: %d", serverPoolSize));
+        }
+        if (serverPoolSize > 0 && serverPoolPortIncrement <= 0) {
+            throw new ConfigurationException(
+                    String.format("The serverPoolPortIncrement must be greater than 0: %d", serverPoolPortIncrement));
+        }
     }
 
     public String getJavaHome() {
@@ -83,6 +102,21 @@ public class CommonManagedContainerConfiguration extends CommonContainerConfigur
         return outputToConsole;
     }
 
+    /**
+     * The amount of the most recent server output, in kilobytes, which is retained. If the server fails to start or a
+     * deployment fails and the output was not written to the console, the retained output is logged. A value of
+     * {@code 0} disables retaining the output. Defaults to 1024.
+     *
+     * @return the size of the retained output in kilobytes
+     */
+    public int getOutputBufferSizeInKb() {
+        return outputBufferSizeInKb;
+    }
+
+    public void setOutputBufferSizeInKb(final int outputBufferSizeInKb) {
+        this.outputBufferSizeInKb = outputBufferSizeInKb;
+    }
+
     public boolean isAllowConnectingToRunningServer() {
         return allowConnectingToRunningServer;
     }
@@ -112,4 +146,49 @@ public class CommonManagedContainerConfiguration extends CommonContainerConfigur
     public void setWaitForPortsTimeoutInSeconds(final Integer waitForPortsTimeoutInSeconds) {
         this.waitForPortsTimeoutInSeconds = waitForPortsTimeoutInSeconds;
     }
+
+    /**
+     * The number of servers in the managed server pool. A value of {@code 0}, the default, disables pooling.
+     * <p>
+     * When enabled each test JVM, e.g. each forked surefire JVM, leases a free slot from the pool before the server is
+     * launched. The slot determines the port offset and the server base directory of the server. This allows up to the
+     * pool size servers to be booted and used concurrently on the same host.
+     * </p>
+     *
+     * @return the size of the server pool
+     */
+    public int getServerPoolSize() {
+        return serverPoolSize;
+    }
+
+    public void setServerPoolSize(final int serverPoolSize) {
+        this.serverPoolSize = serverPoolSize;
+    }
+
+    /**
+     * The port offset added for each slot in the server pool; defaults to 100.
+     *
+     * @return the port offset increment between each server in the pool
+     */
+    public int getServerPoolPortIncrement() {
+        return serverPoolPortIncrement;
+    }
+
+    public void setServerPoolPortIncrement(final int serverPoolPortIncrement) {
+        this.serverPoolPortIncrement = serverPoolPortIncrement;
+    }
+
+    /**
+     * The directory the lock files for the server pool slots are stored in. Every JVM sharing this directory shares the
+     * pool. Defaults to a {@code wildfly-arquillian-server-pool} directory in the {@code java.io.tmpdir}.
+     *
+     * @return the server pool directory or {@code null} to use the default
+     */
+    public String getServerPoolDirectory() {
+        return serverPoolDirectory;
+    }
+
+    public void setServerPoolDirectory(final String serverPoolDirectory) {
+        this.serverPoolDirectory = serverPoolDirectory;
+    }
 }
@@ -8,18 +8,26 @@ import static org.wildfly.core.launcher.ProcessHelper.addShutdownHook;
 import static org.wildfly.core.launcher.ProcessHelper.destroyProcess;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.DatagramSocket;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
 import org.jboss.arquillian.container.spi.client.container.LifecycleException;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
 import org.jboss.as.controller.client.helpers.Operations;
 import org.jboss.dmr.ModelNode;
 import org.jboss.logging.Logger;
+import org.jboss.shrinkwrap.api.Archive;
 import org.wildfly.core.launcher.CommandBuilder;
 import org.wildfly.core.launcher.Launcher;
 import org.wildfly.plugin.tools.server.ServerManager;
@@ -38,14 +46,46 @@ public abstract class CommonManagedDeployableContainer<T extends CommonManagedCo
 
     private static final int PORT_RANGE_MIN = 1;
     private static final int PORT_RANGE_MAX = 65535;
+    private static final String SERVER_POOL_DIRECTORY = "wildfly-arquillian-server-pool";
     private Thread shutdownThread = null;
     private Process process = null;
+    private ConsolePump consolePump = null;
     private boolean timeoutSupported = false;
+    private ServerPoolLease serverPoolLease = null;
+    private Path serverPoolDirectory = null;
+    private final Map<String, Path> bootDeployments = new LinkedHashMap<>();
+
+    @Override
+    public void setup(final T config) {
+        if (config.getServerPoolSize() > 0 && serverPoolLease == null) {
+            // Lease a slot before the management client is created as the slot determines the ports of the server
+            final String dir = config.getServerPoolDirectory();
+            final Path poolDir = dir == null ? Paths.get(System.getProperty("java.io.tmpdir"), SERVER_POOL_DIRECTORY)
+                    : Paths.get(dir);
+            serverPoolDirectory = poolDir;
+            try {
+                serverPoolLease = ServerPoolLease.acquire(poolDir, config.getServerPoolSize(),
+                        Integer.decode(System.getProperty("jboss.socket.binding.port-offset", "0")),
+                        config.getServerPoolPortIncrement(), config.getStartupTimeoutInSeconds(), TimeUnit.SECONDS);
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Failed to lease a server from the pool in %s", poolDir), e);
+            }
+            final int offset = serverPoolLease.getRelativePortOffset();
+            config.setManagementPort(config.getManagementPort() + offset);
+            if (config.getPort() > 0) {
+                config.setPort(config.getPort() + offset);
+            }
+            getLogger().infof("Using server pool slot %d with a port offset of %d", serverPoolLease.getSlot(),
+                    serverPoolLease.getPortOffset());
+        }
+        super.setup(config);
+    }
 
     @Override
     @SuppressWarnings("FeatureEnvy")
     protected void startInternal() throws LifecycleException {
         final T config = getContainerConfiguration();
+        reacquireServerPoolLease(config);
         if (isServerRunning(config)) {
             if (config.isAllowConnectingToRunningServer()) {
                 // Set up the server manager attempting to discover the process for monitoring purposes. We need the
@@ -69,7 +109,9 @@ public abstract class CommonManagedDeployableContainer<T extends CommonManagedCo
 
             getLogger().info("Starting container with: " + commandBuilder.build());
             final Process process = Launcher.of(commandBuilder).setRedirectErrorStream(true).launch();
-            new Thread(new ConsoleConsumer(process, config.isOutputToConsole())).start();
+            final ServerBootMonitor bootMonitor = new ServerBootMonitor(process);
+            consolePump = ConsolePump.start(process, config.isOutputToConsole(), bootMonitor,
+                    config.getOutputBufferSizeInKb() * 1024);
             shutdownThread = addShutdownHook(process);
             final StandaloneManager serverManager = ServerManager.builder()
                     .client(getManagementClient().getControllerClient())
@@ -77,8 +119,10 @@ public abstract class CommonManagedDeployableContainer<T extends CommonManagedCo
                     .standalone();
 
             long startupTimeout = config.getStartupTimeoutInSeconds();
-            if (!serverManager.waitFor(startupTimeout, TimeUnit.SECONDS)) {
+            final ManagementClient client = getManagementClient();
+            if (!bootMonitor.await(client::isServerInRunningState, startupTimeout, TimeUnit.SECONDS)) {
                 destroyProcess(process);
+                logRetainedOutput("The server failed to start.");
                 throw new TimeoutException(String.format("Managed server was not started within [%d] s", startupTimeout));
             }
             timeoutSupported = isOperationAttributeSupported("shutdown", "timeout");
@@ -92,6 +136,64 @@ public abstract class CommonManagedDeployableContainer<T extends CommonManagedCo
         }
     }
 
+    @Override
+    public ProtocolMetaData deploy(final Archive<?> archive) throws DeploymentException {
+        try {
+            return super.deploy(archive);
+        } catch (DeploymentException | RuntimeException e) {
+            logRetainedOutput(String.format("Failed to deploy %s.", archive.getName()));
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the lease on the server pool slot this container uses. Implementations are expected to launch the server
+     * with the {@linkplain ServerPoolLease#getPortOffset() port offset} of the lease and a server base directory unique
+     * to the slot.
+     *
+     * @return the server pool lease or {@code null} if server pooling is not enabled
+     */
+    protected ServerPoolLease getServerPoolLease() {
+        return serverPoolLease;
+    }
+
+    /**
+     * Adds an unmanaged deployment which is deployed while the server boots, rather than after the server has been
+     * started. The deployment is added to the configuration of the server with a YAML configuration file, the server
+     * must support YAML configuration files. The deployment is added the next time the server is started.
+     *
+     * @param name    the name of the deployment
+     * @param content the path to the content of the deployment
+     */
+    public synchronized void addBootDeployment(final String name, final Path content) {
+        bootDeployments.put(name, content.toAbsolutePath());
+    }
+
+    /**
+     * Creates the YAML configuration file which adds the {@linkplain #addBootDeployment(String, Path) boot deployments}
+     * to the configuration of the server.
+     *
+     * @return the path to the configuration file or {@code null} if there are no boot deployments
+     */
+    protected synchronized Path createBootDeploymentConfiguration() {
+        if (bootDeployments.isEmpty()) {
+            return null;
+        }
+        final StringBuilder yaml = new StringBuilder("wildfly-configuration:\n  deployment:\n");
+        for (Map.Entry<String, Path> entry : bootDeployments.entrySet()) {
+            yaml.append("    ").append(quote(entry.getKey())).append(":\n")
+                    .append("      path: ").append(quote(entry.getValue().toString())).append('\n');
+        }
+        try {
+            final Path file = Files.createTempFile("wildfly-arquillian-boot-deployments", ".yml");
+            file.toFile().deleteOnExit();
+            Files.writeString(file, yaml);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the boot deployment configuration.", e);
+        }
+    }
+
     /**
      * Returns the command builder used to launch the server.
      *
@@ -167,8 +269,39 @@ public abstract class CommonManagedDeployableContainer<T extends CommonManagedCo
         return false;
     }
 
+    private static String quote(final String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    private void reacquireServerPoolLease(final T config) throws LifecycleException {
+        final ServerPoolLease previous = serverPoolLease;
+        if (previous == null || previous.isValid()) {
+            return;
+        }
+        // The lease was released when the container was stopped, the ports of the container require the same slot
+        try {
+            serverPoolLease = ServerPoolLease.reacquire(serverPoolDirectory, previous.getSlot(),
+                    previous.getPortOffset() - previous.getRelativePortOffset(), config.getServerPoolPortIncrement(),
+                    config.getStartupTimeoutInSeconds(), TimeUnit.SECONDS);
+        } catch (IOException | IllegalStateException e) {
+            throw new LifecycleException(String.format("Failed to lease server pool slot %d from %s",
+                    previous.getSlot(), serverPoolDirectory), e);
+        }
+    }
+
     @Override
     protected void stopInternal(final Integer timeout) throws LifecycleException {
+        try {
+            stopProcess(timeout);
+        } finally {
+            // Release the slot so other containers can use it while this container is stopped
+            if (serverPoolLease != null) {
+                serverPoolLease.close();
+            }
+        }
+    }
+
+    private void stopProcess(final Integer timeout) throws LifecycleException {
         if (shutdownThread != null) {
             Runtime.getRuntime().removeShutdownHook(shutdownThread);
             shutdownThread = null;
@@ -271,33 +404,17 @@ public abstract class CommonManagedDeployableContainer<T extends CommonManagedCo
     }
 
     /**
-     * Runnable that consumes the output of the process. If nothing consumes the output the AS will hang on some platforms
+     * Logs the retained output of the server process. The output is only logged if it was not already written to the
+     * console.
      *
-     * @author Stuart Douglas
+     * @param reason the reason the output is logged
      */
-    private static class ConsoleConsumer implements Runnable {
-        private final Process process;
-        private final boolean writeOutput;
-
-        private ConsoleConsumer(final Process process, final boolean writeOutput) {
-            this.process = process;
-            this.writeOutput = writeOutput;
-        }
-
-        @Override
-        @SuppressWarnings("UseOfSystemOutOrSystemErr")
-        public void run() {
-            final InputStream stream = process.getInputStream();
-
-            try {
-                byte[] buf = new byte[32];
-                int num;
-                // Do not try reading a line cos it considers '\r' end of line
-                while ((num = stream.read(buf)) != -1) {
-                    if (writeOutput)
-                        System.out.write(buf, 0, num);
-                }
-            } catch (IOException ignore) {
+    private void logRetainedOutput(final String reason) {
+        final ConsolePump consolePump = this.consolePump;
+        if (consolePump != null && !getContainerConfiguration().isOutputToConsole()) {
+            final String output = consolePump.getRetainedOutput();
+            if (!output.isEmpty()) {
+                getLogger().errorf("%s The most recent server output was:%n%s", reason, output);
             }
         }
     }
@@ -0,0 +1,197 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationBuilder;
+import org.jboss.as.controller.client.helpers.ClientConstants;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.as.controller.client.helpers.Operations.CompositeOperationBuilder;
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+
+/**
+ * Deploys archives so an archive with the same content as an archive the container undeployed is not uploaded again.
+ * <p>
+ * The server removes content from its content repository as soon as no deployment references it. When an archive
+ * deployed by the container is undeployed, a disabled deployment named {@code arquillian-retained-content-} followed
+ * by the hash of the archive content is added, in the same operation, so the content stays in the content repository.
+ * When an archive with the same content is deployed, the deployment references the retained content and the retained
+ * deployment is removed. Other undeploys do not retain the content.
+ * </p>
+ * <p>
+ * Retained deployments are removed when the container is stopped.
+ * </p>
+ */
+final class ContentHashDeployer {
+    private static final Logger LOGGER = Logger.getLogger(ContentHashDeployer.class);
+
+    static final String RETAINED_PREFIX = "arquillian-retained-content-";
+
+    private static final String ENABLED = "enabled";
+    private static final String HASH = "hash";
+
+    private final ModelControllerClient client;
+    // The content hashes of the archives deployed by this deployer keyed by the deployment name
+    private final Map<String, String> archiveHashes = new ConcurrentHashMap<>();
+
+    ContentHashDeployer(final ModelControllerClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Deploys the archive, referencing the retained content of an archive with the same content if there is one.
+     *
+     * @param archive  the archive to deploy
+     * @param exported the exported archive or {@code null} if the archive has not been exported
+     *
+     * @return the runtime name of the deployment
+     *
+     * @throws DeploymentException if the deployment fails
+     */
+    String deploy(final Archive<?> archive, final byte[] exported) throws DeploymentException {
+        final String name = archive.getName();
+        try {
+            final String archiveHash = ArchiveContentHash.of(archive);
+            final String retainedName = RETAINED_PREFIX + archiveHash;
+            final ModelNode retained = readDeployment(retainedName);
+            final ModelNode addOp = Operations.createAddOperation(deploymentAddress(name));
+            addOp.get(ClientConstants.RUNTIME_NAME).set(name);
+            addOp.get(ENABLED).set(true);
+            if (retained != null) {
+                addOp.get(ClientConstants.CONTENT).add().get(HASH).set(contentHash(retained));
+                executeForResult(CompositeOperationBuilder.create()
+                        .addStep(addOp)
+                        .addStep(Operations.createRemoveOperation(deploymentAddress(retainedName)))
+                        .build());
+                LOGGER.debugf("Deployed %s using the content retained on the server", name);
+            } else {
+                addOp.get(ClientConstants.CONTENT).add().get("input-stream-index").set(0);
+                executeForResult(OperationBuilder.create(addOp, true)
+                        .addInputStream(new ByteArrayInputStream(exported == null ? export(archive) : exported))
+                        .build());
+            }
+            archiveHashes.put(name, archiveHash);
+            return name;
+        } catch (IOException | UncheckedIOException e) {
+            throw new DeploymentException("Cannot deploy: " + name, e);
+        }
+    }
+
+    /**
+     * Undeploys and removes the deployment. If the content should be kept and the deployment was deployed by this
+     * deployer, the content is retained for the next deployment of an archive with the same content.
+     *
+     * @param runtimeName   the name of the deployment
+     * @param failOnMissing {@code true} if the undeploy should fail if the deployment does not exist
+     * @param keepContent   {@code true} to retain the content of the deployment
+     *
+     * @throws IOException         if an error occurs communicating with the server
+     * @throws DeploymentException if the deployment could not be removed or does not exist and {@code failOnMissing}
+     *                                 is {@code true}
+     */
+    void undeploy(final String runtimeName, final boolean failOnMissing, final boolean keepContent)
+            throws IOException, DeploymentException {
+        final String archiveHash = archiveHashes.remove(runtimeName);
+        final ModelNode deployment = readDeployment(runtimeName);
+        if (deployment == null) {
+            if (failOnMissing) {
+                throw new DeploymentException(String.format("Deployment %s was not found", runtimeName));
+            }
+            return;
+        }
+        final CompositeOperationBuilder builder = CompositeOperationBuilder.create();
+        final ModelNode hash = contentHash(deployment);
+        if (keepContent && archiveHash != null && hash.isDefined()
+                && readDeployment(RETAINED_PREFIX + archiveHash) == null) {
+            final ModelNode addOp = Operations.createAddOperation(deploymentAddress(RETAINED_PREFIX + archiveHash));
+            addOp.get(ClientConstants.CONTENT).add().get(HASH).set(hash);
+            addOp.get(ENABLED).set(false);
+            builder.addStep(addOp);
+        }
+        if (deployment.get(ENABLED).asBoolean(false)) {
+            builder.addStep(Operations.createOperation("undeploy", deploymentAddress(runtimeName)));
+        }
+        builder.addStep(Operations.createRemoveOperation(deploymentAddress(runtimeName)));
+        executeForResult(builder.build());
+    }
+
+    /**
+     * Removes all retained deployments, which allows the server to remove the retained content.
+     *
+     * @throws IOException if an error occurs communicating with the server
+     */
+    void removeRetainedContent() throws IOException {
+        final ModelNode op = Operations.createOperation(ClientConstants.READ_CHILDREN_NAMES_OPERATION);
+        op.get(ClientConstants.CHILD_TYPE).set(ClientConstants.DEPLOYMENT);
+        final ModelNode result = client.execute(op);
+        if (!Operations.isSuccessfulOutcome(result)) {
+            LOGGER.warnf("Cannot read the deployments: %s", Operations.getFailureDescription(result).asString());
+            return;
+        }
+        final CompositeOperationBuilder builder = CompositeOperationBuilder.create();
+        boolean retained = false;
+        for (ModelNode name : Operations.readResult(result).asList()) {
+            if (name.asString().startsWith(RETAINED_PREFIX)) {
+                builder.addStep(Operations.createRemoveOperation(deploymentAddress(name.asString())));
+                retained = true;
+            }
+        }
+        if (retained) {
+            final ModelNode removeResult = client.execute(builder.build());
+            if (!Operations.isSuccessfulOutcome(removeResult)) {
+                LOGGER.warnf("Cannot remove the retained deployment content: %s",
+                        Operations.getFailureDescription(removeResult).asString());
+            }
+        }
+    }
+
+    private ModelNode readDeployment(final String name) throws IOException {
+        final ModelNode result = client.execute(Operations.createReadResourceOperation(deploymentAddress(name)));
+        if (Operations.isSuccessfulOutcome(result)) {
+            return Operations.readResult(result);
+        }
+        return null;
+    }
+
+    private void executeForResult(final Operation op) throws IOException, DeploymentException {
+        final ModelNode result = client.execute(op);
+        if (!Operations.isSuccessfulOutcome(result)) {
+            throw new DeploymentException(Operations.getFailureDescription(result).asString());
+        }
+    }
+
+    private static ModelNode contentHash(final ModelNode deployment) {
+        if (deployment.hasDefined(ClientConstants.CONTENT)) {
+            for (ModelNode content : deployment.get(ClientConstants.CONTENT).asList()) {
+                if (content.hasDefined(HASH)) {
+                    return content.get(HASH);
+                }
+            }
+        }
+        return new ModelNode();
+    }
+
+    private static byte[] export(final Archive<?> archive) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archive.as(ZipExporter.class).exportTo(out);
+        return out.toByteArray();
+    }
+
+    private static ModelNode deploymentAddress(final String name) {
+        return Operations.createAddress(ClientConstants.DEPLOYMENT, name);
+    }
+}
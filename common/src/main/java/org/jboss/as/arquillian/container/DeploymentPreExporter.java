@@ -0,0 +1,72 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container;
+
+import org.jboss.arquillian.container.spi.Container;
+import org.jboss.arquillian.container.spi.ContainerRegistry;
+import org.jboss.arquillian.container.spi.client.container.DeployableContainer;
+import org.jboss.arquillian.container.spi.client.deployment.Deployment;
+import org.jboss.arquillian.container.spi.client.deployment.DeploymentDescription;
+import org.jboss.arquillian.container.spi.client.deployment.DeploymentScenario;
+import org.jboss.arquillian.container.test.impl.client.deployment.event.GenerateDeployment;
+import org.jboss.arquillian.core.api.Instance;
+import org.jboss.arquillian.core.api.annotation.Inject;
+import org.jboss.arquillian.core.api.annotation.Observes;
+import org.jboss.arquillian.test.spi.event.suite.AfterClass;
+
+/**
+ * Starts exporting the archives of the deployments for a test class in the background as soon as the deployments
+ * have been generated.
+ * <p>
+ * The exports run while the server setup tasks are executed, other deployments are deployed and, for containers which
+ * are started for the test class, the container is booting. The {@link ArchiveDeployer} then uses the exported
+ * archive rather than exporting the archive when it is deployed.
+ * </p>
+ * <p>
+ * This is only done for containers with {@link CommonContainerConfiguration#isPreExportDeployments()} enabled.
+ * </p>
+ */
+public class DeploymentPreExporter {
+
+    @Inject
+    private Instance<DeploymentScenario> deploymentScenario;
+
+    @Inject
+    private Instance<ContainerRegistry> containerRegistry;
+
+    public void export(@Observes(precedence = -100) final GenerateDeployment event) {
+        final DeploymentScenario scenario = deploymentScenario.get();
+        final ContainerRegistry registry = containerRegistry.get();
+        if (scenario == null || registry == null) {
+            return;
+        }
+        for (Deployment deployment : scenario.deployments()) {
+            final DeploymentDescription description = deployment.getDescription();
+            if (!description.isArchiveDeployment() || !isPreExportEnabled(registry.getContainer(description.getTarget()))) {
+                continue;
+            }
+            // Use the same archive the container will be asked to deploy
+            PreExportedArchives.submit(description.getTestableArchive() != null ? description.getTestableArchive()
+                    : description.getArchive());
+        }
+    }
+
+    public void clear(@Observes final AfterClass event) {
+        PreExportedArchives.clear();
+    }
+
+    private static boolean isPreExportEnabled(final Container container) {
+        if (container == null) {
+            return false;
+        }
+        final DeployableContainer<?> deployableContainer = container.getDeployableContainer();
+        if (deployableContainer instanceof CommonDeployableContainer) {
+            final CommonContainerConfiguration config = ((CommonDeployableContainer<?>) deployableContainer)
+                    .getContainerConfiguration();
+            return config != null && config.isPreExportDeployments();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationBuilder;
+import org.jboss.as.controller.client.helpers.ClientConstants;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.as.controller.client.helpers.Operations.CompositeOperationBuilder;
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+
+/**
+ * Deploys archives as exploded managed content and, when the same deployment is deployed again, only uploads the
+ * entries which have changed.
+ * <p>
+ * The hashes of the entries of the last deployed archive are kept in an index on the local file system. Undeploying
+ * an archive deployed by the container only disables the deployment so the exploded content remains on the server,
+ * other undeploys remove the deployment. When the archive is deployed again
+ * the changed entries are uploaded with the {@code add-content} operation, removed entries are deleted with the
+ * {@code remove-content} operation and the deployment is enabled again. Nested archives are compared by their
+ * content, but are uploaded as a whole if they have changed.
+ * </p>
+ * <p>
+ * If the content on the server does not match the index, for example because it was changed by something else, the
+ * deployment is replaced with the full archive.
+ * </p>
+ */
+final class IncrementalDeployer {
+    private static final Logger LOGGER = Logger.getLogger(IncrementalDeployer.class);
+
+    private static final String INDEX_DIR = "wildfly-arquillian-incremental-deployments";
+    // Archive paths always start with a '/' so this cannot clash with an entry
+    private static final String SERVER_HASH_KEY = "server-content-hash";
+
+    private final ModelControllerClient client;
+    private final String serverKey;
+    private final Path indexDir;
+
+    IncrementalDeployer(final ModelControllerClient client, final ManagementClient managementClient) {
+        this.client = client;
+        this.serverKey = managementClient.getMgmtAddress() + ":" + managementClient.getMgmtPort();
+        this.indexDir = Path.of(System.getProperty("java.io.tmpdir"), INDEX_DIR);
+    }
+
+    /**
+     * Deploys the archive uploading only the entries which changed since the archive was last deployed.
+     *
+     * @param archive the archive to deploy
+     *
+     * @return the runtime name of the deployment
+     *
+     * @throws DeploymentException if the deployment fails
+     */
+    String deploy(final Archive<?> archive) throws DeploymentException {
+        final String name = archive.getName();
+        try {
+            final Path indexFile = indexDir.resolve(hex(digest(serverKey + "/" + name)) + ".properties");
+            final Map<String, String> hashes = new TreeMap<>();
+            collectHashes(archive, hashes);
+            final Properties index = readIndex(indexFile);
+            final ModelNode deployment = readDeployment(name);
+            final Properties newIndex;
+            if (deployment == null) {
+                newIndex = addExploded(archive, hashes);
+            } else if (index != null && isExplodedContent(deployment.get(ClientConstants.CONTENT))
+                    && contentHash(deployment.get(ClientConstants.CONTENT)).equals(index.getProperty(SERVER_HASH_KEY))) {
+                // A previous run may have ended without undeploying
+                if (deployment.get("enabled").asBoolean(false)) {
+                    undeploy(name);
+                }
+                newIndex = update(archive, hashes, index);
+            } else {
+                LOGGER.debugf("The content of deployment %s does not match the last deployed content, replacing it.",
+                        name);
+                executeForResult(Operation.Factory.create(Operations.createRemoveOperation(deploymentAddress(name))));
+                newIndex = addExploded(archive, hashes);
+            }
+            writeIndex(indexFile, newIndex);
+            executeForResult(Operation.Factory.create(Operations.createOperation("deploy", deploymentAddress(name))));
+            return name;
+        } catch (IOException e) {
+            throw new DeploymentException("Cannot deploy: " + name, e);
+        }
+    }
+
+    /**
+     * Undeploys the deployment. If the content is kept, the deployment is only disabled so its content can be updated
+     * by the next deployment. Otherwise the deployment is removed.
+     *
+     * @param runtimeName   the name of the deployment
+     * @param failOnMissing {@code true} if the undeploy should fail if the deployment does not exist
+     * @param keepContent   {@code true} to only disable the deployment, {@code false} to remove it
+     *
+     * @throws IOException         if an error occurs communicating with the server
+     * @throws DeploymentException if the deployment could not be undeployed or does not exist and
+     *                                 {@code failOnMissing} is {@code true}
+     */
+    void undeploy(final String runtimeName, final boolean failOnMissing, final boolean keepContent)
+            throws IOException, DeploymentException {
+        final ModelNode deployment = readDeployment(runtimeName);
+        if (deployment == null) {
+            if (failOnMissing) {
+                throw new DeploymentException(String.format("Deployment %s was not found", runtimeName));
+            }
+            return;
+        }
+        if (keepContent) {
+            if (deployment.get("enabled").asBoolean(false)) {
+                undeploy(runtimeName);
+            }
+        } else {
+            remove(runtimeName, deployment);
+        }
+    }
+
+    /**
+     * Removes a disabled deployment left on the server so a deployment with the same name can be added. Enabled
+     * deployments are not changed.
+     *
+     * @param runtimeName the name of the deployment
+     *
+     * @throws IOException         if an error occurs communicating with the server
+     * @throws DeploymentException if the deployment could not be removed
+     */
+    void removeDisabled(final String runtimeName) throws IOException, DeploymentException {
+        final ModelNode deployment = readDeployment(runtimeName);
+        if (deployment != null && !deployment.get("enabled").asBoolean(false)) {
+            remove(runtimeName, deployment);
+        }
+    }
+
+    private void undeploy(final String runtimeName) throws IOException, DeploymentException {
+        executeForResult(Operation.Factory.create(Operations.createOperation("undeploy", deploymentAddress(runtimeName))));
+    }
+
+    private void remove(final String runtimeName, final ModelNode deployment) throws IOException, DeploymentException {
+        final CompositeOperationBuilder builder = CompositeOperationBuilder.create();
+        if (deployment.get("enabled").asBoolean(false)) {
+            builder.addStep(Operations.createOperation("undeploy", deploymentAddress(runtimeName)));
+        }
+        builder.addStep(Operations.createRemoveOperation(deploymentAddress(runtimeName)));
+        executeForResult(builder.build());
+    }
+
+    private Properties addExploded(final Archive<?> archive, final Map<String, String> hashes)
+            throws IOException, DeploymentException {
+        final String name = archive.getName();
+        final ModelNode address = deploymentAddress(name);
+        final ModelNode addOp = Operations.createAddOperation(address);
+        addOp.get(ClientConstants.CONTENT).add().get("input-stream-index").set(0);
+        addOp.get(ClientConstants.RUNTIME_NAME).set(name);
+        addOp.get("enabled").set(false);
+        executeForResult(OperationBuilder.create(addOp, true)
+                .addInputStream(archive.as(ZipExporter.class).exportAsInputStream())
+                .build());
+        executeForResult(Operation.Factory.create(Operations.createOperation("explode", address)));
+        return createIndex(name, hashes);
+    }
+
+    private Properties update(final Archive<?> archive, final Map<String, String> hashes, final Properties index)
+            throws IOException, DeploymentException {
+        final String name = archive.getName();
+        final ModelNode address = deploymentAddress(name);
+        final Diff diff = diff(hashes, index);
+        final List<String> removed = diff.removed;
+        final CompositeOperationBuilder builder = CompositeOperationBuilder.create(true);
+        if (!removed.isEmpty()) {
+            final ModelNode op = Operations.createOperation("remove-content", address);
+            final ModelNode paths = op.get("paths").setEmptyList();
+            removed.forEach(path -> paths.add(toTargetPath(path)));
+            builder.addStep(op);
+        }
+        final ModelNode addContentOp = Operations.createOperation("add-content", address);
+        addContentOp.get("overwrite").set(true);
+        final ModelNode content = addContentOp.get(ClientConstants.CONTENT).setEmptyList();
+        int changed = 0;
+        for (String path : diff.changed) {
+            final ModelNode item = content.add();
+            item.get("input-stream-index").set(changed++);
+            item.get("target-path").set(toTargetPath(path));
+            builder.addInputStream(openStream(archive.get(path).getAsset()));
+        }
+        if (changed > 0) {
+            builder.addStep(addContentOp);
+        }
+        LOGGER.debugf("Updating deployment %s, %d entries changed and %d entries removed", name, changed,
+                removed.size());
+        if (changed > 0 || !removed.isEmpty()) {
+            executeForResult(builder.build());
+        }
+        return createIndex(name, hashes);
+    }
+
+    /**
+     * Compares the hashes of the entries of an archive with the index of the last deployed archive.
+     *
+     * @param hashes the hashes of the entries of the archive
+     * @param index  the index of the last deployed archive
+     *
+     * @return the entries which have been added or changed and the entries which have been removed
+     */
+    static Diff diff(final Map<String, String> hashes, final Properties index) {
+        final List<String> changed = new ArrayList<>();
+        for (Map.Entry<String, String> entry : hashes.entrySet()) {
+            if (!entry.getValue().equals(index.getProperty(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        final List<String> removed = new ArrayList<>();
+        for (String path : new TreeSet<>(index.stringPropertyNames())) {
+            if (!path.equals(SERVER_HASH_KEY) && !hashes.containsKey(path)) {
+                removed.add(path);
+            }
+        }
+        return new Diff(changed, removed);
+    }
+
+    private Properties createIndex(final String name, final Map<String, String> hashes)
+            throws IOException, DeploymentException {
+        final Properties index = new Properties();
+        index.putAll(hashes);
+        final ModelNode deployment = readDeployment(name);
+        if (deployment != null) {
+            index.setProperty(SERVER_HASH_KEY, contentHash(deployment.get(ClientConstants.CONTENT)));
+        }
+        return index;
+    }
+
+    private ModelNode readDeployment(final String name) throws IOException {
+        final ModelNode result = client.execute(Operations.createReadResourceOperation(deploymentAddress(name)));
+        if (Operations.isSuccessfulOutcome(result)) {
+            return Operations.readResult(result);
+        }
+        return null;
+    }
+
+    private ModelNode executeForResult(final Operation op) throws IOException, DeploymentException {
+        final ModelNode result = client.execute(op);
+        if (!Operations.isSuccessfulOutcome(result)) {
+            throw new DeploymentException(Operations.getFailureDescription(result).asString());
+        }
+        return Operations.readResult(result);
+    }
+
+    private static boolean isExplodedContent(final ModelNode content) {
+        if (!content.isDefined() || content.asList().size() != 1) {
+            return false;
+        }
+        final ModelNode item = content.get(0);
+        return item.hasDefined("hash") && item.hasDefined("archive") && !item.get("archive").asBoolean();
+    }
+
+    private static String contentHash(final ModelNode content) {
+        if (!content.isDefined() || content.asList().isEmpty() || !content.get(0).hasDefined("hash")) {
+            return "";
+        }
+        return hex(content.get(0).get("hash").asBytes());
+    }
+
+    private static ModelNode deploymentAddress(final String name) {
+        return Operations.createAddress(ClientConstants.DEPLOYMENT, name);
+    }
+
+    private static String toTargetPath(final String archivePath) {
+        return archivePath.startsWith("/") ? archivePath.substring(1) : archivePath;
+    }
+
+    /**
+     * Collects the hashes of the files of the archive. Nested archives are hashed by their content as the exported
+     * bytes differ between exports.
+     */
+    static void collectHashes(final Archive<?> archive, final Map<String, String> hashes) throws IOException {
+        for (Map.Entry<ArchivePath, Node> entry : archive.getContent().entrySet()) {
+            final Asset asset = entry.getValue().getAsset();
+            if (asset == null) {
+                continue;
+            }
+            if (asset instanceof ArchiveAsset) {
+                final Map<String, String> nested = new TreeMap<>();
+                collectHashes(((ArchiveAsset) asset).getArchive(), nested);
+                final StringBuilder builder = new StringBuilder();
+                nested.forEach((path, hash) -> builder.append(path).append('=').append(hash).append('\n'));
+                hashes.put(entry.getKey().get(), hex(digest(builder.toString())));
+            } else {
+                final MessageDigest digest = sha1();
+                try (InputStream in = asset.openStream()) {
+                    final byte[] buffer = new byte[8192];
+                    int len;
+                    while ((len = in.read(buffer)) != -1) {
+                        digest.update(buffer, 0, len);
+                    }
+                }
+                hashes.put(entry.getKey().get(), hex(digest.digest()));
+            }
+        }
+    }
+
+    private static InputStream openStream(final Asset asset) {
+        if (asset instanceof ArchiveAsset) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ((ArchiveAsset) asset).getArchive().as(ZipExporter.class).exportTo(out);
+            return new ByteArrayInputStream(out.toByteArray());
+        }
+        return asset.openStream();
+    }
+
+    private static Properties readIndex(final Path file) {
+        if (Files.notExists(file)) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            final Properties index = new Properties();
+            index.load(reader);
+            return index;
+        } catch (IOException e) {
+            LOGGER.debugf(e, "Failed to read the deployment index %s", file);
+            return null;
+        }
+    }
+
+    private static void writeIndex(final Path file, final Properties index) throws IOException {
+        Files.createDirectories(file.getParent());
+        final Path tmp = Files.createTempFile(file.getParent(), "index", ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            index.store(writer, null);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] digest(final String value) {
+        return sha1().digest(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MessageDigest sha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(final byte[] bytes) {
+        final StringBuilder result = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            result.append(String.format("%02x", b));
+        }
+        return result.toString();
+    }
+
+    /**
+     * The entries which differ between an archive and the last deployed archive.
+     */
+    static final class Diff {
+        final List<String> changed;
+        final List<String> removed;
+
+        private Diff(final List<String> changed, final List<String> removed) {
+            this.changed = changed;
+            this.removed = removed;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.management.MBeanServerConnection;
+import javax.management.remote.JMXConnectionNotification;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Manages a single JMX connection which is shared by all users of a container.
+ * <p>
+ * The {@linkplain #getConnection() connection} returned is a proxy which can safely be used by multiple threads and
+ * outlives the underlying connector. If an invocation fails with an {@link IOException}, the connector is discarded and
+ * a new connector is created. Read-only invocations are retried once on the new connection. Invocations which may
+ * change state on the server are not retried and the failure is thrown.
+ * </p>
+ * <p>
+ * Failed connection attempts are delayed with an exponential backoff, which is waited for without holding the lock of
+ * the manager. A connection which has not been used for the {@linkplain #HEALTH_CHECK_INTERVAL health check interval}
+ * is checked in the background so a broken connection is replaced before it is used again.
+ * </p>
+ */
+final class JmxConnectionManager implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(JmxConnectionManager.class);
+
+    private static final long HEALTH_CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(30L);
+    private static final long INITIAL_BACKOFF = 100L;
+    private static final long MAX_BACKOFF = TimeUnit.SECONDS.toMillis(5L);
+
+    private static final Set<String> NON_IDEMPOTENT_METHODS = Set.of("createMBean", "unregisterMBean", "setAttribute",
+            "setAttributes", "invoke");
+
+    private static final ScheduledExecutorService HEALTH_CHECK_EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "arquillian-jmx-health-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final JMXServiceURL serviceURL;
+    private final Supplier<Map<String, ?>> environment;
+    private final MBeanServerConnection proxy;
+    private JMXConnector connector;
+    private volatile MBeanServerConnection connection;
+    private volatile long lastUsed;
+    private int failedAttempts;
+    private long nextAttempt;
+    private Exception lastFailure;
+    private ScheduledFuture<?> healthCheck;
+    private boolean closed;
+
+    /**
+     * Creates a new connection manager. No connection is made until a connection is requested.
+     *
+     * @param serviceURL  the URL to connect to
+     * @param environment a supplier for the environment used for each connection attempt
+     */
+    JmxConnectionManager(final JMXServiceURL serviceURL, final Supplier<Map<String, ?>> environment) {
+        this.serviceURL = serviceURL;
+        this.environment = environment;
+        proxy = (MBeanServerConnection) Proxy.newProxyInstance(MBeanServerConnection.class.getClassLoader(),
+                new Class<?>[] { MBeanServerConnection.class }, this::invoke);
+    }
+
+    /**
+     * Returns the shared connection, connecting if there is no current connection.
+     *
+     * @return the shared connection
+     *
+     * @throws IOException if a connection could not be made
+     */
+    MBeanServerConnection getConnection() throws IOException {
+        current(0L);
+        return proxy;
+    }
+
+    /**
+     * Returns the shared connection, attempting to connect until the timeout has been reached.
+     *
+     * @param timeout the time in milliseconds to wait for a connection
+     *
+     * @return the shared connection
+     *
+     * @throws IOException if a connection could not be made before the timeout was reached
+     */
+    MBeanServerConnection getConnection(final long timeout) throws IOException {
+        current(System.currentTimeMillis() + timeout);
+        return proxy;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (healthCheck != null) {
+            healthCheck.cancel(false);
+            healthCheck = null;
+        }
+        final JMXConnector connector = this.connector;
+        this.connector = null;
+        connection = null;
+        if (connector != null) {
+            connector.close();
+        }
+    }
+
+    /**
+     * Returns the current connection, connecting if there is no current connection. The backoff is waited for without
+     * holding the lock, so other threads are not blocked while waiting.
+     *
+     * @param deadline the time in milliseconds until which failed attempts are retried or {@code 0} to make a single
+     *                     attempt
+     *
+     * @return the current connection
+     *
+     * @throws IOException if a connection could not be made
+     */
+    private MBeanServerConnection current(final long deadline) throws IOException {
+        while (true) {
+            final long delay;
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("The JMX connection to " + serviceURL + " has been closed.");
+                }
+                if (connection != null) {
+                    return connection;
+                }
+                delay = nextAttempt - System.currentTimeMillis();
+                if (delay <= 0L) {
+                    try {
+                        return connect();
+                    } catch (IOException | RuntimeException e) {
+                        if (deadline <= 0L || nextAttempt >= deadline) {
+                            throw e;
+                        }
+                        continue;
+                    }
+                }
+                // Do not wait for an attempt which would be made after the deadline
+                if (deadline > 0L && nextAttempt >= deadline) {
+                    throw new IOException("Could not connect to " + serviceURL + " before the timeout was reached.",
+                            lastFailure);
+                }
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting to connect to " + serviceURL, e);
+            }
+        }
+    }
+
+    private synchronized MBeanServerConnection connect() throws IOException {
+        try {
+            LOGGER.debugf("Connecting JMXConnector to: %s", serviceURL);
+            final JMXConnector connector = JMXConnectorFactory.connect(serviceURL, environment.get());
+            final MBeanServerConnection connection = connector.getMBeanServerConnection();
+            connector.addConnectionNotificationListener((notification, handback) -> {
+                if (JMXConnectionNotification.FAILED.equals(notification.getType())
+                        || JMXConnectionNotification.CLOSED.equals(notification.getType())) {
+                    invalidate((MBeanServerConnection) handback);
+                }
+            }, null, connection);
+            this.connector = connector;
+            this.connection = connection;
+            failedAttempts = 0;
+            nextAttempt = 0L;
+            lastFailure = null;
+            lastUsed = System.currentTimeMillis();
+            if (healthCheck == null) {
+                healthCheck = HEALTH_CHECK_EXECUTOR.scheduleWithFixedDelay(this::checkHealth, HEALTH_CHECK_INTERVAL,
+                        HEALTH_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+            return connection;
+        } catch (IOException | RuntimeException e) {
+            nextAttempt = System.currentTimeMillis()
+                    + Math.min(MAX_BACKOFF, INITIAL_BACKOFF << Math.min(failedAttempts++, 16));
+            lastFailure = e;
+            throw e;
+        }
+    }
+
+    /**
+     * Discards the connection if it is still the current connection.
+     *
+     * @param failed the connection which failed
+     */
+    private synchronized void invalidate(final MBeanServerConnection failed) {
+        if (failed == null || connection != failed) {
+            return;
+        }
+        final JMXConnector connector = this.connector;
+        this.connector = null;
+        connection = null;
+        if (connector != null) {
+            try {
+                connector.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    private void checkHealth() {
+        final MBeanServerConnection connection = this.connection;
+        if (connection == null || System.currentTimeMillis() - lastUsed < HEALTH_CHECK_INTERVAL) {
+            return;
+        }
+        try {
+            connection.getDefaultDomain();
+            lastUsed = System.currentTimeMillis();
+        } catch (IOException e) {
+            LOGGER.debug("JMX connection error.", e);
+            invalidate(connection);
+        }
+    }
+
+    private Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return "MBeanServerConnection[" + serviceURL + "]";
+            }
+        }
+        final MBeanServerConnection connection = current(0L);
+        try {
+            return invokeOn(connection, method, args);
+        } catch (IOException e) {
+            LOGGER.debug("JMX connection error.", e);
+            invalidate(connection);
+            if (NON_IDEMPOTENT_METHODS.contains(method.getName())) {
+                throw e;
+            }
+            return invokeOn(current(0L), method, args);
+        }
+    }
+
+    private Object invokeOn(final MBeanServerConnection connection, final Method method, final Object[] args)
+            throws Throwable {
+        try {
+            final Object result = method.invoke(connection, args);
+            lastUsed = System.currentTimeMillis();
+            return result;
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
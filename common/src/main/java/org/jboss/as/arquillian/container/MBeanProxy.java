@@ -4,6 +4,16 @@
  */
 package org.jboss.as.arquillian.container;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
 import javax.management.MBeanServerConnection;
 import javax.management.MBeanServerInvocationHandler;
 import javax.management.MalformedObjectNameException;
@@ -18,16 +28,149 @@ import javax.management.ObjectName;
 public class MBeanProxy {
 
     public static <T> T get(MBeanServerConnection server, String name, Class<T> interf) {
-        ObjectName oname;
+        return (T) MBeanProxy.get(server, toObjectName(name), interf);
+    }
+
+    public static <T> T get(MBeanServerConnection server, ObjectName name, Class<T> interf) {
+        return (T) MBeanServerInvocationHandler.newProxyInstance(server, name, interf, false);
+    }
+
+    /**
+     * Creates a proxy which reads all the attributes of the interface with a single {@code getAttributes} invocation.
+     * The values are then returned by the getters of the proxy until the proxy is {@linkplain Snapshot#refresh()
+     * refreshed}. The proxy implements {@link Snapshot}.
+     *
+     * @param server the connection to the server
+     * @param name   the name of the MBean
+     * @param interf the interface of the MBean
+     * @param <T>    the type of the interface
+     *
+     * @return the proxy
+     *
+     * @see #snapshot(MBeanServerConnection, ObjectName, Class)
+     */
+    public static <T> T snapshot(MBeanServerConnection server, String name, Class<T> interf) {
+        return snapshot(server, toObjectName(name), interf);
+    }
+
+    /**
+     * Creates a proxy which reads all the attributes of the interface with a single {@code getAttributes} invocation.
+     * The values are then returned by the getters of the proxy until the proxy is {@linkplain Snapshot#refresh()
+     * refreshed}. The proxy implements {@link Snapshot}.
+     * <p>
+     * The attributes are read when the first getter is invoked. Setters update the value of the snapshot and
+     * operations are invoked on the MBean, but do not refresh the snapshot.
+     * </p>
+     *
+     * @param server the connection to the server
+     * @param name   the name of the MBean
+     * @param interf the interface of the MBean
+     * @param <T>    the type of the interface
+     *
+     * @return the proxy
+     */
+    public static <T> T snapshot(MBeanServerConnection server, ObjectName name, Class<T> interf) {
+        return interf.cast(Proxy.newProxyInstance(interf.getClassLoader(), new Class<?>[] { interf, Snapshot.class },
+                new SnapshotInvocationHandler(server, name, interf)));
+    }
+
+    private static ObjectName toObjectName(final String name) {
         try {
-            oname = ObjectName.getInstance(name);
+            return ObjectName.getInstance(name);
         } catch (MalformedObjectNameException ex) {
             throw new IllegalArgumentException("Invalid object name: " + name);
         }
-        return (T) MBeanProxy.get(server, oname, interf);
     }
 
-    public static <T> T get(MBeanServerConnection server, ObjectName name, Class<T> interf) {
-        return (T) MBeanServerInvocationHandler.newProxyInstance(server, name, interf, false);
+    /**
+     * Implemented by proxies created with {@link #snapshot(MBeanServerConnection, ObjectName, Class)}.
+     */
+    public interface Snapshot {
+
+        /**
+         * Reads the current values of all attributes with a single {@code getAttributes} invocation.
+         */
+        void refresh();
+    }
+
+    private static class SnapshotInvocationHandler implements InvocationHandler {
+        private final MBeanServerConnection server;
+        private final ObjectName name;
+        private final MBeanServerInvocationHandler delegate;
+        private final Map<Method, String> getters;
+        private final Map<String, Object> values;
+        private boolean loaded;
+
+        private SnapshotInvocationHandler(final MBeanServerConnection server, final ObjectName name,
+                final Class<?> interf) {
+            this.server = server;
+            this.name = name;
+            delegate = new MBeanServerInvocationHandler(server, name);
+            getters = new HashMap<>();
+            for (Method method : interf.getMethods()) {
+                final String attributeName = getAttributeName(method);
+                if (attributeName != null) {
+                    getters.put(method, attributeName);
+                }
+            }
+            values = new HashMap<>();
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Snapshot.class) {
+                load();
+                return null;
+            }
+            final String attributeName = getters.get(method);
+            if (attributeName != null) {
+                synchronized (this) {
+                    if (!loaded) {
+                        load();
+                    }
+                    if (values.containsKey(attributeName)) {
+                        return values.get(attributeName);
+                    }
+                }
+                // The attribute could not be read with the others, read it directly to report the failure
+                return server.getAttribute(name, attributeName);
+            }
+            final Object result = delegate.invoke(proxy, method, args);
+            if (isSetter(method)) {
+                synchronized (this) {
+                    values.put(method.getName().substring(3), args[0]);
+                }
+            }
+            return result;
+        }
+
+        private synchronized void load() throws Exception {
+            final List<String> attributeNames = new ArrayList<>(new LinkedHashSet<>(getters.values()));
+            values.clear();
+            for (Attribute attribute : server.getAttributes(name, attributeNames.toArray(new String[0])).asList()) {
+                values.put(attribute.getName(), attribute.getValue());
+            }
+            loaded = true;
+        }
+
+        private static String getAttributeName(final Method method) {
+            if (method.getParameterCount() != 0 || method.getReturnType() == void.class) {
+                return null;
+            }
+            final String methodName = method.getName();
+            if (methodName.startsWith("get") && methodName.length() > 3) {
+                return methodName.substring(3);
+            }
+            if (methodName.startsWith("is") && methodName.length() > 2
+                    && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+                return methodName.substring(2);
+            }
+            return null;
+        }
+
+        private static boolean isSetter(final Method method) {
+            return method.getName().startsWith("set") && method.getName().length() > 3 && method.getParameterCount() == 1
+                    && method.getReturnType() == void.class;
+        }
     }
 }
@@ -8,10 +8,9 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.Map;
 
 import javax.management.MBeanServerConnection;
-import javax.management.remote.JMXConnector;
-import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXServiceURL;
 
 import org.jboss.logging.Logger;
@@ -28,7 +27,7 @@ public final class MBeanServerConnectionProvider implements Closeable {
     private final InetAddress hostAddr;
     private final int port;
 
-    private JMXConnector jmxConnector;
+    private JmxConnectionManager connectionManager;
 
     public static MBeanServerConnectionProvider defaultProvider() throws UnknownHostException {
         return new MBeanServerConnectionProvider(InetAddress.getByName("127.0.0.1"), 9990);
@@ -40,44 +39,44 @@ public final class MBeanServerConnectionProvider implements Closeable {
     }
 
     public MBeanServerConnection getConnection() {
-        String host = hostAddr.getHostAddress();
-        String urlString = System.getProperty("jmx.service.url",
-                "service:jmx:remote+http://" + NetworkUtils.formatPossibleIpv6Address(host) + ":" + port);
         try {
-            if (jmxConnector == null) {
-                log.debug("Connecting JMXConnector to: " + urlString);
-                JMXServiceURL serviceURL = new JMXServiceURL(urlString);
-                jmxConnector = JMXConnectorFactory.connect(serviceURL, null);
-            }
-            return jmxConnector.getMBeanServerConnection();
+            return getConnectionManager().getConnection();
         } catch (IOException ex) {
-            throw new IllegalStateException("Cannot obtain MBeanServerConnection to: " + urlString, ex);
+            throw new IllegalStateException("Cannot obtain MBeanServerConnection to: " + getServiceUrl(), ex);
         }
     }
 
     public MBeanServerConnection getConnection(long timeout) {
-        while (timeout > 0) {
-            try {
-                return getConnection();
-            } catch (Exception ex) {
-                // ignore
-            }
-            try {
-                Thread.sleep(100);
-                timeout -= 100;
-            } catch (InterruptedException ex) {
-                // ignore
-            }
+        try {
+            return getConnectionManager().getConnection(timeout);
+        } catch (IOException ex) {
+            throw new IllegalStateException("MBeanServerConnection not available", ex);
         }
-        throw new IllegalStateException("MBeanServerConnection not available");
     }
 
     @Override
-    public void close() throws IOException {
-        if (jmxConnector != null)
+    public synchronized void close() throws IOException {
+        if (connectionManager != null)
             try {
-                jmxConnector.close();
+                connectionManager.close();
             } catch (Throwable ignore) {
+            } finally {
+                connectionManager = null;
             }
     }
+
+    private synchronized JmxConnectionManager getConnectionManager() throws IOException {
+        if (connectionManager == null) {
+            final String urlString = getServiceUrl();
+            log.debug("Using JMXConnector for: " + urlString);
+            connectionManager = new JmxConnectionManager(new JMXServiceURL(urlString), Map::of);
+        }
+        return connectionManager;
+    }
+
+    private String getServiceUrl() {
+        String host = hostAddr.getHostAddress();
+        return System.getProperty("jmx.service.url",
+                "service:jmx:remote+http://" + NetworkUtils.formatPossibleIpv6Address(host) + ":" + port);
+    }
 }
@@ -31,34 +31,25 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
-import javax.management.Attribute;
-import javax.management.AttributeList;
-import javax.management.AttributeNotFoundException;
-import javax.management.InstanceAlreadyExistsException;
-import javax.management.InstanceNotFoundException;
-import javax.management.IntrospectionException;
-import javax.management.InvalidAttributeValueException;
-import javax.management.ListenerNotFoundException;
-import javax.management.MBeanException;
-import javax.management.MBeanInfo;
-import javax.management.MBeanRegistrationException;
 import javax.management.MBeanServerConnection;
-import javax.management.NotCompliantMBeanException;
-import javax.management.NotificationFilter;
-import javax.management.NotificationListener;
-import javax.management.ObjectInstance;
-import javax.management.ObjectName;
-import javax.management.QueryExp;
-import javax.management.ReflectionException;
-import javax.management.remote.JMXConnector;
-import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXServiceURL;
 import javax.security.auth.callback.CallbackHandler;
 
@@ -67,12 +58,14 @@ import org.jboss.arquillian.container.spi.client.protocol.metadata.JMXContext;
 import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
 import org.jboss.arquillian.container.spi.client.protocol.metadata.Servlet;
 import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
 import org.jboss.as.controller.client.helpers.ClientConstants;
 import org.jboss.as.controller.client.helpers.Operations;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
 import org.jboss.dmr.Property;
 import org.jboss.logging.Logger;
+import org.jboss.threads.AsyncFuture;
 
 /**
  * A helper class to join management related operations, like extract sub system ip/port (web/jmx)
@@ -99,12 +92,21 @@ public class ManagementClient implements Closeable {
     private static final String POSTFIX_EAR = ".ear";
     private static final ModelNode UNDERTOW_SUBSYSTEM_ADDRESS = new ModelNode().add("subsystem", UNDERTOW);
     private static final String REST_APPLICATION_PATH = "ArquillianRESTRunnerEE9";
+    // The minimum and maximum delay, in milliseconds, between polls of the server state while waiting for a reload
+    private static final long MIN_RELOAD_POLL_DELAY = 20L;
+    private static final long MAX_RELOAD_POLL_DELAY = 500L;
+    // The timeout, in seconds, of invocations on the long running JMX connection
+    private static final String LONG_RUNNING_JMX_TIMEOUT = "600";
+
+    private static final ExecutorService ASYNC_EXECUTOR = Executors.newCachedThreadPool(new AsyncThreadFactory());
 
     private final String mgmtAddress;
     private final int mgmtPort;
     private final String mgmtProtocol;
     private final ModelControllerClient client;
     private final CommonContainerConfiguration config;
+    private final OperationBatch batch;
+    private final CachingModelControllerClient cachingClient;
 
     private boolean initialized = false;
     private URI webUri;
@@ -112,8 +114,8 @@ public class ManagementClient implements Closeable {
 
     private ModelNode undertowSubsystem = null;
 
-    private MBeanServerConnection connection;
-    private JMXConnector connector;
+    private JmxConnectionManager jmxConnectionManager;
+    private JmxConnectionManager longRunningJmxConnectionManager;
     private boolean undertowSubsystemPresent = false;
     private boolean jmxSubsystemPresent = false;
     private boolean closed = false;
@@ -125,6 +127,8 @@ public class ManagementClient implements Closeable {
         this.mgmtPort = managementPort;
         this.mgmtProtocol = protocol;
         this.config = null;
+        this.batch = new OperationBatch(client);
+        this.cachingClient = new CachingModelControllerClient(client);
     }
 
     public ManagementClient(ModelControllerClient client, final CommonContainerConfiguration config) {
@@ -133,6 +137,8 @@ public class ManagementClient implements Closeable {
         this.mgmtPort = config.getManagementPort();
         this.mgmtProtocol = config.getManagementProtocol();
         this.config = config;
+        this.batch = new OperationBatch(client);
+        this.cachingClient = new CachingModelControllerClient(client);
     }
 
     // -------------------------------------------------------------------------------------||
@@ -151,6 +157,185 @@ public class ManagementClient implements Closeable {
         return client;
     }
 
+    /**
+     * Returns a client which caches the results of read-only operations. The cached results are invalidated by write
+     * operations executed with the returned client, by deployments and after each
+     * {@linkplain org.jboss.as.arquillian.api.ServerSetupTask setup task}. Changes made with other clients, for example
+     * the {@linkplain #getControllerClient() controller client}, are not seen by the returned client.
+     *
+     * @return the caching client
+     *
+     * @throws IllegalStateException if this has been {@linkplain #close() closed}
+     */
+    public CachingModelControllerClient getCachingControllerClient() {
+        checkState();
+        return cachingClient;
+    }
+
+    /**
+     * Returns the batch which can be used to execute operations as a single composite operation. The batch is shared
+     * by all users of this client. When used from a {@linkplain org.jboss.as.arquillian.api.ServerSetupTask setup task}
+     * the batch is flushed after each task.
+     *
+     * @return the operation batch
+     *
+     * @throws IllegalStateException if this has been {@linkplain #close() closed}
+     */
+    public OperationBatch batch() {
+        checkState();
+        return batch;
+    }
+
+    /**
+     * Executes the operation asynchronously.
+     *
+     * @param op the operation to execute
+     *
+     * @return a future which is completed with the result of the operation or exceptionally if the operation could not
+     *             be executed, cancelling the future attempts to cancel the operation
+     *
+     * @throws IllegalStateException if this has been {@linkplain #close() closed}
+     */
+    public CompletableFuture<ModelNode> executeAsync(final ModelNode op) {
+        return executeAsync(Operation.Factory.create(op));
+    }
+
+    /**
+     * Executes the operation asynchronously.
+     *
+     * @param op the operation to execute
+     *
+     * @return a future which is completed with the result of the operation or exceptionally if the operation could not
+     *             be executed, cancelling the future attempts to cancel the operation
+     *
+     * @throws IllegalStateException if this has been {@linkplain #close() closed}
+     */
+    public CompletableFuture<ModelNode> executeAsync(final Operation op) {
+        checkState();
+        return executeAsync(client, op);
+    }
+
+    /**
+     * Executes the operation asynchronously with the client.
+     *
+     * @param client the client to execute the operation with
+     * @param op     the operation to execute
+     *
+     * @return a future which is completed with the result of the operation or exceptionally if the operation could not
+     *             be executed, cancelling the future attempts to cancel the operation
+     */
+    static CompletableFuture<ModelNode> executeAsync(final ModelControllerClient client, final Operation op) {
+        final CompletableFuture<ModelNode> result = new CompletableFuture<>();
+        final AsyncFuture<ModelNode> future = client.executeAsync(op, null);
+        future.addListener(new AsyncFuture.Listener<ModelNode, Void>() {
+            @Override
+            public void handleComplete(final AsyncFuture<? extends ModelNode> future, final Void attachment) {
+                try {
+                    result.complete(future.get());
+                } catch (ExecutionException e) {
+                    result.completeExceptionally(e.getCause());
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void handleFailed(final AsyncFuture<? extends ModelNode> future, final Throwable cause,
+                    final Void attachment) {
+                result.completeExceptionally(cause);
+            }
+
+            @Override
+            public void handleCancelled(final AsyncFuture<? extends ModelNode> future, final Void attachment) {
+                result.cancel(false);
+            }
+        }, null);
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                future.asyncCancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Reloads the server asynchronously and waits for the server to be in a running state. As the server responds to the
+     * reload before it is reloaded, this first waits for the server to leave the running state.
+     * <p>
+     * The server state is polled with asynchronous operations. The delay between the polls starts at
+     * {@value #MIN_RELOAD_POLL_DELAY} milliseconds and is doubled up to {@value #MAX_RELOAD_POLL_DELAY} milliseconds. No
+     * thread is blocked while waiting.
+     * </p>
+     *
+     * @param timeout the time to wait for the server to be reloaded and running again
+     * @param unit    the unit for the timeout
+     *
+     * @return a future which is completed once the server is running or exceptionally if the reload failed or the
+     *             server was not running before the timeout was reached
+     *
+     * @throws IllegalStateException if this has been {@linkplain #close() closed}
+     */
+    public CompletableFuture<Void> reloadAsync(final long timeout, final TimeUnit unit) {
+        final ModelNode op = Operations.createOperation("reload");
+        return executeAsync(op).thenCompose(result -> {
+            if (!Operations.isSuccessfulOutcome(result)) {
+                throw new CompletionException(new UnSuccessfulOperationException(
+                        Operations.getFailureDescription(result).asString()));
+            }
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            return pollReload(false, MIN_RELOAD_POLL_DELAY, deadline, timeout, unit);
+        });
+    }
+
+    /**
+     * Returns the executor used for asynchronous operations which block.
+     *
+     * @return the executor
+     */
+    static Executor asyncExecutor() {
+        return ASYNC_EXECUTOR;
+    }
+
+    /**
+     * Returns the JMX connection to the server. The connection is shared by all users of this client and reconnects if
+     * the connection to the server was lost. The connection must not be closed by the caller, it is closed when this
+     * client is {@linkplain #close() closed}.
+     *
+     * @return the JMX connection
+     *
+     * @throws IllegalStateException if this has been {@linkplain #close() closed}
+     * @throws RuntimeException      if a connection could not be made
+     */
+    public MBeanServerConnection getMBeanServerConnection() {
+        checkState();
+        return getConnection();
+    }
+
+    /**
+     * Returns a JMX connection to the server for invocations which may take a long time, for example unloading
+     * modules. Invocations on the connection time out after 10 minutes rather than after the default remoting timeout.
+     * The connection is shared by all users of this client and reconnects if the connection to the server was lost. The
+     * connection must not be closed by the caller, it is closed when this client is {@linkplain #close() closed}.
+     *
+     * @return the JMX connection
+     *
+     * @throws IllegalStateException if this has been {@linkplain #close() closed}
+     * @throws RuntimeException      if a connection could not be made
+     */
+    public MBeanServerConnection getLongRunningMBeanServerConnection() {
+        checkState();
+        return getLongRunningConnection();
+    }
+
+    /**
+     * Returns the configuration of the container this client was created for.
+     *
+     * @return the container configuration or {@code null} if this client was not created from a configuration
+     */
+    CommonContainerConfiguration getContainerConfiguration() {
+        return config;
+    }
+
     /**
      * Resets the client. {@linkplain #close() Closes} open resources and resets flags so that the client itself can be
      * reinitialized later if desired.
@@ -316,19 +501,15 @@ public class ManagementClient implements Closeable {
     @Override
     public void close() {
         if (!closed) {
+            batch.clear();
+            cachingClient.clear();
             try {
                 client.close();
                 closed = true;
             } catch (IOException e) {
                 throw new RuntimeException("Could not close connection", e);
             } finally {
-                if (connector != null) {
-                    try {
-                        connector.close();
-                    } catch (IOException e) {
-                        throw new RuntimeException("Could not close JMX connection", e);
-                    }
-                }
+                closeJmxConnection();
             }
         }
     }
@@ -404,19 +585,104 @@ public class ManagementClient implements Closeable {
 
     private Collection<Servlet> resolveContexts(final String deploymentName) throws IOException {
         final Collection<Servlet> contexts = new ArrayList<>();
-        if (isWebArchive(deploymentName)) {
-            contexts.addAll(resolveServletContexts(readDeploymentNode(deploymentName, null)));
-        } else if (isEnterpriseArchive(deploymentName)) {
-            contexts.addAll(resolveServletContexts(readDeploymentNode(deploymentName, findWebDeployments(deploymentName))));
+        if (isWebArchive(deploymentName) || isEnterpriseArchive(deploymentName)) {
+            final Collection<ModelNode> deployments = readProtocolMetaData(deploymentName);
+            if (deployments == null) {
+                // Fallback to reading the subsystems of each deployment
+                if (isWebArchive(deploymentName)) {
+                    contexts.addAll(resolveServletContexts(readDeploymentNode(deploymentName, null)));
+                } else {
+                    contexts.addAll(resolveServletContexts(
+                            readDeploymentNode(deploymentName, findWebDeployments(deploymentName))));
+                }
+            } else {
+                contexts.addAll(resolveServletContexts(deployments));
+            }
         }
         return contexts;
     }
 
+    /**
+     * Reads only the resources required to resolve the servlet contexts in a single composite operation. The Undertow
+     * resources are read without recursion, which includes the context root and the names of the servlets. Only the
+     * resource paths of the REST resources are read.
+     *
+     * @param deploymentName the name of the deployment
+     *
+     * @return the Undertow and REST model for the deployment and each subdeployment or {@code null} if the composite
+     *             operation failed
+     */
+    private Collection<ModelNode> readProtocolMetaData(final String deploymentName) throws IOException {
+        final boolean ear = isEnterpriseArchive(deploymentName);
+        final ModelNode baseAddress = ear
+                ? Operations.createAddress(DEPLOYMENT, deploymentName, SUBDEPLOYMENT, "*")
+                : Operations.createAddress(DEPLOYMENT, deploymentName);
+        final ModelNode undertowAddress = baseAddress.clone().add(SUBSYSTEM, UNDERTOW);
+        final ModelNode undertowOp = Operations.createReadResourceOperation(undertowAddress);
+        undertowOp.get(INCLUDE_RUNTIME).set(true);
+        final ModelNode restAddress = baseAddress.clone().add(SUBSYSTEM, "*").add("rest-resource", "*");
+        final ModelNode restOp = Operations.createReadAttributeOperation(restAddress, "rest-resource-paths");
+
+        final ModelNode result = client.execute(Operations.CompositeOperationBuilder.create()
+                .addStep(undertowOp)
+                .addStep(restOp)
+                .build());
+        if (!Operations.isSuccessfulOutcome(result)) {
+            logger.debugf("Failed to read the protocol meta-data for %s: %s", deploymentName,
+                    Operations.getFailureDescription(result));
+            return null;
+        }
+        final ModelNode steps = Operations.readResult(result);
+        // Group the results by the subdeployment, the name is empty for a web archive
+        final Map<String, ModelNode> deployments = new LinkedHashMap<>();
+        for (ModelNode undertow : toAddressedResults(undertowAddress, Operations.readResult(steps.get("step-1")))) {
+            deployments.computeIfAbsent(subdeploymentName(undertow), name -> new ModelNode())
+                    .get(UNDERTOW).set(Operations.readResult(undertow));
+        }
+        for (ModelNode paths : toAddressedResults(restAddress, Operations.readResult(steps.get("step-2")))) {
+            final List<Property> address = Operations.getOperationAddress(paths).asPropertyList();
+            final String restResource = address.get(address.size() - 1).getValue().asString();
+            deployments.computeIfAbsent(subdeploymentName(paths), name -> new ModelNode())
+                    .get(REST, "rest-resource", restResource, "rest-resource-paths").set(Operations.readResult(paths));
+        }
+        return deployments.values();
+    }
+
+    /**
+     * Converts the result of an operation to the format of a wildcard operation, a list of the address and result of
+     * each resource.
+     */
+    private static List<ModelNode> toAddressedResults(final ModelNode address, final ModelNode result) {
+        if (result.getType() == ModelType.LIST) {
+            return result.asList()
+                    .stream()
+                    .filter(Operations::isSuccessfulOutcome)
+                    .collect(Collectors.toList());
+        }
+        if (!result.isDefined()) {
+            return List.of();
+        }
+        final ModelNode addressed = new ModelNode();
+        addressed.get(OP_ADDR).set(address);
+        addressed.get(OUTCOME).set(SUCCESS);
+        addressed.get(RESULT).set(result);
+        return List.of(addressed);
+    }
+
+    private static String subdeploymentName(final ModelNode addressedResult) {
+        for (Property property : Operations.getOperationAddress(addressedResult).asPropertyList()) {
+            if (SUBDEPLOYMENT.equals(property.getName())) {
+                return property.getValue().asString();
+            }
+        }
+        return "";
+    }
+
     private Set<String> findWebDeployments(final String deploymentName) throws IOException {
         final ModelNode op = Operations.createOperation(ClientConstants.READ_CHILDREN_NAMES_OPERATION,
                 Operations.createAddress("deployment", deploymentName));
         op.get(ClientConstants.CHILD_TYPE).set("subdeployment");
-        final ModelNode result = client.execute(op);
+        final ModelNode result = cachingClient.execute(op);
         if (!Operations.isSuccessfulOutcome(result)) {
             throw new RuntimeException(String.format("Could not find sudeployments for %s: %s", deploymentName,
                     Operations.getFailureDescription(result).asString()));
@@ -558,6 +824,43 @@ public class ManagementClient implements Closeable {
         return result.get(RESULT);
     }
 
+    /**
+     * Polls the server state until the server has left the running state and is running again, or the deadline has
+     * passed.
+     *
+     * @param reloading {@code true} if the server was seen in a state other than running
+     * @param delay     the delay, in milliseconds, before the next poll
+     */
+    private CompletableFuture<Void> pollReload(final boolean reloading, final long delay, final long deadline,
+            final long timeout, final TimeUnit unit) {
+        return isServerInRunningStateAsync().thenCompose(running -> {
+            if (reloading && running) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new CompletionException(new TimeoutException(reloading
+                        ? String.format("The server was not running within %d %s after the reload.", timeout, unit)
+                        : String.format("The server was not reloaded within %d %s.", timeout, unit)));
+            }
+            final Executor delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, ASYNC_EXECUTOR);
+            return CompletableFuture.runAsync(() -> {
+            }, delayed).thenCompose(ignore -> pollReload(reloading || !running,
+                    Math.min(delay * 2L, MAX_RELOAD_POLL_DELAY), deadline, timeout, unit));
+        });
+    }
+
+    /**
+     * Checks the server state asynchronously. A server which cannot be reached is not running.
+     */
+    private CompletableFuture<Boolean> isServerInRunningStateAsync() {
+        checkState();
+        final ModelNode op = Operations.createReadAttributeOperation(new ModelNode().setEmptyList(), "server-state");
+        return executeAsync(client, Operation.Factory.create(op)).handle((rsp, e) -> e == null
+                && SUCCESS.equals(rsp.get(OUTCOME).asString())
+                && !CONTROLLER_PROCESS_STATE_STARTING.equals(rsp.get(RESULT).asString())
+                && !CONTROLLER_PROCESS_STATE_STOPPING.equals(rsp.get(RESULT).asString()));
+    }
+
     private void checkSuccessful(final ModelNode result,
             final ModelNode operation) throws UnSuccessfulOperationException {
         if (!SUCCESS.equals(result.get(OUTCOME).asString())) {
@@ -567,26 +870,46 @@ public class ManagementClient implements Closeable {
         }
     }
 
-    private MBeanServerConnection getConnection() {
-        MBeanServerConnection connection = this.connection;
-        if (connection == null) {
-            try {
-                final Map<String, Object> env = new HashMap<>();
-                if (Authentication.username != null && !Authentication.username.isEmpty()) {
-                    // Only set this is there is a username as it disabled local authentication.
-                    env.put(CallbackHandler.class.getName(), Authentication.getCallbackHandler());
-                }
-                if (config.getAuthenticationConfig() != null) {
-                    env.put("wildfly.config.url", config.getAuthenticationConfig());
-                }
-                final JMXServiceURL serviceURL = getRemoteJMXURL();
-                final JMXConnector connector = this.connector = JMXConnectorFactory.connect(serviceURL, env);
-                connection = this.connection = new MBeanConnectionProxy(connector.getMBeanServerConnection());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+    private synchronized MBeanServerConnection getConnection() {
+        JmxConnectionManager jmxConnectionManager = this.jmxConnectionManager;
+        if (jmxConnectionManager == null) {
+            jmxConnectionManager = this.jmxConnectionManager = new JmxConnectionManager(getRemoteJMXURL(),
+                    this::createJmxEnvironment);
+        }
+        try {
+            return jmxConnectionManager.getConnection();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
-        return connection;
+    }
+
+    private synchronized MBeanServerConnection getLongRunningConnection() {
+        JmxConnectionManager jmxConnectionManager = this.longRunningJmxConnectionManager;
+        if (jmxConnectionManager == null) {
+            jmxConnectionManager = this.longRunningJmxConnectionManager = new JmxConnectionManager(getRemoteJMXURL(),
+                    () -> {
+                        final Map<String, Object> env = createJmxEnvironment();
+                        env.put("org.jboss.remoting-jmx.timeout", LONG_RUNNING_JMX_TIMEOUT);
+                        return env;
+                    });
+        }
+        try {
+            return jmxConnectionManager.getConnection();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Map<String, Object> createJmxEnvironment() {
+        final Map<String, Object> env = new HashMap<>();
+        if (Authentication.username != null && !Authentication.username.isEmpty()) {
+            // Only set this is there is a username as it disabled local authentication.
+            env.put(CallbackHandler.class.getName(), Authentication.getCallbackHandler());
+        }
+        if (config != null && config.getAuthenticationConfig() != null) {
+            env.put("wildfly.config.url", config.getAuthenticationConfig());
+        }
+        return env;
     }
 
     public JMXServiceURL getRemoteJMXURL() {
@@ -630,312 +953,53 @@ public class ManagementClient implements Closeable {
         return ejbUri;
     }
 
-    private void checkState() {
-        if (closed) {
-            throw new IllegalStateException("The client connection has been closed.");
-        }
-    }
-
-    // -------------------------------------------------------------------------------------||
-    // Helper classes ---------------------------------------------------------------------||
-    // -------------------------------------------------------------------------------------||
-    private static class UnSuccessfulOperationException extends Exception {
-        private static final long serialVersionUID = 1L;
-
-        UnSuccessfulOperationException(String message) {
-            super(message);
+    private synchronized void closeJmxConnection() {
+        final JmxConnectionManager jmxConnectionManager = this.jmxConnectionManager;
+        final JmxConnectionManager longRunningJmxConnectionManager = this.longRunningJmxConnectionManager;
+        this.jmxConnectionManager = null;
+        this.longRunningJmxConnectionManager = null;
+        try {
+            close(jmxConnectionManager);
+        } finally {
+            close(longRunningJmxConnectionManager);
         }
     }
 
-    private class MBeanConnectionProxy implements MBeanServerConnection {
-        private MBeanServerConnection connection;
-
-        /**
-         * @param connection connection to delegate to
-         */
-        private MBeanConnectionProxy(MBeanServerConnection connection) {
-            super();
-            this.connection = connection;
-        }
-
-        @Override
-        public ObjectInstance createMBean(String className, ObjectName name) throws ReflectionException,
-                InstanceAlreadyExistsException, MBeanException, NotCompliantMBeanException,
-                IOException {
-            checkConnection();
-            return connection.createMBean(className, name);
-        }
-
-        @Override
-        public ObjectInstance createMBean(String className, ObjectName name, ObjectName loaderName) throws ReflectionException,
-                InstanceAlreadyExistsException, MBeanException, NotCompliantMBeanException,
-                InstanceNotFoundException, IOException {
-            checkConnection();
-            return connection.createMBean(className, name, loaderName);
-        }
-
-        @Override
-        public ObjectInstance createMBean(String className, ObjectName name, Object[] params, String[] signature)
-                throws ReflectionException, InstanceAlreadyExistsException, MBeanException,
-                NotCompliantMBeanException, IOException {
-            checkConnection();
-            return connection.createMBean(className, name, params, signature);
-        }
-
-        @Override
-        public ObjectInstance createMBean(String className, ObjectName name, ObjectName loaderName, Object[] params,
-                String[] signature) throws ReflectionException, InstanceAlreadyExistsException,
-                MBeanException, NotCompliantMBeanException, InstanceNotFoundException, IOException {
-            checkConnection();
-            return connection.createMBean(className, name, loaderName, params, signature);
-        }
-
-        @Override
-        public void unregisterMBean(ObjectName name) throws InstanceNotFoundException, MBeanRegistrationException, IOException {
-            checkConnection();
-            connection.unregisterMBean(name);
-        }
-
-        @Override
-        public ObjectInstance getObjectInstance(ObjectName name) throws InstanceNotFoundException, IOException {
-            try {
-                return connection.getObjectInstance(name);
-            } catch (IOException e) {
-                checkConnection();
-                return connection.getObjectInstance(name);
-            }
-        }
-
-        @Override
-        public Set<ObjectInstance> queryMBeans(ObjectName name, QueryExp query) throws IOException {
-            try {
-                return connection.queryMBeans(name, query);
-            } catch (IOException e) {
-                checkConnection();
-                return connection.queryMBeans(name, query);
-            }
-        }
-
-        @Override
-        public Set<ObjectName> queryNames(ObjectName name, QueryExp query) throws IOException {
-            try {
-                return connection.queryNames(name, query);
-            } catch (IOException e) {
-                checkConnection();
-                return connection.queryNames(name, query);
-            }
-        }
-
-        @Override
-        public boolean isRegistered(ObjectName name) throws IOException {
-            try {
-                return connection.isRegistered(name);
-            } catch (IOException e) {
-                checkConnection();
-                return connection.isRegistered(name);
-            }
-        }
-
-        @Override
-        public Integer getMBeanCount() throws IOException {
-            try {
-                return connection.getMBeanCount();
-            } catch (IOException e) {
-                checkConnection();
-                return connection.getMBeanCount();
-            }
-        }
-
-        @Override
-        public Object getAttribute(ObjectName name, String attribute) throws MBeanException, AttributeNotFoundException,
-                InstanceNotFoundException, ReflectionException, IOException {
-            try {
-                return connection.getAttribute(name, attribute);
-            } catch (IOException e) {
-                checkConnection();
-                return connection.getAttribute(name, attribute);
-            }
-        }
-
-        @Override
-        public AttributeList getAttributes(ObjectName name, String[] attributes) throws InstanceNotFoundException,
-                ReflectionException, IOException {
+    private static void close(final JmxConnectionManager jmxConnectionManager) {
+        if (jmxConnectionManager != null) {
             try {
-                return connection.getAttributes(name, attributes);
+                jmxConnectionManager.close();
             } catch (IOException e) {
-                checkConnection();
-                return connection.getAttributes(name, attributes);
-            }
-        }
-
-        @Override
-        public void setAttribute(ObjectName name, Attribute attribute) throws InstanceNotFoundException,
-                AttributeNotFoundException, InvalidAttributeValueException, MBeanException, ReflectionException, IOException {
-            checkConnection();
-            connection.setAttribute(name, attribute);
-        }
-
-        @Override
-        public AttributeList setAttributes(ObjectName name, AttributeList attributes) throws InstanceNotFoundException,
-                ReflectionException, IOException {
-            checkConnection();
-            return connection.setAttributes(name, attributes);
-        }
-
-        @Override
-        public Object invoke(ObjectName name, String operationName, Object[] params, String[] signature)
-                throws InstanceNotFoundException, MBeanException, ReflectionException, IOException {
-            checkConnection();
-            return connection.invoke(name, operationName, params, signature);
-        }
-
-        @Override
-        public String getDefaultDomain() throws IOException {
-            try {
-                return connection.getDefaultDomain();
-            } catch (IOException e) {
-                checkConnection();
-                return connection.getDefaultDomain();
-            }
-        }
-
-        @Override
-        public String[] getDomains() throws IOException {
-            try {
-                return connection.getDomains();
-            } catch (IOException e) {
-                checkConnection();
-                return connection.getDomains();
-            }
-        }
-
-        @Override
-        public void addNotificationListener(ObjectName name, NotificationListener listener, NotificationFilter filter,
-                Object handback) throws InstanceNotFoundException, IOException {
-            try {
-                connection.addNotificationListener(name, listener, filter, handback);
-            } catch (IOException e) {
-                if (!checkConnection()) {
-                    connection.addNotificationListener(name, listener, filter, handback);
-                } else {
-                    throw e;
-                }
-            }
-        }
-
-        @Override
-        public void addNotificationListener(ObjectName name, ObjectName listener, NotificationFilter filter, Object handback)
-                throws InstanceNotFoundException, IOException {
-            try {
-                connection.addNotificationListener(name, listener, filter, handback);
-            } catch (IOException e) {
-                if (!checkConnection()) {
-                    connection.addNotificationListener(name, listener, filter, handback);
-                } else {
-                    throw e;
-                }
-            }
-        }
-
-        @Override
-        public void removeNotificationListener(ObjectName name, ObjectName listener) throws InstanceNotFoundException,
-                ListenerNotFoundException, IOException {
-            try {
-                connection.removeNotificationListener(name, listener);
-            } catch (IOException e) {
-                if (!checkConnection()) {
-                    connection.removeNotificationListener(name, listener);
-                } else {
-                    throw e;
-                }
-            }
-        }
-
-        @Override
-        public void removeNotificationListener(ObjectName name, ObjectName listener, NotificationFilter filter, Object handback)
-                throws InstanceNotFoundException, ListenerNotFoundException, IOException {
-            try {
-                connection.removeNotificationListener(name, listener, filter, handback);
-            } catch (IOException e) {
-                if (!checkConnection()) {
-                    connection.removeNotificationListener(name, listener, filter, handback);
-                } else {
-                    throw e;
-                }
-            }
-        }
-
-        @Override
-        public void removeNotificationListener(ObjectName name, NotificationListener listener)
-                throws InstanceNotFoundException, ListenerNotFoundException, IOException {
-            try {
-                connection.removeNotificationListener(name, listener);
-            } catch (IOException e) {
-                if (!checkConnection()) {
-                    connection.removeNotificationListener(name, listener);
-                } else {
-                    throw e;
-                }
+                throw new RuntimeException("Could not close JMX connection", e);
             }
         }
+    }
 
-        @Override
-        public void removeNotificationListener(ObjectName name, NotificationListener listener, NotificationFilter filter,
-                Object handback) throws InstanceNotFoundException, ListenerNotFoundException, IOException {
-            try {
-                connection.removeNotificationListener(name, listener, filter, handback);
-            } catch (IOException e) {
-                if (!checkConnection()) {
-                    connection.removeNotificationListener(name, listener, filter, handback);
-                } else {
-                    throw e;
-                }
-            }
+    private void checkState() {
+        if (closed) {
+            throw new IllegalStateException("The client connection has been closed.");
         }
+    }
 
-        @Override
-        public MBeanInfo getMBeanInfo(ObjectName name) throws InstanceNotFoundException, IntrospectionException,
-                ReflectionException, IOException {
-            try {
-                return connection.getMBeanInfo(name);
-            } catch (IOException e) {
-                checkConnection();
-                return connection.getMBeanInfo(name);
-            }
-        }
+    // -------------------------------------------------------------------------------------||
+    // Helper classes ---------------------------------------------------------------------||
+    // -------------------------------------------------------------------------------------||
+    private static class AsyncThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
 
         @Override
-        public boolean isInstanceOf(ObjectName name, String className) throws InstanceNotFoundException, IOException {
-            try {
-                return connection.isInstanceOf(name, className);
-            } catch (IOException e) {
-                checkConnection();
-                return connection.isInstanceOf(name, className);
-            }
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "arquillian-management-client-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
         }
+    }
 
-        private boolean checkConnection() {
-            try {
-                this.connection.getDefaultDomain();
-                return true;
-            } catch (IOException ioe) {
-                logger.debug("JMX connection error.", ioe);
-            }
-            this.connection = reconnect();
-            return false;
-        }
+    private static class UnSuccessfulOperationException extends Exception {
+        private static final long serialVersionUID = 1L;
 
-        private MBeanServerConnection reconnect() {
-            try {
-                final Map<String, Object> env = new HashMap<>();
-                env.put(CallbackHandler.class.getName(), Authentication.getCallbackHandler());
-                final JMXConnector connector = ManagementClient.this.connector = JMXConnectorFactory.connect(getRemoteJMXURL(),
-                        env);
-                connection = connector.getMBeanServerConnection();
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-            return connection;
+        UnSuccessfulOperationException(String message) {
+            super(message);
         }
     }
 }
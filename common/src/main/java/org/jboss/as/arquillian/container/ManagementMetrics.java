@@ -0,0 +1,228 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.dmr.ModelNode;
+
+/**
+ * Metrics for the management operations executed against a container. The number of operations, the latency and the
+ * size of the requests and responses are recorded for each operation name and test class.
+ * <p>
+ * Operations executed before the first test class, for example while the container is starting, are recorded with an
+ * empty test class name. A composite operation is recorded as a single {@code composite} operation.
+ * </p>
+ *
+ * @see CommonContainerConfiguration#isManagementMetrics()
+ */
+public class ManagementMetrics {
+
+    /**
+     * The upper bounds, in milliseconds, of the latency histogram buckets. Operations which take longer than the last
+     * bound are counted in an additional bucket.
+     */
+    private static final long[] BUCKETS = { 1L, 5L, 10L, 50L, 100L, 500L, 1000L, 5000L };
+
+    private final Map<String, Map<String, OperationStatistics>> statistics;
+    private volatile String testClass;
+
+    ManagementMetrics() {
+        statistics = new ConcurrentHashMap<>();
+        testClass = "";
+    }
+
+    /**
+     * Returns the names of the test classes operations have been recorded for.
+     *
+     * @return the test class names
+     */
+    public Set<String> getTestClasses() {
+        return new TreeSet<>(statistics.keySet());
+    }
+
+    /**
+     * Returns the statistics for the operations executed for the current test class.
+     *
+     * @return the statistics for each operation name
+     */
+    public Collection<OperationStatistics> getStatistics() {
+        return getStatistics(testClass);
+    }
+
+    /**
+     * Returns the statistics for the operations executed for the test class.
+     *
+     * @param testClass the name of the test class
+     *
+     * @return the statistics for each operation name or an empty collection if no operations were recorded
+     */
+    public Collection<OperationStatistics> getStatistics(final String testClass) {
+        final Map<String, OperationStatistics> result = statistics.get(testClass);
+        if (result == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    /**
+     * Removes all recorded statistics.
+     */
+    public void reset() {
+        statistics.clear();
+    }
+
+    /**
+     * Returns the recorded statistics as a model node keyed by the test class and then by the operation name.
+     *
+     * @return the statistics
+     */
+    public ModelNode toModelNode() {
+        final ModelNode result = new ModelNode().setEmptyObject();
+        for (String testClass : getTestClasses()) {
+            final ModelNode operations = result.get(testClass).setEmptyObject();
+            for (OperationStatistics stats : getStatistics(testClass)) {
+                operations.get(stats.getOperationName()).set(stats.toModelNode());
+            }
+        }
+        return result;
+    }
+
+    void setTestClass(final String testClass) {
+        this.testClass = testClass == null ? "" : testClass;
+    }
+
+    void record(final String operationName, final long nanos, final long requestSize, final long responseSize) {
+        statistics.computeIfAbsent(testClass, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(operationName, OperationStatistics::new)
+                .record(nanos, requestSize, responseSize);
+    }
+
+    /**
+     * The statistics for an operation name.
+     */
+    public static final class OperationStatistics {
+        private final String operationName;
+        private final long[] histogram;
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private long requestBytes;
+        private long responseBytes;
+
+        private OperationStatistics(final String operationName) {
+            this.operationName = operationName;
+            histogram = new long[BUCKETS.length + 1];
+        }
+
+        /**
+         * The name of the operation.
+         *
+         * @return the operation name
+         */
+        public String getOperationName() {
+            return operationName;
+        }
+
+        /**
+         * The number of times the operation was executed.
+         *
+         * @return the number of executions
+         */
+        public synchronized long getCount() {
+            return count;
+        }
+
+        /**
+         * The total time spent executing the operation.
+         *
+         * @param unit the unit to return the time in
+         *
+         * @return the total time
+         */
+        public synchronized long getTotalTime(final TimeUnit unit) {
+            return unit.convert(totalNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * The longest time an execution of the operation took.
+         *
+         * @param unit the unit to return the time in
+         *
+         * @return the longest time
+         */
+        public synchronized long getMaxTime(final TimeUnit unit) {
+            return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * The total size, in bytes, of the requests in their binary DMR form.
+         *
+         * @return the size of the requests
+         */
+        public synchronized long getRequestBytes() {
+            return requestBytes;
+        }
+
+        /**
+         * The total size, in bytes, of the responses in their binary DMR form.
+         *
+         * @return the size of the responses
+         */
+        public synchronized long getResponseBytes() {
+            return responseBytes;
+        }
+
+        /**
+         * The latency histogram. The keys are the upper bounds of the buckets in milliseconds, the last bucket has an
+         * upper bound of {@link Long#MAX_VALUE}.
+         *
+         * @return the number of executions for each bucket
+         */
+        public synchronized Map<Long, Long> getHistogram() {
+            final Map<Long, Long> result = new LinkedHashMap<>();
+            for (int i = 0; i < histogram.length; i++) {
+                result.put(i < BUCKETS.length ? BUCKETS[i] : Long.MAX_VALUE, histogram[i]);
+            }
+            return result;
+        }
+
+        synchronized void record(final long nanos, final long requestSize, final long responseSize) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            requestBytes += requestSize;
+            responseBytes += responseSize;
+            final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < BUCKETS.length && millis > BUCKETS[bucket]) {
+                bucket++;
+            }
+            histogram[bucket]++;
+        }
+
+        synchronized ModelNode toModelNode() {
+            final ModelNode result = new ModelNode();
+            result.get("count").set(count);
+            result.get("total-time-ms").set(TimeUnit.NANOSECONDS.toMillis(totalNanos));
+            result.get("max-time-ms").set(TimeUnit.NANOSECONDS.toMillis(maxNanos));
+            result.get("request-bytes").set(requestBytes);
+            result.get("response-bytes").set(responseBytes);
+            final ModelNode buckets = result.get("histogram-ms").setEmptyObject();
+            for (int i = 0; i < histogram.length; i++) {
+                buckets.get(i < BUCKETS.length ? "le-" + BUCKETS[i] : "gt-" + BUCKETS[BUCKETS.length - 1])
+                        .set(histogram[i]);
+            }
+            return result;
+        }
+    }
+}
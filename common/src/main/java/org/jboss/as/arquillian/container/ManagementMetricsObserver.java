@@ -0,0 +1,91 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.jboss.arquillian.container.spi.Container;
+import org.jboss.arquillian.container.spi.ContainerRegistry;
+import org.jboss.arquillian.container.spi.client.container.DeployableContainer;
+import org.jboss.arquillian.core.api.Instance;
+import org.jboss.arquillian.core.api.annotation.Inject;
+import org.jboss.arquillian.core.api.annotation.Observes;
+import org.jboss.arquillian.test.spi.event.suite.AfterSuite;
+import org.jboss.arquillian.test.spi.event.suite.BeforeClass;
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+
+/**
+ * Assigns the recorded {@linkplain ManagementMetrics management metrics} to the current test class and writes the
+ * metrics of all containers as JSON once the test suite has completed.
+ * <p>
+ * The metrics are written to the {@linkplain CommonContainerConfiguration#getManagementMetricsFile() metrics file} of
+ * each container, if set, otherwise they are logged.
+ * </p>
+ */
+public class ManagementMetricsObserver {
+    private static final Logger LOGGER = Logger.getLogger(ManagementMetricsObserver.class);
+
+    @Inject
+    private Instance<ContainerRegistry> containerRegistry;
+
+    public void beforeClass(@Observes(precedence = 100) final BeforeClass event) {
+        final ContainerRegistry registry = containerRegistry.get();
+        if (registry == null) {
+            return;
+        }
+        for (Container container : registry.getContainers()) {
+            final ManagementMetrics metrics = getMetrics(container);
+            if (metrics != null) {
+                metrics.setTestClass(event.getTestClass().getName());
+            }
+        }
+    }
+
+    public void afterSuite(@Observes final AfterSuite event) {
+        final ContainerRegistry registry = containerRegistry.get();
+        if (registry == null) {
+            return;
+        }
+        for (Container container : registry.getContainers()) {
+            final ManagementMetrics metrics = getMetrics(container);
+            if (metrics == null) {
+                continue;
+            }
+            final ModelNode result = new ModelNode();
+            result.get("container").set(container.getName());
+            result.get("test-classes").set(metrics.toModelNode());
+            final String json = result.toJSONString(false);
+            final String file = ((CommonDeployableContainer<?>) container.getDeployableContainer())
+                    .getContainerConfiguration().getManagementMetricsFile();
+            if (file == null) {
+                LOGGER.infof("Management metrics for container %s: %s", container.getName(), json);
+            } else {
+                final Path path = Paths.get(file);
+                try {
+                    if (path.getParent() != null) {
+                        Files.createDirectories(path.getParent());
+                    }
+                    Files.writeString(path, json, StandardCharsets.UTF_8);
+                } catch (IOException e) {
+                    LOGGER.warnf(e, "Failed to write the management metrics for container %s to %s",
+                            container.getName(), path);
+                }
+            }
+        }
+    }
+
+    private static ManagementMetrics getMetrics(final Container container) {
+        final DeployableContainer<?> deployableContainer = container.getDeployableContainer();
+        if (deployableContainer instanceof CommonDeployableContainer) {
+            return ((CommonDeployableContainer<?>) deployableContainer).getManagementMetrics();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Function;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationMessageHandler;
+import org.jboss.as.controller.client.OperationResponse;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.dmr.ModelNode;
+import org.jboss.threads.AsyncFuture;
+
+/**
+ * A client which records the latency and size of each operation executed in the {@link ManagementMetrics}.
+ * <p>
+ * Closing this client closes the delegate client.
+ * </p>
+ */
+class MetricsModelControllerClient implements ModelControllerClient {
+
+    private final ModelControllerClient delegate;
+    private final ManagementMetrics metrics;
+
+    MetricsModelControllerClient(final ModelControllerClient delegate, final ManagementMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ModelNode execute(final ModelNode operation) throws IOException {
+        return execute(Operation.Factory.create(operation), null);
+    }
+
+    @Override
+    public ModelNode execute(final Operation operation) throws IOException {
+        return execute(operation, null);
+    }
+
+    @Override
+    public ModelNode execute(final ModelNode operation, final OperationMessageHandler messageHandler) throws IOException {
+        return execute(Operation.Factory.create(operation), messageHandler);
+    }
+
+    @Override
+    public ModelNode execute(final Operation operation, final OperationMessageHandler messageHandler) throws IOException {
+        final long start = System.nanoTime();
+        ModelNode result = null;
+        try {
+            result = delegate.execute(operation, messageHandler);
+            return result;
+        } finally {
+            record(operation.getOperation(), start, result);
+        }
+    }
+
+    @Override
+    public OperationResponse executeOperation(final Operation operation, final OperationMessageHandler messageHandler)
+            throws IOException {
+        final long start = System.nanoTime();
+        OperationResponse result = null;
+        try {
+            result = delegate.executeOperation(operation, messageHandler);
+            return result;
+        } finally {
+            record(operation.getOperation(), start, result == null ? null : result.getResponseNode());
+        }
+    }
+
+    @Override
+    public AsyncFuture<ModelNode> executeAsync(final ModelNode operation, final OperationMessageHandler messageHandler) {
+        return recordAsync(operation, delegate.executeAsync(operation, messageHandler), Function.identity());
+    }
+
+    @Override
+    public AsyncFuture<ModelNode> executeAsync(final Operation operation, final OperationMessageHandler messageHandler) {
+        return recordAsync(operation.getOperation(), delegate.executeAsync(operation, messageHandler),
+                Function.identity());
+    }
+
+    @Override
+    public AsyncFuture<OperationResponse> executeOperationAsync(final Operation operation,
+            final OperationMessageHandler messageHandler) {
+        return recordAsync(operation.getOperation(), delegate.executeOperationAsync(operation, messageHandler),
+                OperationResponse::getResponseNode);
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    private <T> AsyncFuture<T> recordAsync(final ModelNode op, final AsyncFuture<T> future,
+            final Function<T, ModelNode> response) {
+        final long start = System.nanoTime();
+        future.addListener(new AsyncFuture.Listener<T, Void>() {
+            @Override
+            public void handleComplete(final AsyncFuture<? extends T> future, final Void attachment) {
+                ModelNode result = null;
+                try {
+                    result = response.apply(future.get());
+                } catch (Exception ignore) {
+                }
+                record(op, start, result);
+            }
+
+            @Override
+            public void handleFailed(final AsyncFuture<? extends T> future, final Throwable cause, final Void attachment) {
+                record(op, start, null);
+            }
+
+            @Override
+            public void handleCancelled(final AsyncFuture<? extends T> future, final Void attachment) {
+                record(op, start, null);
+            }
+        }, null);
+        return future;
+    }
+
+    private void record(final ModelNode op, final long start, final ModelNode result) {
+        final long nanos = System.nanoTime() - start;
+        metrics.record(Operations.getOperationName(op), nanos, sizeOf(op), result == null ? 0L : sizeOf(result));
+    }
+
+    private static long sizeOf(final ModelNode node) {
+        final DataOutputStream out = new DataOutputStream(OutputStream.nullOutputStream());
+        try {
+            node.writeExternal(out);
+        } catch (IOException ignore) {
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.helpers.ClientConstants;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.as.controller.client.helpers.Operations.CompositeOperationBuilder;
+import org.jboss.dmr.ModelNode;
+
+/**
+ * Buffers management operations and executes them as a single composite operation when {@linkplain #flush() flushed}.
+ * <p>
+ * Each operation added returns a future which is completed with the response of the operation's step once the batch
+ * has been flushed. Note that the composite operation is executed with the default rollback behavior. If any step
+ * fails, all steps are rolled back and the futures are completed with the failed or rolled back responses.
+ * </p>
+ * <p>
+ * Batches used from a {@linkplain org.jboss.as.arquillian.api.ServerSetupTask setup task} are flushed after the
+ * {@linkplain org.jboss.as.arquillian.api.ServerSetupTask#setup(ManagementClient, String) setup} or
+ * {@linkplain org.jboss.as.arquillian.api.ServerSetupTask#tearDown(ManagementClient, String) tear down} of the task
+ * has completed.
+ * </p>
+ *
+ * @see ManagementClient#batch()
+ */
+public class OperationBatch {
+
+    private final ModelControllerClient client;
+    private final List<ModelNode> operations;
+    private final List<CompletableFuture<ModelNode>> results;
+
+    OperationBatch(final ModelControllerClient client) {
+        this.client = client;
+        operations = new ArrayList<>();
+        results = new ArrayList<>();
+    }
+
+    /**
+     * Adds an operation to the batch.
+     *
+     * @param op the operation to add
+     *
+     * @return a future which is completed with the response for the operation when the batch is flushed
+     */
+    public synchronized CompletableFuture<ModelNode> add(final ModelNode op) {
+        final CompletableFuture<ModelNode> result = new CompletableFuture<>();
+        operations.add(op.clone());
+        results.add(result);
+        return result;
+    }
+
+    /**
+     * Executes the buffered operations as a single composite operation. If only one operation has been added, the
+     * operation is executed as is.
+     *
+     * @return the response of the executed operation or {@code null} if there were no operations to execute
+     *
+     * @throws IOException if an error occurs communicating with the server, the futures of the operations are
+     *                         completed exceptionally as well
+     */
+    public synchronized ModelNode flush() throws IOException {
+        if (operations.isEmpty()) {
+            return null;
+        }
+        final List<ModelNode> ops = new ArrayList<>(operations);
+        final List<CompletableFuture<ModelNode>> futures = new ArrayList<>(results);
+        operations.clear();
+        results.clear();
+        try {
+            if (ops.size() == 1) {
+                final ModelNode response = client.execute(ops.get(0));
+                futures.get(0).complete(response);
+                return response;
+            }
+            final CompositeOperationBuilder builder = CompositeOperationBuilder.create();
+            ops.forEach(builder::addStep);
+            final ModelNode response = client.execute(builder.build());
+            final ModelNode stepResults = response.get(ClientConstants.RESULT);
+            for (int i = 0; i < futures.size(); i++) {
+                final String step = "step-" + (i + 1);
+                if (stepResults.hasDefined(step)) {
+                    futures.get(i).complete(stepResults.get(step));
+                } else {
+                    // The step was not executed, report the failure of the composite operation
+                    final ModelNode failed = new ModelNode();
+                    failed.get(ClientConstants.OUTCOME).set("failed");
+                    failed.get(ClientConstants.FAILURE_DESCRIPTION).set(Operations.getFailureDescription(response));
+                    futures.get(i).complete(failed);
+                }
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            futures.forEach(future -> future.completeExceptionally(e));
+            throw e;
+        }
+    }
+
+    /**
+     * Discards all operations which have not yet been executed. The futures for the operations are cancelled.
+     */
+    public synchronized void clear() {
+        results.forEach(result -> result.cancel(false));
+        operations.clear();
+        results.clear();
+    }
+
+    /**
+     * Indicates whether there are operations which have not yet been executed.
+     *
+     * @return {@code true} if there are no operations to execute, otherwise {@code false}
+     */
+    public synchronized boolean isEmpty() {
+        return operations.isEmpty();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.logging.Logger;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+
+/**
+ * Holds archives which are being, or have been, exported in the background before they are deployed.
+ * <p>
+ * Archives are keyed by identity. The assets of the archive, including the assets of nested archives, are recorded by
+ * identity when the export is started. If an asset was added, removed or replaced after the export was started, the
+ * exported bytes are discarded and the archive is exported again when deployed. Changes to the content of an asset
+ * instance itself cannot be detected.
+ * </p>
+ */
+final class PreExportedArchives {
+    private static final Logger LOGGER = Logger.getLogger(PreExportedArchives.class);
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())), new ExportThreadFactory());
+
+    private static final Map<Archive<?>, Export> EXPORTS = new IdentityHashMap<>();
+
+    private PreExportedArchives() {
+    }
+
+    /**
+     * Starts exporting the archive in the background. If the archive is already being exported this does nothing.
+     *
+     * @param archive the archive to export
+     */
+    static void submit(final Archive<?> archive) {
+        synchronized (EXPORTS) {
+            if (EXPORTS.containsKey(archive)) {
+                return;
+            }
+            final Snapshot snapshot = new Snapshot(archive);
+            final CompletableFuture<byte[]> future = CompletableFuture.supplyAsync(() -> {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                archive.as(ZipExporter.class).exportTo(out);
+                return out.toByteArray();
+            }, EXECUTOR);
+            EXPORTS.put(archive, new Export(snapshot, future));
+        }
+    }
+
+    /**
+     * Removes the exported archive, waiting for the export to complete if it is still in progress.
+     *
+     * @param archive the archive to get the exported bytes for
+     *
+     * @return the exported archive or {@code null} if the archive was not exported in the background or the export
+     *             cannot be used
+     */
+    static byte[] take(final Archive<?> archive) {
+        final Export export;
+        synchronized (EXPORTS) {
+            export = EXPORTS.remove(archive);
+        }
+        if (export == null) {
+            return null;
+        }
+        final byte[] result;
+        try {
+            result = export.future.join();
+        } catch (CompletionException e) {
+            LOGGER.debugf(e.getCause(), "Failed to export %s in the background", archive.getName());
+            return null;
+        }
+        if (!export.snapshot.matches(archive)) {
+            LOGGER.debugf("The content of %s changed after it was exported, exporting it again.", archive.getName());
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Discards all exports which have not been taken.
+     */
+    static void clear() {
+        synchronized (EXPORTS) {
+            EXPORTS.values().forEach(export -> export.future.cancel(false));
+            EXPORTS.clear();
+        }
+    }
+
+    private static class Export {
+        final Snapshot snapshot;
+        final CompletableFuture<byte[]> future;
+
+        private Export(final Snapshot snapshot, final CompletableFuture<byte[]> future) {
+            this.snapshot = snapshot;
+            this.future = future;
+        }
+    }
+
+    private static class Snapshot {
+        // Directories are recorded with a null asset
+        private final Map<ArchivePath, Asset> assets = new HashMap<>();
+        private final Map<ArchivePath, Snapshot> nested = new HashMap<>();
+
+        private Snapshot(final Archive<?> archive) {
+            for (Map.Entry<ArchivePath, Node> entry : archive.getContent().entrySet()) {
+                final Asset asset = entry.getValue().getAsset();
+                assets.put(entry.getKey(), asset);
+                if (asset instanceof ArchiveAsset) {
+                    nested.put(entry.getKey(), new Snapshot(((ArchiveAsset) asset).getArchive()));
+                }
+            }
+        }
+
+        boolean matches(final Archive<?> archive) {
+            final Map<ArchivePath, Node> content = archive.getContent();
+            if (content.size() != assets.size()) {
+                return false;
+            }
+            for (Map.Entry<ArchivePath, Node> entry : content.entrySet()) {
+                final ArchivePath path = entry.getKey();
+                final Asset asset = entry.getValue().getAsset();
+                if (!assets.containsKey(path) || assets.get(path) != asset) {
+                    return false;
+                }
+                if (asset instanceof ArchiveAsset && !nested.get(path).matches(((ArchiveAsset) asset).getArchive())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class ExportThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "arquillian-archive-export-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.logging.Logger;
+
+/**
+ * A lease on a slot of the managed server pool.
+ * <p>
+ * The pool is shared by every JVM, e.g. forked test JVM, using the same pool directory. Each slot is backed by a lock
+ * file and is held until the lease is {@linkplain #close() closed} or the JVM exits. A slot determines the port offset
+ * and the server base directory of the server launched for it which allows several managed servers to be booted and
+ * used concurrently on the same host.
+ * </p>
+ */
+public final class ServerPoolLease implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(ServerPoolLease.class);
+    private static final String LOCK_FILE_PREFIX = "server-slot-";
+
+    private final int slot;
+    private final int basePortOffset;
+    private final int portOffset;
+    private final FileChannel channel;
+    private final FileLock lock;
+
+    private ServerPoolLease(final int slot, final int basePortOffset, final int portOffset, final FileChannel channel,
+            final FileLock lock) {
+        this.slot = slot;
+        this.basePortOffset = basePortOffset;
+        this.portOffset = portOffset;
+        this.channel = channel;
+        this.lock = lock;
+    }
+
+    /**
+     * Acquires a free slot from the pool. If all slots are currently leased this waits until one is released or the
+     * timeout is reached.
+     *
+     * @param directory      the directory the lock files for the pool are stored in
+     * @param size           the number of slots in the pool
+     * @param basePortOffset the port offset the configured ports are already relative to
+     * @param portIncrement  the port offset increment between each slot
+     * @param timeout        the maximum time to wait for a free slot
+     * @param unit           the unit of the timeout
+     *
+     * @return the lease for the slot
+     *
+     * @throws IOException           if the lock files cannot be created
+     * @throws IllegalStateException if no slot becomes available before the timeout is reached
+     */
+    static ServerPoolLease acquire(final Path directory, final int size, final int basePortOffset,
+            final int portIncrement, final long timeout, final TimeUnit unit) throws IOException {
+        return acquire(directory, 0, size, basePortOffset, portIncrement, timeout, unit);
+    }
+
+    /**
+     * Acquires the slot of a previously closed lease again. The ports of a container are determined by its slot, so a
+     * restarted container must use the same slot. If the slot is currently leased this waits until it is released or
+     * the timeout is reached.
+     *
+     * @param directory      the directory the lock files for the pool are stored in
+     * @param slot           the slot to acquire
+     * @param basePortOffset the port offset the configured ports are already relative to
+     * @param portIncrement  the port offset increment between each slot
+     * @param timeout        the maximum time to wait for the slot
+     * @param unit           the unit of the timeout
+     *
+     * @return the lease for the slot
+     *
+     * @throws IOException           if the lock file cannot be created
+     * @throws IllegalStateException if the slot does not become available before the timeout is reached
+     */
+    static ServerPoolLease reacquire(final Path directory, final int slot, final int basePortOffset,
+            final int portIncrement, final long timeout, final TimeUnit unit) throws IOException {
+        return acquire(directory, slot, slot + 1, basePortOffset, portIncrement, timeout, unit);
+    }
+
+    private static ServerPoolLease acquire(final Path directory, final int firstSlot, final int endSlot,
+            final int basePortOffset, final int portIncrement, final long timeout, final TimeUnit unit)
+            throws IOException {
+        Files.createDirectories(directory);
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        do {
+            for (int slot = firstSlot; slot < endSlot; slot++) {
+                final ServerPoolLease lease = tryAcquire(directory.resolve(LOCK_FILE_PREFIX + slot + ".lock"), slot,
+                        basePortOffset, portIncrement);
+                if (lease != null) {
+                    LOGGER.debugf("Leased server pool slot %d from %s with a port offset of %d", Integer.valueOf(slot),
+                            directory, Integer.valueOf(lease.getPortOffset()));
+                    return lease;
+                }
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(250L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a free server pool slot", e);
+            }
+        } while (System.nanoTime() < deadline);
+        throw new IllegalStateException(String.format("No free server pool slot in %s was available within %d %s. All %d " +
+                "slots are currently leased.", directory, timeout, unit.name().toLowerCase(), endSlot - firstSlot));
+    }
+
+    private static ServerPoolLease tryAcquire(final Path lockFile, final int slot, final int basePortOffset,
+            final int portIncrement) throws IOException {
+        final FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            final FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return new ServerPoolLease(slot, basePortOffset, slot * portIncrement, channel, lock);
+            }
+        } catch (OverlappingFileLockException ignore) {
+            // The slot is already held by another container in this JVM
+        }
+        channel.close();
+        return null;
+    }
+
+    /**
+     * The index of the leased slot.
+     *
+     * @return the slot index
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * The value of the {@code jboss.socket.binding.port-offset} the server for this slot should be launched with.
+     *
+     * @return the port offset for the slot
+     */
+    public int getPortOffset() {
+        return basePortOffset + portOffset;
+    }
+
+    /**
+     * The offset for this slot relative to the configured ports.
+     *
+     * @return the relative port offset
+     */
+    int getRelativePortOffset() {
+        return portOffset;
+    }
+
+    /**
+     * Checks whether the slot is still held by this lease.
+     *
+     * @return {@code true} if the lease has not been closed, otherwise {@code false}
+     */
+    boolean isValid() {
+        return lock.isValid();
+    }
+
+    @Override
+    public void close() {
+        try {
+            lock.release();
+        } catch (IOException e) {
+            LOGGER.debugf(e, "Failed to release the lock for server pool slot %d", slot);
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.debugf(e, "Failed to close the lock file for server pool slot %d", slot);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ServerPoolLease[slot=" + slot + ", portOffset=" + getPortOffset() + "]";
+    }
+}
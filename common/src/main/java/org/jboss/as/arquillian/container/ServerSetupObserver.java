@@ -14,14 +14,17 @@ import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.arquillian.container.spi.Container;
 import org.jboss.arquillian.container.spi.client.deployment.DeploymentDescription;
 import org.jboss.arquillian.container.spi.context.ContainerContext;
 import org.jboss.arquillian.container.spi.event.container.AfterUnDeploy;
 import org.jboss.arquillian.container.spi.event.container.BeforeDeploy;
+import org.jboss.arquillian.container.spi.event.container.BeforeStop;
 import org.jboss.arquillian.core.api.Event;
 import org.jboss.arquillian.core.api.Instance;
 import org.jboss.arquillian.core.api.annotation.Inject;
@@ -37,12 +40,14 @@ import org.jboss.arquillian.test.spi.event.suite.BeforeClass;
 import org.jboss.as.arquillian.api.ReloadIfRequired;
 import org.jboss.as.arquillian.api.ServerSetup;
 import org.jboss.as.arquillian.api.ServerSetupTask;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.dmr.ModelNode;
 import org.jboss.logging.Logger;
 import org.wildfly.plugin.tools.server.ServerManager;
 
 /**
- * Observes the {@link BeforeDeploy}, {@link AfterUnDeploy} and {@link AfterClass} lifecycle events to ensure
- * {@linkplain ServerSetupTask setup tasks} are executed.
+ * Observes the {@link BeforeDeploy}, {@link AfterUnDeploy}, {@link AfterClass} and {@link BeforeStop} lifecycle events
+ * to ensure {@linkplain ServerSetupTask setup tasks} are executed.
  *
  * @author Stuart Douglas
  * @author <a href="mailto:jperkins@redhat.com">James R. Perkins</a>
@@ -71,15 +76,29 @@ public class ServerSetupObserver {
     private Instance<ServerManager> serverManager;
 
     private final Map<String, ServerSetupTaskHolder> setupTasks = new HashMap<>();
+    // Setups of the previous test class whose tear down has been deferred as they may be reused
+    private final Map<String, ServerSetupTaskHolder> deferredTasks = new HashMap<>();
     private boolean afterClassRun = false;
 
     /**
-     * Observed only for state changes.
+     * Observed for state changes. Any deferred setup which cannot be reused by the test class is torn down.
      *
      * @param beforeClass the lifecycle event
      */
     public synchronized void handleBeforeClass(@Observes BeforeClass beforeClass) {
         afterClassRun = false;
+        if (deferredTasks.isEmpty()) {
+            return;
+        }
+        final ServerSetup setup = beforeClass.getTestClass().getJavaClass().getAnnotation(ServerSetup.class);
+        final Iterator<Map.Entry<String, ServerSetupTaskHolder>> iter = deferredTasks.entrySet().iterator();
+        while (iter.hasNext()) {
+            final Map.Entry<String, ServerSetupTaskHolder> entry = iter.next();
+            if (!entry.getValue().matches(setup)) {
+                entry.getValue().tearDown(entry.getKey());
+                iter.remove();
+            }
+        }
     }
 
     /**
@@ -110,6 +129,16 @@ public class ServerSetupObserver {
         final Class<?> currentClass = classContext.getActiveId();
 
         ServerSetup setup = currentClass.getAnnotation(ServerSetup.class);
+        final ServerSetupTaskHolder deferred = deferredTasks.remove(containerName);
+        if (deferred != null) {
+            if (deferred.matches(setup)) {
+                log.debugf("Reusing the server setup %s of the previous test class for %s", deferred, currentClass);
+                deferred.deployments.add(event.getDeployment());
+                setupTasks.put(containerName, deferred);
+                return;
+            }
+            deferred.tearDown(containerName);
+        }
         if (setup == null) {
             return;
         }
@@ -140,7 +169,7 @@ public class ServerSetupObserver {
             final ServerSetupTaskHolder holder = entry.getValue();
             // Only tearDown if all deployments have been removed from the container
             if (holder.deployments.isEmpty()) {
-                entry.getValue().tearDown(entry.getKey());
+                tearDownOrDefer(entry.getKey(), holder);
                 iter.remove();
             }
         }
@@ -169,12 +198,34 @@ public class ServerSetupObserver {
             // happened. This should clean up any tasks left from managed deployments or unmanaged deployments that were
             // not undeployed manually.
             if (afterClassRun && holder.deployments.isEmpty()) {
-                holder.tearDown(containerName);
+                tearDownOrDefer(containerName, holder);
                 setupTasks.remove(containerName);
             }
         }
     }
 
+    /**
+     * Executed before the container is stopped to tear down any setup which was deferred for the next test class.
+     *
+     * @param beforeStop the lifecycle event
+     * @param container  the container the event is being invoked on
+     */
+    public synchronized void handleBeforeStop(@Observes BeforeStop beforeStop, final Container container) {
+        final ServerSetupTaskHolder holder = deferredTasks.remove(container.getName());
+        if (holder != null) {
+            holder.tearDown(container.getName());
+        }
+    }
+
+    private void tearDownOrDefer(final String containerName, final ServerSetupTaskHolder holder) {
+        final CommonContainerConfiguration config = holder.client.getContainerConfiguration();
+        if (config != null && config.isCoalesceServerSetupTasks() && !holder.client.isClosed()) {
+            deferredTasks.put(containerName, holder);
+        } else {
+            holder.tearDown(containerName);
+        }
+    }
+
     private void executeSetup(final ServerSetupTaskHolder holder, ServerSetup setup, String containerName,
             DeploymentDescription deployment)
             throws Exception {
@@ -236,7 +287,8 @@ public class ServerSetupObserver {
         private final ServerManager serverManager;
         private final Deque<ServerSetupTask> setupTasks;
         private final Set<DeploymentDescription> deployments;
-        private final String containerName;;
+        private final String containerName;
+        private List<Class<? extends ServerSetupTask>> taskClasses;
 
         private ServerSetupTaskHolder(final ServerManager serverManager, final ManagementClient client,
                 final String containerName) {
@@ -249,20 +301,39 @@ public class ServerSetupObserver {
 
         void setup(final ServerSetup setup, final String containerName) throws Throwable {
             final Class<? extends ServerSetupTask>[] classes = setup.value();
-            for (Class<? extends ServerSetupTask> clazz : classes) {
-                final Constructor<? extends ServerSetupTask> ctor = clazz.getDeclaredConstructor();
-                ctor.setAccessible(true);
-                final ServerSetupTask task = ctor.newInstance();
-                enrich(task, clazz.getMethod("setup", ManagementClient.class, String.class));
-                setupTasks.add(task);
-                try {
-                    task.setup(client, containerName);
-                } finally {
-                    if (task.getClass().isAnnotationPresent(ReloadIfRequired.class) && serverManager != null) {
-                        final ReloadIfRequired reloadIfRequired = task.getClass().getAnnotation(ReloadIfRequired.class);
-                        serverManager.reloadIfRequired(reloadIfRequired.value(), reloadIfRequired.timeUnit());
+            taskClasses = List.of(classes);
+            final boolean coalesceReloads = isCoalesceReloads();
+            long reloadTimeout = -1L;
+            try {
+                for (Class<? extends ServerSetupTask> clazz : classes) {
+                    final Constructor<? extends ServerSetupTask> ctor = clazz.getDeclaredConstructor();
+                    ctor.setAccessible(true);
+                    final ServerSetupTask task = ctor.newInstance();
+                    enrich(task, clazz.getMethod("setup", ManagementClient.class, String.class));
+                    setupTasks.add(task);
+                    try {
+                        task.setup(client, containerName);
+                        flushBatch(task);
+                    } catch (Throwable t) {
+                        clearBatch();
+                        throw t;
+                    } finally {
+                        if (task.getClass().isAnnotationPresent(ReloadIfRequired.class) && serverManager != null) {
+                            final ReloadIfRequired reloadIfRequired = task.getClass().getAnnotation(ReloadIfRequired.class);
+                            if (coalesceReloads) {
+                                reloadTimeout = Math.max(reloadTimeout,
+                                        reloadIfRequired.timeUnit().toMillis(reloadIfRequired.value()));
+                            } else {
+                                serverManager.reloadIfRequired(reloadIfRequired.value(), reloadIfRequired.timeUnit());
+                            }
+                        }
+                        clearCache();
                     }
                 }
+            } finally {
+                if (reloadTimeout >= 0L) {
+                    serverManager.reloadIfRequired(reloadTimeout, TimeUnit.MILLISECONDS);
+                }
             }
         }
 
@@ -271,12 +342,16 @@ public class ServerSetupObserver {
                 log.errorf("The container '%s' may have been stopped. The management client has been closed and " +
                         "tearing down setup tasks is not possible.", containerName);
             } else {
+                final boolean coalesceReloads = isCoalesceReloads();
+                long reloadTimeout = -1L;
                 ServerSetupTask task;
                 while ((task = setupTasks.pollLast()) != null) {
                     try {
                         enrich(task, task.getClass().getMethod("tearDown", ManagementClient.class, String.class));
                         task.tearDown(client, containerName);
+                        flushBatch(task);
                     } catch (Throwable e) {
+                        clearBatch();
                         // Unlike with setup, here we don't propagate assumption failures.
                         // Whatever was meant to be turned off by an assumption failure in setup has
                         // already been turned off; here we want to ensure all tear down work proceeds.
@@ -284,18 +359,69 @@ public class ServerSetupObserver {
                         log.errorf(e, "Setup task failed during tear down. Offending class '%s'", task);
                     } finally {
                         if (task.getClass().isAnnotationPresent(ReloadIfRequired.class) && serverManager != null) {
-                            try {
-                                final ReloadIfRequired reloadIfRequired = task.getClass().getAnnotation(ReloadIfRequired.class);
-                                serverManager.reloadIfRequired(reloadIfRequired.value(), reloadIfRequired.timeUnit());
-                            } catch (IOException e) {
-                                log.errorf(e, "Failed to reload server. The server may still be in reload-required state.");
+                            final ReloadIfRequired reloadIfRequired = task.getClass().getAnnotation(ReloadIfRequired.class);
+                            if (coalesceReloads) {
+                                reloadTimeout = Math.max(reloadTimeout,
+                                        reloadIfRequired.timeUnit().toMillis(reloadIfRequired.value()));
+                            } else {
+                                reloadIfRequired(reloadIfRequired.value(), reloadIfRequired.timeUnit());
                             }
                         }
+                        clearCache();
                     }
                 }
+                if (reloadTimeout >= 0L) {
+                    reloadIfRequired(reloadTimeout, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+
+        /**
+         * Executes any operations the task added to the batch of the client, but did not flush.
+         */
+        private void flushBatch(final ServerSetupTask task) throws IOException {
+            final ModelNode result = client.batch().flush();
+            if (result != null && !Operations.isSuccessfulOutcome(result)) {
+                throw new RuntimeException(String.format("Failed to execute the batched operations of %s: %s",
+                        task.getClass().getName(), Operations.getFailureDescription(result).asString()));
+            }
+        }
+
+        /**
+         * Setup tasks may change the configuration with any client, the cached results can no longer be trusted.
+         */
+        private void clearCache() {
+            if (!client.isClosed()) {
+                client.getCachingControllerClient().clear();
+            }
+        }
+
+        private void clearBatch() {
+            if (!client.isClosed()) {
+                client.batch().clear();
+            }
+        }
+
+        private void reloadIfRequired(final long timeout, final TimeUnit unit) {
+            try {
+                serverManager.reloadIfRequired(timeout, unit);
+            } catch (IOException e) {
+                log.errorf(e, "Failed to reload server. The server may still be in reload-required state.");
             }
         }
 
+        private boolean isCoalesceReloads() {
+            final CommonContainerConfiguration config = client.getContainerConfiguration();
+            return config != null && config.isCoalesceReloads();
+        }
+
+        /**
+         * Checks whether the setup declares exactly the same tasks, in the same order, this holder was set up with.
+         */
+        boolean matches(final ServerSetup setup) {
+            return setup != null && taskClasses != null && taskClasses.equals(List.of(setup.value()));
+        }
+
         @Override
         public String toString() {
             return ServerSetupTaskHolder.class.getName() +
@@ -0,0 +1,141 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.jboss.as.arquillian.setup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.jboss.as.controller.client.helpers.ClientConstants;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.dmr.ModelNode;
+
+/**
+ * Computes the operations required to revert a configuration model to a previous state.
+ * <p>
+ * The models are expected to be the result of a recursive {@code read-resource} operation which does not include
+ * defaults. Resources which were added are removed, resources which were removed are added again and attributes which
+ * were changed are written or undefined. Deployments are ignored as they are managed by Arquillian.
+ * </p>
+ */
+final class ConfigurationDiff {
+
+    private final Function<ModelNode, Collection<String>> childTypes;
+    private final List<ModelNode> removeOps = new ArrayList<>();
+    private final List<ModelNode> addOps = new ArrayList<>();
+    private final List<ModelNode> writeOps = new ArrayList<>();
+
+    private ConfigurationDiff(final Function<ModelNode, Collection<String>> childTypes) {
+        this.childTypes = childTypes;
+    }
+
+    /**
+     * Creates the operations which revert the current model to the original model. Resources are removed first, then
+     * resources are added, parents before children, and finally attributes are written.
+     *
+     * @param original   the model to revert to
+     * @param current    the current model
+     * @param childTypes a function which resolves the child types of the resource at the address passed to it
+     *
+     * @return the operations to execute, an empty list if the models are the same
+     */
+    static List<ModelNode> create(final ModelNode original, final ModelNode current,
+            final Function<ModelNode, Collection<String>> childTypes) {
+        final ConfigurationDiff diff = new ConfigurationDiff(childTypes);
+        diff.compare(new ModelNode().setEmptyList(), original, current);
+        final List<ModelNode> result = new ArrayList<>(diff.removeOps);
+        result.addAll(diff.addOps);
+        result.addAll(diff.writeOps);
+        return result;
+    }
+
+    private void compare(final ModelNode address, final ModelNode original, final ModelNode current) {
+        if (original.equals(current)) {
+            return;
+        }
+        final Collection<String> types = childTypes.apply(address);
+        final Set<String> keys = new LinkedHashSet<>(keys(original));
+        keys.addAll(keys(current));
+        for (String key : keys) {
+            if (types.contains(key)) {
+                if (address.asList().isEmpty() && ClientConstants.DEPLOYMENT.equals(key)) {
+                    continue;
+                }
+                compareChildren(address, key, value(original, key), value(current, key));
+            } else {
+                final ModelNode originalValue = value(original, key);
+                final ModelNode currentValue = value(current, key);
+                if (originalValue.equals(currentValue)) {
+                    continue;
+                }
+                if (originalValue.isDefined()) {
+                    writeOps.add(Operations.createWriteAttributeOperation(address, key, originalValue));
+                } else {
+                    writeOps.add(Operations.createUndefineAttributeOperation(address, key));
+                }
+            }
+        }
+    }
+
+    private void compareChildren(final ModelNode address, final String type, final ModelNode original,
+            final ModelNode current) {
+        final Set<String> originalNames = keys(original);
+        final Set<String> currentNames = keys(current);
+        for (String name : currentNames) {
+            if (!originalNames.contains(name)) {
+                removeOps.add(Operations.createRemoveOperation(append(address, type, name)));
+            }
+        }
+        for (String name : originalNames) {
+            final ModelNode childAddress = append(address, type, name);
+            if (currentNames.contains(name)) {
+                compare(childAddress, value(original, name), value(current, name));
+            } else {
+                addResource(childAddress, value(original, name));
+            }
+        }
+    }
+
+    private void addResource(final ModelNode address, final ModelNode model) {
+        final Collection<String> types = childTypes.apply(address);
+        final ModelNode op = Operations.createAddOperation(address);
+        final List<String> children = new ArrayList<>();
+        for (String key : keys(model)) {
+            if (types.contains(key)) {
+                children.add(key);
+            } else if (model.get(key).isDefined()) {
+                op.get(key).set(model.get(key));
+            }
+        }
+        addOps.add(op);
+        for (String type : children) {
+            final ModelNode resources = model.get(type);
+            for (String name : keys(resources)) {
+                addResource(append(address, type, name), resources.get(name));
+            }
+        }
+    }
+
+    private static ModelNode append(final ModelNode address, final String type, final String name) {
+        final ModelNode result = address.clone();
+        result.add(type, name);
+        return result;
+    }
+
+    private static ModelNode value(final ModelNode model, final String key) {
+        return model.has(key) ? model.get(key) : new ModelNode();
+    }
+
+    private static Set<String> keys(final ModelNode model) {
+        if (model.isDefined()) {
+            return new LinkedHashSet<>(model.keys());
+        }
+        return new LinkedHashSet<>();
+    }
+}
@@ -11,14 +11,17 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.jboss.as.arquillian.api.ServerSetupTask;
 import org.jboss.as.arquillian.container.ManagementClient;
+import org.jboss.as.arquillian.container.OperationBatch;
 import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.helpers.ClientConstants;
 import org.jboss.as.controller.client.helpers.Operations;
 import org.jboss.as.controller.client.helpers.Operations.CompositeOperationBuilder;
 import org.jboss.dmr.ModelNode;
@@ -139,25 +142,36 @@ public class ConfigureLoggingSetupTask implements ServerSetupTask {
 
     @Override
     public void setup(final ManagementClient client, final String containerId) throws Exception {
-        final CompositeOperationBuilder builder = CompositeOperationBuilder.create();
-        ModelNode address = Operations.createAddress("subsystem", "logging", handlerType, handlerName);
+        final ModelNode subsystemAddress = Operations.createAddress("subsystem", "logging");
+        final ModelNode handlerAddress = Operations.createAddress("subsystem", "logging", handlerType, handlerName);
+
+        // Read the current handler level, which is needed to reset it when done, and the current loggers in a single
+        // composite operation
+        final OperationBatch batch = client.batch();
+        final CompletableFuture<ModelNode> currentValue = batch
+                .add(Operations.createReadAttributeOperation(handlerAddress, "level"));
+        final CompletableFuture<ModelNode> currentLoggers = batch.add(readChildren(subsystemAddress, "logger"));
+        final CompletableFuture<ModelNode> currentRootLoggers = batch.add(readChildren(subsystemAddress, "root-logger"));
+        batch.flush();
 
-        // We need the current level to reset it when done
-        ModelNode currentValue = executeOp(client.getControllerClient(),
-                Operations.createReadAttributeOperation(address, "level"));
-        if (currentValue.isDefined()) {
-            tearDownOps.add(Operations.createWriteAttributeOperation(address, "level", currentValue.asString()));
+        final ModelNode level = readResult(currentValue);
+        if (level.isDefined()) {
+            tearDownOps.add(Operations.createWriteAttributeOperation(handlerAddress, "level", level.asString()));
         }
+        final ModelNode loggers = readResult(currentLoggers);
+        final ModelNode rootLoggers = readResult(currentRootLoggers);
 
-        builder.addStep(Operations.createUndefineAttributeOperation(address, "level"));
+        final CompositeOperationBuilder builder = CompositeOperationBuilder.create();
+        builder.addStep(Operations.createUndefineAttributeOperation(handlerAddress, "level"));
         for (Map.Entry<String, Set<String>> entry : logLevels.entrySet()) {
             for (String logger : entry.getValue()) {
                 if (logger.isBlank()) {
-                    address = Operations.createAddress("subsystem", "logging", "root-logger", "ROOT");
+                    builder.addStep(createLoggerOp(Operations.createAddress("subsystem", "logging", "root-logger", "ROOT"),
+                            child(rootLoggers, "ROOT"), entry.getKey()));
                 } else {
-                    address = Operations.createAddress("subsystem", "logging", "logger", logger);
+                    builder.addStep(createLoggerOp(Operations.createAddress("subsystem", "logging", "logger", logger),
+                            child(loggers, logger), entry.getKey()));
                 }
-                builder.addStep(createLoggerOp(client.getControllerClient(), address, entry.getKey()));
             }
         }
         executeOp(client.getControllerClient(), builder.build());
@@ -174,14 +188,9 @@ public class ConfigureLoggingSetupTask implements ServerSetupTask {
         executeOp(managementClient.getControllerClient(), builder.build());
     }
 
-    private ModelNode createLoggerOp(final ModelControllerClient client, final ModelNode address, final String level)
-            throws IOException {
-        // First check if the logger exists
-        final ModelNode op = Operations.createReadResourceOperation(address);
-        final ModelNode result = client.execute(op);
-        if (Operations.isSuccessfulOutcome(result)) {
-            // Get the current level from te result
-            final ModelNode loggerConfig = Operations.readResult(result);
+    private ModelNode createLoggerOp(final ModelNode address, final ModelNode loggerConfig, final String level) {
+        if (loggerConfig != null) {
+            // Get the current level from the current configuration
             if (loggerConfig.hasDefined("level")) {
                 tearDownOps.add(Operations.createWriteAttributeOperation(address, "level", loggerConfig.get("level")
                         .asString()));
@@ -194,8 +203,22 @@ public class ConfigureLoggingSetupTask implements ServerSetupTask {
         return addOp;
     }
 
-    private ModelNode executeOp(final ModelControllerClient client, final ModelNode op) throws IOException {
-        return executeOp(client, Operation.Factory.create(op));
+    private static ModelNode readChildren(final ModelNode address, final String childType) {
+        final ModelNode op = Operations.createOperation("read-children-resources", address);
+        op.get(ClientConstants.CHILD_TYPE).set(childType);
+        return op;
+    }
+
+    private static ModelNode readResult(final CompletableFuture<ModelNode> future) {
+        final ModelNode result = future.join();
+        if (!Operations.isSuccessfulOutcome(result)) {
+            throw new RuntimeException(Operations.getFailureDescription(result).asString());
+        }
+        return Operations.readResult(result);
+    }
+
+    private static ModelNode child(final ModelNode children, final String name) {
+        return children.isDefined() && children.has(name) ? children.get(name) : null;
     }
 
     private ModelNode executeOp(final ModelControllerClient client, final Operation op) throws IOException {
@@ -5,14 +5,20 @@
 
 package org.jboss.as.arquillian.setup;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.jboss.arquillian.test.api.ArquillianResource;
 import org.jboss.as.arquillian.api.ServerSetupTask;
 import org.jboss.as.arquillian.container.ManagementClient;
+import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.as.controller.client.helpers.Operations.CompositeOperationBuilder;
 import org.jboss.dmr.ModelNode;
 import org.jboss.logging.Logger;
 import org.wildfly.plugin.tools.server.ServerManager;
@@ -23,6 +29,11 @@ import org.wildfly.plugin.tools.server.ServerManager;
  * {@link #tearDown(ManagementClient, String)} the snapshot server configuration is used to reload the server and
  * overwrite the current configuration.
  * <p>
+ * Alternatively, the {@link #restoreStrategy()} can be overridden to return {@link RestoreStrategy#DIFF}. The model is
+ * then read before the setup and, on tear down, the changes are reverted with a single composite operation rather than
+ * reloading the server.
+ * </p>
+ * <p>
  * This setup tasks should be the first setup tasks if used with other setup tasks. Otherwise, the snapshot will have
  * changes from the previous setup tasks.
  * <p>
@@ -50,7 +61,7 @@ public class SnapshotServerSetupTask implements ServerSetupTask {
     public final void setup(final ManagementClient managementClient, final String containerId) throws Exception {
         try {
             final String fileName = serverManager.takeSnapshot();
-            final AutoCloseable restorer = () -> {
+            final AutoCloseable reloadRestorer = () -> {
                 final ModelNode op = Operations.createOperation("reload");
                 op.get("server-config").set(fileName);
                 serverManager.executeReload(op);
@@ -63,6 +74,17 @@ public class SnapshotServerSetupTask implements ServerSetupTask {
                                     .asString());
                 }
             };
+            final AutoCloseable restorer;
+            if (restoreStrategy() == RestoreStrategy.DIFF) {
+                final ModelNode original = readModel();
+                restorer = () -> {
+                    if (!restoreModel(original)) {
+                        reloadRestorer.close();
+                    }
+                };
+            } else {
+                restorer = reloadRestorer;
+            }
             snapshots.put(containerId, restorer);
             try {
                 doSetup(managementClient, containerId);
@@ -132,6 +154,15 @@ public class SnapshotServerSetupTask implements ServerSetupTask {
     protected void nonManagementCleanUp() throws Exception {
     }
 
+    /**
+     * The strategy used to restore the configuration on {@link #tearDown(ManagementClient, String)}.
+     *
+     * @return the restore strategy, the default is {@link RestoreStrategy#RELOAD}
+     */
+    protected RestoreStrategy restoreStrategy() {
+        return RestoreStrategy.RELOAD;
+    }
+
     /**
      * The number seconds to wait for the server to reload after the server configuration has been restored or if a
      * reload was required in the {@link #doSetup(ManagementClient, String)}.
@@ -141,4 +172,78 @@ public class SnapshotServerSetupTask implements ServerSetupTask {
     protected long timeout() {
         return 10L;
     }
+
+    private ModelNode readModel() throws IOException {
+        final ModelNode op = Operations.createReadResourceOperation(new ModelNode().setEmptyList(), true);
+        op.get("include-defaults").set(false);
+        @SuppressWarnings("resource")
+        final ModelNode result = serverManager.client().execute(op);
+        if (!Operations.isSuccessfulOutcome(result)) {
+            throw new RuntimeException(
+                    "Failed to read the server configuration: " + Operations.getFailureDescription(result).asString());
+        }
+        return Operations.readResult(result);
+    }
+
+    /**
+     * Reverts the changes made to the configuration since the original model was read with a single composite
+     * operation.
+     *
+     * @return {@code true} if the configuration was restored, {@code false} if the changes could not be reverted
+     */
+    @SuppressWarnings("resource")
+    private boolean restoreModel(final ModelNode original) throws IOException {
+        final ModelControllerClient client = serverManager.client();
+        final List<ModelNode> ops;
+        try {
+            ops = ConfigurationDiff.create(original, readModel(), address -> {
+                try {
+                    final ModelNode result = client
+                            .execute(Operations.createOperation("read-resource-description", address));
+                    if (!Operations.isSuccessfulOutcome(result)) {
+                        throw new IllegalStateException(Operations.getFailureDescription(result).asString());
+                    }
+                    final ModelNode children = Operations.readResult(result).get("children");
+                    return children.isDefined() ? children.keys() : Set.of();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            LOGGER.debugf(e, "Failed to determine the configuration changes for %s, restoring the snapshot.",
+                    getClass().getName());
+            return false;
+        }
+        if (ops.isEmpty()) {
+            return true;
+        }
+        final CompositeOperationBuilder builder = CompositeOperationBuilder.create();
+        ops.forEach(builder::addStep);
+        final ModelNode result = client.execute(builder.build());
+        if (!Operations.isSuccessfulOutcome(result)) {
+            LOGGER.debugf("Failed to revert the configuration changes for %s, restoring the snapshot: %s",
+                    getClass().getName(), Operations.getFailureDescription(result).asString());
+            return false;
+        }
+        serverManager.reloadIfRequired(timeout(), TimeUnit.SECONDS);
+        return true;
+    }
+
+    /**
+     * The strategies for restoring the configuration.
+     */
+    public enum RestoreStrategy {
+        /**
+         * Reloads the server with the snapshot configuration taken before the setup.
+         */
+        RELOAD,
+        /**
+         * Reverts the configuration changes made since the setup with a single composite operation. The server is
+         * only reloaded if the changes leave the server in a {@code reload-required} state. If the changes cannot be
+         * reverted, the snapshot configuration is restored as with {@link #RELOAD}.
+         */
+        DIFF,
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.jboss.as.arquillian.container;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * TestCases for {@link ArchiveContentHash}.
+ */
+public class ArchiveContentHashTest {
+
+    @Test
+    public void sameContent() {
+        final JavaArchive first = ShrinkWrap.create(JavaArchive.class, "test.jar")
+                .addClass(ArchiveContentHashTest.class)
+                .addAsManifestResource(new StringAsset("a"), "a.txt")
+                .addAsManifestResource(new StringAsset("b"), "b.txt");
+        final JavaArchive second = ShrinkWrap.create(JavaArchive.class, "test.jar")
+                .addAsManifestResource(new StringAsset("b"), "b.txt")
+                .addAsManifestResource(new StringAsset("a"), "a.txt")
+                .addClass(ArchiveContentHashTest.class);
+        Assert.assertEquals(ArchiveContentHash.of(first), ArchiveContentHash.of(second));
+    }
+
+    @Test
+    public void changedContent() {
+        final JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "test.jar")
+                .addAsManifestResource(new StringAsset("a"), "a.txt");
+        final String hash = ArchiveContentHash.of(archive);
+        archive.addAsManifestResource(new StringAsset("changed"), "a.txt");
+        Assert.assertNotEquals(hash, ArchiveContentHash.of(archive));
+    }
+
+    @Test
+    public void changedNestedArchive() {
+        final JavaArchive library = ShrinkWrap.create(JavaArchive.class, "lib.jar")
+                .addAsManifestResource(new StringAsset("a"), "a.txt");
+        final WebArchive war = ShrinkWrap.create(WebArchive.class, "test.war")
+                .addAsLibrary(library);
+        final String hash = ArchiveContentHash.of(war);
+        library.addAsManifestResource(new StringAsset("changed"), "a.txt");
+        war.addAsLibrary(library);
+        Assert.assertNotEquals(hash, ArchiveContentHash.of(war));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.jboss.as.arquillian.container;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationMessageHandler;
+import org.jboss.as.controller.client.OperationResponse;
+import org.jboss.as.controller.client.helpers.ClientConstants;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.dmr.ModelNode;
+import org.jboss.threads.AsyncFuture;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * TestCases for {@link CachingModelControllerClient}.
+ */
+public class CachingModelControllerClientTest {
+
+    private static final ModelNode DEPLOYMENT = Operations.createAddress(ClientConstants.DEPLOYMENT, "test.war");
+    private static final ModelNode SUBSYSTEM = Operations.createAddress(ClientConstants.SUBSYSTEM, "logging");
+
+    @Test
+    public void keyEquality() throws Exception {
+        final RecordingClient delegate = new RecordingClient();
+        final CachingModelControllerClient client = new CachingModelControllerClient(delegate);
+
+        final ModelNode undefinedAddress = Operations.createReadResourceOperation(new ModelNode().setEmptyList());
+        undefinedAddress.remove(ClientConstants.OP_ADDR);
+        client.execute(undefinedAddress);
+        client.execute(Operations.createReadResourceOperation(new ModelNode().setEmptyList()));
+        final ModelNode withHeaders = Operations.createReadResourceOperation(new ModelNode().setEmptyList());
+        withHeaders.get(ClientConstants.OPERATION_HEADERS, "rollback-on-runtime-failure").set(true);
+        client.execute(withHeaders);
+        Assert.assertEquals(1, delegate.executed.size());
+
+        client.execute(Operations.createReadResourceOperation(new ModelNode().setEmptyList(), true));
+        Assert.assertEquals(2, delegate.executed.size());
+    }
+
+    @Test
+    public void invalidateOverlappingAddresses() throws Exception {
+        final RecordingClient delegate = new RecordingClient();
+        final CachingModelControllerClient client = new CachingModelControllerClient(delegate);
+
+        final ModelNode readRoot = Operations.createOperation(ClientConstants.READ_CHILDREN_NAMES_OPERATION);
+        readRoot.get(ClientConstants.CHILD_TYPE).set(ClientConstants.DEPLOYMENT);
+        final ModelNode readDeployment = Operations.createReadResourceOperation(DEPLOYMENT);
+        final ModelNode readSubsystem = Operations.createReadResourceOperation(SUBSYSTEM);
+        client.execute(readRoot);
+        client.execute(readDeployment);
+        client.execute(readSubsystem);
+        Assert.assertEquals(3, delegate.executed.size());
+
+        // The parent and the resource are invalidated, the unrelated subsystem is not
+        client.invalidate(DEPLOYMENT);
+        client.execute(readRoot);
+        client.execute(readDeployment);
+        client.execute(readSubsystem);
+        Assert.assertEquals(5, delegate.executed.size());
+
+        // A wildcard overlaps every deployment
+        client.invalidate(Operations.createAddress(ClientConstants.DEPLOYMENT, "*"));
+        client.execute(readDeployment);
+        client.execute(readSubsystem);
+        Assert.assertEquals(6, delegate.executed.size());
+    }
+
+    @Test
+    public void writePassThrough() throws Exception {
+        final RecordingClient delegate = new RecordingClient();
+        final CachingModelControllerClient client = new CachingModelControllerClient(delegate);
+
+        final ModelNode readDeployment = Operations.createReadResourceOperation(DEPLOYMENT);
+        client.execute(readDeployment);
+        final ModelNode write = Operations.createWriteAttributeOperation(DEPLOYMENT, "enabled", false);
+        client.execute(write);
+        client.execute(write);
+        Assert.assertEquals(3, delegate.executed.size());
+
+        client.execute(readDeployment);
+        Assert.assertEquals(4, delegate.executed.size());
+
+        // Steps of a composite operation invalidate their addresses
+        client.execute(Operations.CompositeOperationBuilder.create()
+                .addStep(Operations.createOperation("deploy", DEPLOYMENT))
+                .build());
+        client.execute(readDeployment);
+        Assert.assertEquals(6, delegate.executed.size());
+    }
+
+    @Test
+    public void readAttribute() throws Exception {
+        final RecordingClient delegate = new RecordingClient();
+        final CachingModelControllerClient client = new CachingModelControllerClient(delegate);
+
+        final ModelNode readConfiguration = Operations.createReadAttributeOperation(DEPLOYMENT, "runtime-name");
+        client.execute(readConfiguration);
+        client.execute(readConfiguration);
+        // The description and the attribute
+        Assert.assertEquals(2, delegate.executed.size());
+
+        final ModelNode readRuntime = Operations.createReadAttributeOperation(DEPLOYMENT, "status");
+        client.execute(readRuntime);
+        client.execute(readRuntime);
+        Assert.assertEquals(4, delegate.executed.size());
+    }
+
+    private static class RecordingClient implements ModelControllerClient {
+        private final List<ModelNode> executed = new ArrayList<>();
+
+        @Override
+        public ModelNode execute(final Operation operation, final OperationMessageHandler messageHandler) {
+            final ModelNode op = operation.getOperation();
+            executed.add(op);
+            final ModelNode result = new ModelNode();
+            result.get(ClientConstants.OUTCOME).set(ClientConstants.SUCCESS);
+            if ("read-resource-description".equals(Operations.getOperationName(op))) {
+                final ModelNode attributes = result.get(ClientConstants.RESULT, "attributes");
+                attributes.get("runtime-name", "storage").set("configuration");
+                attributes.get("status", "storage").set("runtime");
+            } else {
+                result.get(ClientConstants.RESULT).set(executed.size());
+            }
+            return result;
+        }
+
+        @Override
+        public OperationResponse executeOperation(final Operation operation,
+                final OperationMessageHandler messageHandler) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AsyncFuture<ModelNode> executeAsync(final Operation operation,
+                final OperationMessageHandler messageHandler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AsyncFuture<OperationResponse> executeOperationAsync(final Operation operation,
+                final OperationMessageHandler messageHandler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * TestCases for {@link ConsoleRingBuffer}.
+ *
+ */
+public class ConsoleRingBufferTest {
+
+    @Test
+    public void empty() {
+        final ConsoleRingBuffer buffer = new ConsoleRingBuffer(8);
+        Assert.assertEquals(0, buffer.toByteArray().length);
+    }
+
+    @Test
+    public void notWrapped() {
+        final ConsoleRingBuffer buffer = new ConsoleRingBuffer(8);
+        write(buffer, "abc");
+        write(buffer, "de");
+        Assert.assertEquals("abcde", toString(buffer));
+    }
+
+    @Test
+    public void exactCapacity() {
+        final ConsoleRingBuffer buffer = new ConsoleRingBuffer(8);
+        write(buffer, "abcdefgh");
+        Assert.assertEquals("abcdefgh", toString(buffer));
+    }
+
+    @Test
+    public void wrapped() {
+        final ConsoleRingBuffer buffer = new ConsoleRingBuffer(8);
+        write(buffer, "abcdef");
+        write(buffer, "ghijk");
+        Assert.assertEquals("defghijk", toString(buffer));
+        write(buffer, "l");
+        Assert.assertEquals("efghijkl", toString(buffer));
+    }
+
+    @Test
+    public void largerThanCapacity() {
+        final ConsoleRingBuffer buffer = new ConsoleRingBuffer(4);
+        write(buffer, "ab");
+        write(buffer, "cdefghij");
+        Assert.assertEquals("ghij", toString(buffer));
+    }
+
+    @Test
+    public void offset() {
+        final ConsoleRingBuffer buffer = new ConsoleRingBuffer(4);
+        final byte[] bytes = "xxabcxx".getBytes(StandardCharsets.US_ASCII);
+        buffer.write(bytes, 2, 3);
+        Assert.assertEquals("abc", toString(buffer));
+    }
+
+    private static void write(final ConsoleRingBuffer buffer, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        buffer.write(bytes, 0, bytes.length);
+    }
+
+    private static String toString(final ConsoleRingBuffer buffer) {
+        return new String(buffer.toByteArray(), StandardCharsets.US_ASCII);
+    }
+}
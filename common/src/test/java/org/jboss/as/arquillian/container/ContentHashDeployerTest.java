@@ -0,0 +1,220 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.jboss.as.arquillian.container;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationMessageHandler;
+import org.jboss.as.controller.client.OperationResponse;
+import org.jboss.as.controller.client.helpers.ClientConstants;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.dmr.ModelNode;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.jboss.threads.AsyncFuture;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * TestCases for {@link ContentHashDeployer}.
+ */
+public class ContentHashDeployerTest {
+
+    @Test
+    public void redeployUsesRetainedContent() throws Exception {
+        final FakeServer server = new FakeServer();
+        final ContentHashDeployer deployer = new ContentHashDeployer(server);
+
+        deployer.deploy(createArchive(), null);
+        Assert.assertEquals(1, server.uploads);
+
+        deployer.undeploy("test.war", true, true);
+        Assert.assertFalse(server.deployments.containsKey("test.war"));
+        Assert.assertEquals(1, server.content.size());
+        final String retained = ContentHashDeployer.RETAINED_PREFIX + ArchiveContentHash.of(createArchive());
+        Assert.assertTrue(server.deployments.containsKey(retained));
+        Assert.assertFalse(server.deployments.get(retained).get("enabled").asBoolean());
+
+        // An equal archive is deployed by the hash of the retained content rather than being uploaded
+        deployer.deploy(createArchive(), null);
+        Assert.assertEquals(1, server.uploads);
+        Assert.assertTrue(server.deployments.get("test.war").get("enabled").asBoolean());
+        Assert.assertFalse(server.deployments.containsKey(retained));
+        Assert.assertEquals(1, server.content.size());
+    }
+
+    @Test
+    public void undeployWithoutKeepingContent() throws Exception {
+        final FakeServer server = new FakeServer();
+        final ContentHashDeployer deployer = new ContentHashDeployer(server);
+
+        deployer.deploy(createArchive(), null);
+        deployer.undeploy("test.war", true, false);
+        Assert.assertTrue(server.deployments.isEmpty());
+        Assert.assertTrue(server.content.isEmpty());
+
+        deployer.deploy(createArchive(), null);
+        Assert.assertEquals(2, server.uploads);
+    }
+
+    @Test
+    public void removeRetainedContent() throws Exception {
+        final FakeServer server = new FakeServer();
+        final ContentHashDeployer deployer = new ContentHashDeployer(server);
+
+        deployer.deploy(createArchive(), null);
+        deployer.undeploy("test.war", true, true);
+        Assert.assertEquals(1, server.content.size());
+
+        deployer.removeRetainedContent();
+        Assert.assertTrue(server.deployments.isEmpty());
+        Assert.assertTrue(server.content.isEmpty());
+
+        deployer.deploy(createArchive(), null);
+        Assert.assertEquals(2, server.uploads);
+    }
+
+    private static WebArchive createArchive() {
+        return ShrinkWrap.create(WebArchive.class, "test.war")
+                .addAsWebInfResource(new StringAsset("<beans/>"), "beans.xml");
+    }
+
+    /**
+     * Simulates the deployments of a server and its content repository, which removes content once no deployment
+     * references it.
+     */
+    private static class FakeServer implements ModelControllerClient {
+        private final Map<String, ModelNode> deployments = new LinkedHashMap<>();
+        private final Set<String> content = new HashSet<>();
+        private int uploads;
+
+        @Override
+        public ModelNode execute(final Operation operation, final OperationMessageHandler messageHandler) {
+            final Map<String, ModelNode> previousDeployments = new LinkedHashMap<>();
+            deployments.forEach((name, deployment) -> previousDeployments.put(name, deployment.clone()));
+            final Set<String> previousContent = new HashSet<>(content);
+            final int previousUploads = uploads;
+            final ModelNode result = new ModelNode();
+            try {
+                final ModelNode op = operation.getOperation();
+                if (ClientConstants.COMPOSITE.equals(Operations.getOperationName(op))) {
+                    for (ModelNode step : op.get(ClientConstants.STEPS).asList()) {
+                        execute(step, operation);
+                    }
+                } else {
+                    result.get(ClientConstants.RESULT).set(execute(op, operation));
+                }
+                content.removeIf(hash -> deployments.values().stream()
+                        .noneMatch(deployment -> hash
+                                .equals(contentKey(deployment.get(ClientConstants.CONTENT).get(0).get("hash").asBytes()))));
+                result.get(ClientConstants.OUTCOME).set(ClientConstants.SUCCESS);
+            } catch (IllegalStateException e) {
+                deployments.clear();
+                deployments.putAll(previousDeployments);
+                content.clear();
+                content.addAll(previousContent);
+                uploads = previousUploads;
+                result.get(ClientConstants.OUTCOME).set(ClientConstants.FAILED);
+                result.get(ClientConstants.FAILURE_DESCRIPTION).set(e.getMessage());
+            }
+            return result;
+        }
+
+        private ModelNode execute(final ModelNode op, final Operation operation) {
+            final String name = Operations.getOperationName(op);
+            if (ClientConstants.READ_CHILDREN_NAMES_OPERATION.equals(name)) {
+                final ModelNode names = new ModelNode().setEmptyList();
+                deployments.keySet().forEach(names::add);
+                return names;
+            }
+            final String deploymentName = Operations.getOperationAddress(op).get(0).get(ClientConstants.DEPLOYMENT)
+                    .asString();
+            final ModelNode deployment = deployments.get(deploymentName);
+            if (ClientConstants.ADD.equals(name)) {
+                if (deployment != null) {
+                    throw new IllegalStateException("Duplicate deployment " + deploymentName);
+                }
+                final ModelNode item = op.get(ClientConstants.CONTENT).get(0);
+                final byte[] hash;
+                if (item.hasDefined("hash")) {
+                    hash = item.get("hash").asBytes();
+                    if (!content.contains(contentKey(hash))) {
+                        throw new IllegalStateException("No content with hash " + contentKey(hash));
+                    }
+                } else {
+                    hash = upload(operation.getInputStreams().get(item.get("input-stream-index").asInt()));
+                }
+                final ModelNode added = new ModelNode();
+                added.get(ClientConstants.CONTENT).add().get("hash").set(hash);
+                added.get("enabled").set(op.get("enabled").asBoolean(false));
+                deployments.put(deploymentName, added);
+                return new ModelNode();
+            }
+            if (deployment == null) {
+                throw new IllegalStateException("No deployment " + deploymentName);
+            }
+            switch (name) {
+                case ClientConstants.READ_RESOURCE_OPERATION:
+                    return deployment;
+                case "undeploy":
+                    deployment.get("enabled").set(false);
+                    return new ModelNode();
+                case ClientConstants.REMOVE_OPERATION:
+                    deployments.remove(deploymentName);
+                    return new ModelNode();
+                default:
+                    throw new IllegalStateException("Unsupported operation " + name);
+            }
+        }
+
+        private byte[] upload(final InputStream in) {
+            try {
+                final byte[] hash = MessageDigest.getInstance("SHA-1").digest(in.readAllBytes());
+                content.add(contentKey(hash));
+                uploads++;
+                return hash;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static String contentKey(final byte[] bytes) {
+            return Arrays.toString(bytes);
+        }
+
+        @Override
+        public OperationResponse executeOperation(final Operation operation,
+                final OperationMessageHandler messageHandler) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AsyncFuture<ModelNode> executeAsync(final Operation operation,
+                final OperationMessageHandler messageHandler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AsyncFuture<OperationResponse> executeOperationAsync(final Operation operation,
+                final OperationMessageHandler messageHandler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
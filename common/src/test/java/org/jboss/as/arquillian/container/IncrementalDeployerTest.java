@@ -0,0 +1,81 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.jboss.as.arquillian.container;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * TestCases for {@link IncrementalDeployer}.
+ */
+public class IncrementalDeployerTest {
+
+    @Test
+    public void hashes() throws Exception {
+        final Map<String, String> hashes = hashes(ShrinkWrap.create(WebArchive.class, "test.war")
+                .addAsWebInfResource(new StringAsset("a"), "a.txt")
+                .addAsLibrary(createLibrary("b")));
+        Assert.assertEquals(List.of("/WEB-INF/a.txt", "/WEB-INF/lib/lib.jar"), List.copyOf(hashes.keySet()));
+
+        final Map<String, String> same = hashes(ShrinkWrap.create(WebArchive.class, "test.war")
+                .addAsLibrary(createLibrary("b"))
+                .addAsWebInfResource(new StringAsset("a"), "a.txt"));
+        Assert.assertEquals(hashes, same);
+
+        final Map<String, String> changed = hashes(ShrinkWrap.create(WebArchive.class, "test.war")
+                .addAsWebInfResource(new StringAsset("a"), "a.txt")
+                .addAsLibrary(createLibrary("changed")));
+        Assert.assertEquals(hashes.get("/WEB-INF/a.txt"), changed.get("/WEB-INF/a.txt"));
+        Assert.assertNotEquals(hashes.get("/WEB-INF/lib/lib.jar"), changed.get("/WEB-INF/lib/lib.jar"));
+    }
+
+    @Test
+    public void diff() {
+        final Map<String, String> hashes = new TreeMap<>(Map.of("/a", "1", "/b", "2", "/c", "3"));
+        final Properties index = new Properties();
+        index.setProperty("/a", "1");
+        index.setProperty("/b", "changed");
+        index.setProperty("/d", "4");
+        index.setProperty("server-content-hash", "abc");
+
+        final IncrementalDeployer.Diff diff = IncrementalDeployer.diff(hashes, index);
+        Assert.assertEquals(List.of("/b", "/c"), diff.changed);
+        Assert.assertEquals(List.of("/d"), diff.removed);
+    }
+
+    @Test
+    public void unchanged() {
+        final Map<String, String> hashes = new TreeMap<>(Map.of("/a", "1"));
+        final Properties index = new Properties();
+        index.setProperty("/a", "1");
+        index.setProperty("server-content-hash", "abc");
+
+        final IncrementalDeployer.Diff diff = IncrementalDeployer.diff(hashes, index);
+        Assert.assertTrue(diff.changed.isEmpty());
+        Assert.assertTrue(diff.removed.isEmpty());
+    }
+
+    private static JavaArchive createLibrary(final String content) {
+        return ShrinkWrap.create(JavaArchive.class, "lib.jar")
+                .addAsManifestResource(new StringAsset(content), "b.txt");
+    }
+
+    private static Map<String, String> hashes(final Archive<?> archive) throws Exception {
+        final Map<String, String> hashes = new TreeMap<>();
+        IncrementalDeployer.collectHashes(archive, hashes);
+        return hashes;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.jboss.as.arquillian.container;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerConnection;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * TestCases for {@link JmxConnectionManager}.
+ */
+public class JmxConnectionManagerTest {
+
+    // Disables the periodic check of the connector, so a stopped server is only detected when the connection is used
+    private static final Map<String, ?> ENVIRONMENT = Map.of("jmx.remote.x.client.connection.check.period", 0L);
+
+    private Registry registry;
+    private JMXServiceURL serviceURL;
+    private JMXConnectorServer server;
+    private MBeanServer mbeanServer;
+
+    @Before
+    public void startServer() throws Exception {
+        final int port = freePort();
+        registry = LocateRegistry.createRegistry(port);
+        serviceURL = new JMXServiceURL("service:jmx:rmi:///jndi/rmi://localhost:" + port + "/jmxrmi");
+        mbeanServer = MBeanServerFactory.newMBeanServer();
+        server = createServer();
+    }
+
+    @After
+    public void stopServer() throws Exception {
+        if (server != null) {
+            server.stop();
+        }
+        UnicastRemoteObject.unexportObject(registry, true);
+    }
+
+    @Test
+    public void reconnect() throws Exception {
+        final AtomicInteger connects = new AtomicInteger();
+        try (JmxConnectionManager manager = createManager(connects)) {
+            final MBeanServerConnection connection = manager.getConnection();
+            final int count = connection.getMBeanCount();
+            Assert.assertEquals(1, connects.get());
+
+            server.stop();
+            try {
+                connection.getMBeanCount();
+                Assert.fail("Expected the invocation to fail while the server is stopped");
+            } catch (IOException expected) {
+            }
+            // The read-only invocation was retried on a new connection
+            Assert.assertEquals(2, connects.get());
+
+            server = createServer();
+            Assert.assertEquals(count, connection.getMBeanCount().intValue());
+            Assert.assertEquals(3, connects.get());
+            Assert.assertSame(connection, manager.getConnection());
+        }
+    }
+
+    @Test
+    public void nonIdempotentInvocationNotRetried() throws Exception {
+        final AtomicInteger connects = new AtomicInteger();
+        try (JmxConnectionManager manager = createManager(connects)) {
+            final MBeanServerConnection connection = manager.getConnection();
+            final ObjectName name = new ObjectName("test:type=Test");
+
+            server.stop();
+            try {
+                connection.unregisterMBean(name);
+                Assert.fail("Expected the invocation to fail while the server is stopped");
+            } catch (IOException expected) {
+            }
+            Assert.assertEquals(1, connects.get());
+
+            // The failed connection was replaced
+            server = createServer();
+            Assert.assertFalse(connection.isRegistered(name));
+            Assert.assertEquals(2, connects.get());
+        }
+    }
+
+    @Test
+    public void connectTimeout() throws Exception {
+        server.stop();
+        server = null;
+        try (JmxConnectionManager manager = new JmxConnectionManager(serviceURL, () -> ENVIRONMENT)) {
+            final long start = System.nanoTime();
+            try {
+                manager.getConnection(500L);
+                Assert.fail("Expected the connection to fail");
+            } catch (IOException expected) {
+            }
+            final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            // The backoff must not be waited for once the next attempt would be after the timeout
+            Assert.assertTrue("Waited " + elapsed + "ms for a 500ms timeout", elapsed < 750L);
+
+            // Once the server is available the connection is made after the backoff
+            server = createServer();
+            Assert.assertNotNull(manager.getConnection(5000L).getDefaultDomain());
+        }
+    }
+
+    private JmxConnectionManager createManager(final AtomicInteger connects) {
+        return new JmxConnectionManager(serviceURL, () -> {
+            connects.incrementAndGet();
+            return ENVIRONMENT;
+        });
+    }
+
+    private JMXConnectorServer createServer() throws IOException {
+        final JMXConnectorServer server = JMXConnectorServerFactory.newJMXConnectorServer(serviceURL, null,
+                mbeanServer);
+        server.start();
+        return server;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.jboss.as.arquillian.container;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * TestCases for {@link MBeanProxy}.
+ *
+ */
+public class MBeanProxyTest {
+
+    private final Map<String, Integer> invocations = new HashMap<>();
+    private ObjectName name;
+    private MBeanServerConnection connection;
+
+    @Before
+    public void registerMBean() throws Exception {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        name = ObjectName.getInstance("org.jboss.as.arquillian.test:type=Counter");
+        server.registerMBean(new Counter(), name);
+        // Count the invocations made on the connection
+        connection = (MBeanServerConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { MBeanServerConnection.class }, (proxy, method, args) -> {
+                    invocations.merge(method.getName(), 1, Integer::sum);
+                    try {
+                        return method.invoke(server, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @After
+    public void unregisterMBean() throws Exception {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+    }
+
+    @Test
+    public void snapshot() {
+        final CounterMBean counter = MBeanProxy.snapshot(connection, name, CounterMBean.class);
+        Assert.assertEquals(0, counter.getCount());
+        Assert.assertEquals("counter", counter.getName());
+        Assert.assertTrue(counter.isActive());
+        Assert.assertEquals(Integer.valueOf(1), invocations.get("getAttributes"));
+        Assert.assertNull(invocations.get("getAttribute"));
+
+        counter.increment();
+        // The snapshot is not refreshed by invoking an operation
+        Assert.assertEquals(0, counter.getCount());
+
+        ((MBeanProxy.Snapshot) counter).refresh();
+        Assert.assertEquals(1, counter.getCount());
+        Assert.assertEquals(Integer.valueOf(2), invocations.get("getAttributes"));
+    }
+
+    @Test
+    public void snapshotSetter() {
+        final CounterMBean counter = MBeanProxy.snapshot(connection, name, CounterMBean.class);
+        counter.setName("changed");
+        Assert.assertEquals("changed", counter.getName());
+        Assert.assertEquals("changed", MBeanProxy.get(connection, name, CounterMBean.class).getName());
+    }
+
+    public interface CounterMBean {
+        int getCount();
+
+        String getName();
+
+        void setName(String name);
+
+        boolean isActive();
+
+        void increment();
+    }
+
+    public static class Counter implements CounterMBean {
+        private int count;
+        private String name = "counter";
+
+        @Override
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean isActive() {
+            return true;
+        }
+
+        @Override
+        public void increment() {
+            count++;
+        }
+    }
+}
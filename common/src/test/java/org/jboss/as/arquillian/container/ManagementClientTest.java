@@ -4,6 +4,23 @@
  */
 package org.jboss.as.arquillian.container;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationMessageHandler;
+import org.jboss.as.controller.client.OperationResponse;
+import org.jboss.as.controller.client.helpers.ClientConstants;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.dmr.ModelNode;
+import org.jboss.threads.AsyncFuture;
+import org.jboss.threads.AsyncFutureTask;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -22,4 +39,97 @@ public class ManagementClientTest {
         String formattedIp = ManagementClient.formatIP(sourceIp);
         Assert.assertEquals(sourceIp, formattedIp);
     }
+
+    @Test
+    public void reloadAsyncWaitsForTheServerToBeReloaded() throws Exception {
+        final ServerStates client = new ServerStates("running", null, "starting", "running");
+        final ManagementClient managementClient = new ManagementClient(client, "localhost", 9990, "remote+http");
+        managementClient.reloadAsync(10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals("The server state was not polled until the server was running", client.states.size(),
+                client.reads.get());
+    }
+
+    @Test
+    public void reloadAsyncTimeout() throws Exception {
+        final ServerStates client = new ServerStates("running");
+        final ManagementClient managementClient = new ManagementClient(client, "localhost", 9990, "remote+http");
+        try {
+            managementClient.reloadAsync(200, TimeUnit.MILLISECONDS).get(10, TimeUnit.SECONDS);
+            Assert.fail("The reload did not time out");
+        } catch (ExecutionException e) {
+            Assert.assertTrue("Expected a timeout but was " + e.getCause(), e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    /**
+     * Answers the reload operation successfully and each read of the server state with the next state, the last state is
+     * repeated. A {@code null} state fails the read as if the server was not reachable.
+     */
+    private static class ServerStates implements ModelControllerClient {
+        private final List<String> states;
+        private final AtomicInteger reads = new AtomicInteger();
+
+        private ServerStates(final String... states) {
+            this.states = Arrays.asList(states);
+        }
+
+        @Override
+        public AsyncFuture<ModelNode> executeAsync(final Operation operation,
+                final OperationMessageHandler messageHandler) {
+            final Result result = new Result();
+            if ("reload".equals(Operations.getOperationName(operation.getOperation()))) {
+                result.complete(success(new ModelNode()));
+                return result;
+            }
+            final String state = states.get(Math.min(reads.getAndIncrement(), states.size() - 1));
+            if (state == null) {
+                result.fail(new IOException("The server is not reachable"));
+            } else {
+                result.complete(success(new ModelNode(state)));
+            }
+            return result;
+        }
+
+        private static ModelNode success(final ModelNode result) {
+            final ModelNode response = new ModelNode();
+            response.get(ClientConstants.OUTCOME).set(ClientConstants.SUCCESS);
+            response.get(ClientConstants.RESULT).set(result);
+            return response;
+        }
+
+        @Override
+        public ModelNode execute(final Operation operation, final OperationMessageHandler messageHandler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public OperationResponse executeOperation(final Operation operation,
+                final OperationMessageHandler messageHandler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AsyncFuture<OperationResponse> executeOperationAsync(final Operation operation,
+                final OperationMessageHandler messageHandler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class Result extends AsyncFutureTask<ModelNode> {
+        private Result() {
+            super(Runnable::run);
+        }
+
+        private void complete(final ModelNode result) {
+            setResult(result);
+        }
+
+        private void fail(final Throwable cause) {
+            setFailed(cause);
+        }
+    }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.jboss.as.arquillian.container;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * TestCases for {@link ManagementMetrics}.
+ *
+ */
+public class ManagementMetricsTest {
+
+    @Test
+    public void recordedByTestClass() {
+        final ManagementMetrics metrics = new ManagementMetrics();
+        metrics.record("read-resource", TimeUnit.MILLISECONDS.toNanos(2L), 10L, 100L);
+        metrics.setTestClass("org.example.FirstTest");
+        metrics.record("read-resource", TimeUnit.MILLISECONDS.toNanos(2L), 10L, 100L);
+        metrics.record("read-resource", TimeUnit.MILLISECONDS.toNanos(20L), 10L, 200L);
+        metrics.record("add", TimeUnit.MILLISECONDS.toNanos(1L), 50L, 20L);
+
+        Assert.assertEquals(Set.of("", "org.example.FirstTest"), metrics.getTestClasses());
+        Assert.assertEquals(1, metrics.getStatistics("").size());
+
+        final Collection<ManagementMetrics.OperationStatistics> statistics = metrics.getStatistics();
+        Assert.assertEquals(2, statistics.size());
+        final ManagementMetrics.OperationStatistics readResource = statistics.stream()
+                .filter(stats -> "read-resource".equals(stats.getOperationName()))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        Assert.assertEquals(2L, readResource.getCount());
+        Assert.assertEquals(22L, readResource.getTotalTime(TimeUnit.MILLISECONDS));
+        Assert.assertEquals(20L, readResource.getMaxTime(TimeUnit.MILLISECONDS));
+        Assert.assertEquals(20L, readResource.getRequestBytes());
+        Assert.assertEquals(300L, readResource.getResponseBytes());
+    }
+
+    @Test
+    public void histogram() {
+        final ManagementMetrics metrics = new ManagementMetrics();
+        metrics.record("reload", TimeUnit.MILLISECONDS.toNanos(1L), 0L, 0L);
+        metrics.record("reload", TimeUnit.MILLISECONDS.toNanos(7L), 0L, 0L);
+        metrics.record("reload", TimeUnit.SECONDS.toNanos(10L), 0L, 0L);
+
+        final Map<Long, Long> histogram = metrics.getStatistics().iterator().next().getHistogram();
+        Assert.assertEquals(Long.valueOf(1L), histogram.get(1L));
+        Assert.assertEquals(Long.valueOf(0L), histogram.get(5L));
+        Assert.assertEquals(Long.valueOf(1L), histogram.get(10L));
+        Assert.assertEquals(Long.valueOf(1L), histogram.get(Long.MAX_VALUE));
+
+        final ModelNode model = metrics.toModelNode();
+        Assert.assertEquals(3L, model.get("", "reload", "count").asLong());
+        Assert.assertEquals(1L, model.get("", "reload", "histogram-ms", "gt-5000").asLong());
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.jboss.as.arquillian.container;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * TestCases for {@link PreExportedArchives}.
+ */
+public class PreExportedArchivesTest {
+
+    @After
+    public void clear() {
+        PreExportedArchives.clear();
+    }
+
+    @Test
+    public void unchanged() {
+        final WebArchive archive = createArchive();
+        PreExportedArchives.submit(archive);
+        Assert.assertNotNull(PreExportedArchives.take(archive));
+        // An export can only be taken once
+        Assert.assertNull(PreExportedArchives.take(archive));
+    }
+
+    @Test
+    public void replacedAsset() {
+        final WebArchive archive = createArchive();
+        PreExportedArchives.submit(archive);
+        archive.addAsWebResource(new StringAsset("changed"), "index.html");
+        Assert.assertNull(PreExportedArchives.take(archive));
+    }
+
+    @Test
+    public void replacedNestedAsset() {
+        final JavaArchive library = ShrinkWrap.create(JavaArchive.class, "library.jar")
+                .addAsResource(new StringAsset("value=1"), "test.properties");
+        final WebArchive archive = createArchive().addAsLibrary(library);
+        PreExportedArchives.submit(archive);
+        library.addAsResource(new StringAsset("value=2"), "test.properties");
+        Assert.assertNull(PreExportedArchives.take(archive));
+    }
+
+    private static WebArchive createArchive() {
+        return ShrinkWrap.create(WebArchive.class, "test.war")
+                .addAsWebResource(new StringAsset("original"), "index.html");
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.jboss.as.arquillian.setup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.dmr.ModelNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * TestCases for {@link ConfigurationDiff}.
+ *
+ */
+public class ConfigurationDiffTest {
+
+    private static final Function<ModelNode, Collection<String>> CHILD_TYPES = address -> {
+        final List<ModelNode> elements = address.asList();
+        if (elements.isEmpty()) {
+            return Set.of("system-property", "subsystem", "deployment");
+        }
+        if (elements.size() == 1 && elements.get(0).has("subsystem")) {
+            return Set.of("logger");
+        }
+        return Set.of();
+    };
+
+    @Test
+    public void unchanged() {
+        final ModelNode model = createModel();
+        Assert.assertTrue(ConfigurationDiff.create(model, model.clone(), CHILD_TYPES).isEmpty());
+    }
+
+    @Test
+    public void addedResource() {
+        final ModelNode original = createModel();
+        final ModelNode current = createModel();
+        current.get("system-property", "added", "value").set("test");
+
+        final List<ModelNode> ops = ConfigurationDiff.create(original, current, CHILD_TYPES);
+        Assert.assertEquals(1, ops.size());
+        Assert.assertEquals("remove", Operations.getOperationName(ops.get(0)));
+        Assert.assertEquals(Operations.createAddress("system-property", "added"), Operations.getOperationAddress(ops.get(0)));
+    }
+
+    @Test
+    public void removedResource() {
+        final ModelNode original = createModel();
+        final ModelNode current = createModel();
+        current.get("subsystem").remove("logging");
+
+        final List<ModelNode> ops = ConfigurationDiff.create(original, current, CHILD_TYPES);
+        Assert.assertEquals(2, ops.size());
+        // The parent must be added before the child
+        Assert.assertEquals("add", Operations.getOperationName(ops.get(0)));
+        Assert.assertEquals(Operations.createAddress("subsystem", "logging"), Operations.getOperationAddress(ops.get(0)));
+        Assert.assertEquals("add", Operations.getOperationName(ops.get(1)));
+        Assert.assertEquals(Operations.createAddress("subsystem", "logging", "logger", "org.jboss"),
+                Operations.getOperationAddress(ops.get(1)));
+        Assert.assertEquals("DEBUG", ops.get(1).get("level").asString());
+    }
+
+    @Test
+    public void changedAttributes() {
+        final ModelNode original = createModel();
+        final ModelNode current = createModel();
+        current.get("system-property", "existing", "value").set("changed");
+        current.get("subsystem", "logging", "logger", "org.jboss", "filter-spec").set("match(\"test\")");
+
+        final List<ModelNode> ops = ConfigurationDiff.create(original, current, CHILD_TYPES);
+        Assert.assertEquals(2, ops.size());
+        Assert.assertEquals("write-attribute", Operations.getOperationName(ops.get(0)));
+        Assert.assertEquals("existing", ops.get(0).get("value").asString());
+        Assert.assertEquals("undefine-attribute", Operations.getOperationName(ops.get(1)));
+        Assert.assertEquals("filter-spec", ops.get(1).get("name").asString());
+    }
+
+    @Test
+    public void deploymentsIgnored() {
+        final ModelNode original = createModel();
+        final ModelNode current = createModel();
+        current.get("deployment", "test.war", "runtime-name").set("test.war");
+        Assert.assertTrue(ConfigurationDiff.create(original, current, CHILD_TYPES).isEmpty());
+    }
+
+    private static ModelNode createModel() {
+        final ModelNode model = new ModelNode();
+        model.get("name").set("test-server");
+        model.get("system-property", "existing", "value").set("existing");
+        model.get("subsystem", "logging", "logger", "org.jboss", "level").set("DEBUG");
+        model.get("deployment").setEmptyObject();
+        return model;
+    }
+}
@@ -12,6 +12,7 @@ import java.nio.file.Paths;
 
 import org.jboss.as.arquillian.container.CommonManagedDeployableContainer;
 import org.jboss.as.arquillian.container.ParameterUtils;
+import org.jboss.as.arquillian.container.ServerPoolLease;
 import org.jboss.logging.Logger;
 import org.wildfly.core.launcher.BootableJarCommandBuilder;
 import org.wildfly.core.launcher.CommandBuilder;
@@ -36,9 +37,12 @@ public final class BootableDeployableContainer extends CommonManagedDeployableCo
     @SuppressWarnings("FeatureEnvy")
     protected CommandBuilder createCommandBuilder(final BootableContainerConfiguration config) {
         final BootableJarCommandBuilder commandBuilder = BootableJarCommandBuilder.of(config.getJarFile());
+        final ServerPoolLease serverPoolLease = getServerPoolLease();
         final String path = config.getInstallDir();
         if (path != null) {
-            final Path installDir = Paths.get(path);
+            // Servers in a pool run concurrently and cannot share the installation directory
+            final Path installDir = serverPoolLease == null ? Paths.get(path)
+                    : Paths.get(path + "-" + serverPoolLease.getSlot());
             // Workaround for https://issues.redhat.com/browse/WFCORE-5062
             if (Files.notExists(installDir)) {
                 try {
@@ -62,10 +66,19 @@ public final class BootableDeployableContainer extends CommonManagedDeployableCo
             commandBuilder.addJavaOption("-ea");
         }
 
+        if (serverPoolLease != null) {
+            commandBuilder.addJavaOption("-Djboss.socket.binding.port-offset=" + serverPoolLease.getPortOffset());
+        }
+
         if (jbossArguments != null && !jbossArguments.trim().isEmpty()) {
             commandBuilder.addServerArguments(ParameterUtils.splitParams(jbossArguments));
         }
 
+        final Path bootDeployments = createBootDeploymentConfiguration();
+        if (bootDeployments != null) {
+            commandBuilder.addServerArgument("--yaml=" + bootDeployments);
+        }
+
         // Check if we should enable debug
         if (config.isDebug()) {
             commandBuilder.setDebug(config.isDebugSuspend(), config.getDebugPort());
@@ -0,0 +1,126 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container.domain.managed;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Consumes the output of a process. If nothing consumes the output the server will hang on some platforms.
+ * <p>
+ * The output is read in large chunks and, if configured, retained in a {@linkplain ConsoleRingBuffer ring buffer} so
+ * it can be reported if the server fails to start or a deployment fails. Writing the output to {@link System#out} is
+ * done by a single writer thread shared by all processes, which batches the pending chunks into a single write.
+ * </p>
+ */
+final class ConsolePump implements Runnable {
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final Process process;
+    private final boolean writeOutput;
+    private final ServerBootMonitor bootMonitor;
+    private final ConsoleRingBuffer ringBuffer;
+
+    private ConsolePump(final Process process, final boolean writeOutput, final ServerBootMonitor bootMonitor,
+            final int bufferSize) {
+        this.process = process;
+        this.writeOutput = writeOutput;
+        this.bootMonitor = bootMonitor;
+        this.ringBuffer = bufferSize > 0 ? new ConsoleRingBuffer(bufferSize) : null;
+    }
+
+    /**
+     * Starts consuming the output of the process.
+     *
+     * @param process     the process to consume the output of
+     * @param writeOutput {@code true} if the output should be written to {@link System#out}
+     * @param bootMonitor the monitor the output should be passed to
+     * @param bufferSize  the number of bytes of the most recent output to retain, {@code 0} to retain nothing
+     *
+     * @return the pump consuming the output
+     */
+    static ConsolePump start(final Process process, final boolean writeOutput, final ServerBootMonitor bootMonitor,
+            final int bufferSize) {
+        final ConsolePump pump = new ConsolePump(process, writeOutput, bootMonitor, bufferSize);
+        final Thread thread = new Thread(pump, "arquillian-console-reader-" + process.pid());
+        thread.setDaemon(true);
+        thread.start();
+        return pump;
+    }
+
+    /**
+     * Returns the most recent output retained for the process.
+     *
+     * @return the retained output or an empty string if no output is retained
+     */
+    String getRetainedOutput() {
+        return ringBuffer == null ? "" : ringBuffer.toString();
+    }
+
+    @Override
+    public void run() {
+        final InputStream stream = process.getInputStream();
+        try {
+            final byte[] buf = new byte[READ_BUFFER_SIZE];
+            int num;
+            // Do not try reading a line cos it considers '\r' end of line
+            while ((num = stream.read(buf)) != -1) {
+                bootMonitor.update(buf, 0, num);
+                if (ringBuffer != null) {
+                    ringBuffer.write(buf, 0, num);
+                }
+                if (writeOutput) {
+                    ConsoleWriter.QUEUE.put(Arrays.copyOf(buf, num));
+                }
+            }
+        } catch (IOException ignore) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the output of all processes to {@link System#out}. The thread is started when the first output is queued.
+     */
+    private static class ConsoleWriter implements Runnable {
+        // Bounds the pending output, if the writer falls behind the reading threads will block
+        private static final BlockingQueue<byte[]> QUEUE = new LinkedBlockingQueue<>(1024);
+
+        static {
+            final Thread thread = new Thread(new ConsoleWriter(), "arquillian-console-writer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        @SuppressWarnings("UseOfSystemOutOrSystemErr")
+        public void run() {
+            final List<byte[]> pending = new ArrayList<>();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(READ_BUFFER_SIZE * 4);
+            try {
+                while (true) {
+                    pending.add(QUEUE.take());
+                    QUEUE.drainTo(pending);
+                    for (byte[] chunk : pending) {
+                        out.write(chunk, 0, chunk.length);
+                    }
+                    pending.clear();
+                    out.writeTo(System.out);
+                    System.out.flush();
+                    out.reset();
+                }
+            } catch (IOException ignore) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
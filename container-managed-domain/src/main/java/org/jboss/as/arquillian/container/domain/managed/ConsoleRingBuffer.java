@@ -0,0 +1,85 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container.domain.managed;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A fixed size buffer which retains the most recently written bytes of the console output of a process. The buffer is
+ * allocated off-heap so retaining the output does not add to the heap usage of the test JVM.
+ */
+final class ConsoleRingBuffer {
+    private final ByteBuffer buffer;
+    private boolean wrapped;
+
+    ConsoleRingBuffer(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be greater than 0: " + capacity);
+        }
+        buffer = ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * Writes the bytes to the buffer overwriting the oldest bytes if the capacity has been reached.
+     *
+     * @param bytes  the bytes to write
+     * @param offset the offset of the first byte to write
+     * @param len    the number of bytes to write
+     */
+    synchronized void write(final byte[] bytes, final int offset, final int len) {
+        final int capacity = buffer.capacity();
+        int off = offset;
+        int remaining = len;
+        if (remaining > capacity) {
+            // Only the last bytes will be retained
+            off += remaining - capacity;
+            remaining = capacity;
+        }
+        while (remaining > 0) {
+            final int count = Math.min(remaining, buffer.remaining());
+            buffer.put(bytes, off, count);
+            off += count;
+            remaining -= count;
+            if (!buffer.hasRemaining()) {
+                buffer.position(0);
+                wrapped = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the retained bytes, oldest first.
+     *
+     * @return the retained bytes
+     */
+    synchronized byte[] toByteArray() {
+        final int position = buffer.position();
+        final ByteBuffer view = buffer.duplicate();
+        if (!wrapped) {
+            final byte[] result = new byte[position];
+            view.position(0);
+            view.get(result);
+            return result;
+        }
+        final int capacity = buffer.capacity();
+        final byte[] result = new byte[capacity];
+        view.position(position);
+        view.get(result, 0, capacity - position);
+        view.position(0);
+        view.get(result, capacity - position, position);
+        return result;
+    }
+
+    /**
+     * Returns the retained output decoded with the default character set.
+     *
+     * @return the retained output
+     */
+    @Override
+    public String toString() {
+        return new String(toByteArray(), Charset.defaultCharset());
+    }
+}
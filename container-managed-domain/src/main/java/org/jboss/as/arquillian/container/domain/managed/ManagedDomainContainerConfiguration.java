@@ -34,6 +34,8 @@ public class ManagedDomainContainerConfiguration extends CommonDomainContainerCo
 
     private boolean outputToConsole = true;
 
+    private int outputBufferSizeInKb = 1024;
+
     private String domainConfig = System.getProperty("jboss.domain.default.config");
 
     private String hostConfig = System.getProperty("jboss.host.default.config");
@@ -61,6 +63,10 @@ public class ManagedDomainContainerConfiguration extends CommonDomainContainerCo
         if (javaHome != null) {
             Validate.configurationDirectoryExists(javaHome, "javaHome must exist");
         }
+        if (outputBufferSizeInKb < 0) {
+            throw new ConfigurationException(
+                    String.format("The outputBufferSizeInKb must be 0 or greater: %d", outputBufferSizeInKb));
+        }
     }
 
     /**
@@ -184,6 +190,21 @@ public class ManagedDomainContainerConfiguration extends CommonDomainContainerCo
         return outputToConsole;
     }
 
+    /**
+     * The amount of the most recent output of the domain, in kilobytes, which is retained. If the domain fails to start
+     * or a deployment fails and the output was not written to the console, the retained output is logged. A value of
+     * {@code 0} disables retaining the output. Defaults to 1024.
+     *
+     * @return the size of the retained output in kilobytes
+     */
+    public int getOutputBufferSizeInKb() {
+        return outputBufferSizeInKb;
+    }
+
+    public void setOutputBufferSizeInKb(final int outputBufferSizeInKb) {
+        this.outputBufferSizeInKb = outputBufferSizeInKb;
+    }
+
     /**
      * Get the server configuration file name. Equivalent to [-server-config=...] on the command line.
      *
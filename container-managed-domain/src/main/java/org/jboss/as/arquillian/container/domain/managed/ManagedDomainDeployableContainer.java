@@ -6,31 +6,28 @@ package org.jboss.as.arquillian.container.domain.managed;
 
 import static org.wildfly.core.launcher.ProcessHelper.addShutdownHook;
 import static org.wildfly.core.launcher.ProcessHelper.destroyProcess;
-import static org.wildfly.core.launcher.ProcessHelper.processHasDied;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.Socket;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
 import org.jboss.arquillian.container.spi.client.container.LifecycleException;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
 import org.jboss.as.arquillian.container.domain.CommonDomainDeployableContainer;
 import org.jboss.as.arquillian.container.domain.ParameterUtils;
 import org.jboss.as.controller.client.helpers.ClientConstants;
 import org.jboss.as.controller.client.helpers.Operations;
 import org.jboss.dmr.ModelNode;
+import org.jboss.shrinkwrap.api.Archive;
 import org.wildfly.core.launcher.DomainCommandBuilder;
 import org.wildfly.core.launcher.Launcher;
 
@@ -50,6 +47,7 @@ public class ManagedDomainDeployableContainer extends CommonDomainDeployableCont
 
     private Thread shutdownThread;
     private Process process;
+    private ConsolePump consolePump;
 
     @Override
     public Class<ManagedDomainContainerConfiguration> getConfigurationClass() {
@@ -111,27 +109,17 @@ public class ManagedDomainDeployableContainer extends CommonDomainDeployableCont
 
             log.info("Starting container with: " + commandBuilder.build());
             final Process process = Launcher.of(commandBuilder).setRedirectErrorStream(true).launch();
-            new Thread(new ConsoleConsumer(process, config.isOutputToConsole())).start();
+            final ServerBootMonitor bootMonitor = new ServerBootMonitor(process);
+            consolePump = ConsolePump.start(process, config.isOutputToConsole(), bootMonitor,
+                    config.getOutputBufferSizeInKb() * 1024);
             shutdownThread = addShutdownHook(process);
 
-            long startupTimeout = getContainerConfiguration().getStartupTimeoutInSeconds();
-            long timeout = startupTimeout * 1000;
-            boolean serverAvailable = false;
-            long sleep = 1000;
-            while (timeout > 0 && serverAvailable == false) {
-                long before = System.currentTimeMillis();
-                serverAvailable = getManagementClient().isDomainInRunningState();
-                timeout -= (System.currentTimeMillis() - before);
-                if (!serverAvailable) {
-                    if (processHasDied(process))
-                        break;
-                    Thread.sleep(sleep);
-                    timeout -= sleep;
-                    sleep = Math.max(sleep / 2, 100);
-                }
-            }
-            if (!serverAvailable) {
+            // The boot complete message is logged by the host controller and each server, the monitor wakes on each
+            // of them and re-checks the state of the domain
+            final long startupTimeout = getContainerConfiguration().getStartupTimeoutInSeconds();
+            if (!bootMonitor.await(getManagementClient()::isDomainInRunningState, startupTimeout, TimeUnit.SECONDS)) {
                 destroyProcess(process);
+                logRetainedOutput("The domain failed to start.");
                 throw new TimeoutException(String.format("Managed Domain server was not started within [%d] s",
                         config.getStartupTimeoutInSeconds()));
             }
@@ -174,6 +162,16 @@ public class ManagedDomainDeployableContainer extends CommonDomainDeployableCont
         }
     }
 
+    @Override
+    public ProtocolMetaData deploy(final Archive<?> archive) throws DeploymentException {
+        try {
+            return super.deploy(archive);
+        } catch (DeploymentException | RuntimeException e) {
+            logRetainedOutput(String.format("Failed to deploy %s.", archive.getName()));
+            throw e;
+        }
+    }
+
     private boolean isServerRunning() {
         Socket socket = null;
         try {
@@ -203,33 +201,17 @@ public class ManagedDomainDeployableContainer extends CommonDomainDeployableCont
     }
 
     /**
-     * Runnable that consumes the output of the process. If nothing consumes the output the AS will hang on some platforms
+     * Logs the retained output of the domain process. The output is only logged if it was not already written to the
+     * console.
      *
-     * @author Stuart Douglas
+     * @param reason the reason the output is logged
      */
-    private class ConsoleConsumer implements Runnable {
-        private final Process process;
-        private final boolean writeOutput;
-
-        private ConsoleConsumer(final Process process, final boolean writeOutput) {
-            this.process = process;
-            this.writeOutput = writeOutput;
-        }
-
-        @Override
-        @SuppressWarnings("UseOfSystemOutOrSystemErr")
-        public void run() {
-            final InputStream stream = process.getInputStream();
-
-            try {
-                byte[] buf = new byte[32];
-                int num;
-                // Do not try reading a line cos it considers '\r' end of line
-                while ((num = stream.read(buf)) != -1) {
-                    if (writeOutput)
-                        System.out.write(buf, 0, num);
-                }
-            } catch (IOException ignore) {
+    private void logRetainedOutput(final String reason) {
+        final ConsolePump consolePump = this.consolePump;
+        if (consolePump != null && !getContainerConfiguration().isOutputToConsole()) {
+            final String output = consolePump.getRetainedOutput();
+            if (!output.isEmpty()) {
+                log.severe(String.format("%s The most recent domain output was:%n%s", reason, output));
             }
         }
     }
@@ -245,7 +227,7 @@ public class ManagedDomainDeployableContainer extends CommonDomainDeployableCont
         if (cleanServerBaseDirPath != null) {
             cleanBase = Paths.get(cleanServerBaseDirPath);
             if (Files.exists(cleanBase)) {
-                if (!deleteDir(cleanBase)) {
+                if (!ServerDirectoryTemplates.deleteInBackground(cleanBase)) {
                     log.warning(String.format("Clean directory %s was not empty when copied. Previous data will be lost.",
                             cleanBase));
                 }
@@ -262,13 +244,15 @@ public class ManagedDomainDeployableContainer extends CommonDomainDeployableCont
             throw serverBaseDirectoryIsNotADirectory(cleanBase.toFile());
         }
 
+        // The templates are kept next to the clean directory so the content repository can be hard linked
+        final Path templateCache = cleanBase.toAbsolutePath().getParent().resolve(ServerDirectoryTemplates.TEMPLATE_DIR);
         final Path currentConfigDir = commandBuilder.getConfigurationDirectory();
         final Path configDir = cleanBase.resolve(CONFIG_DIR);
-        copyDir(currentConfigDir, configDir);
+        ServerDirectoryTemplates.copy(currentConfigDir, configDir, templateCache);
 
         final Path currentDataDir = commandBuilder.getBaseDirectory().resolve(DATA_DIR);
         if (Files.exists(currentDataDir)) {
-            copyDir(currentDataDir, cleanBase.resolve(DATA_DIR));
+            ServerDirectoryTemplates.copy(currentDataDir, cleanBase.resolve(DATA_DIR), templateCache);
         }
         commandBuilder.setBaseDirectory(cleanBase);
         commandBuilder.setConfigurationDirectory(configDir);
@@ -281,42 +265,4 @@ public class ManagedDomainDeployableContainer extends CommonDomainDeployableCont
     static IllegalStateException serverBaseDirectoryIsNotADirectory(File file) {
         return new IllegalStateException(String.format("Server base directory is not a directory: %s", file));
     }
-
-    private static void copyDir(final Path from, final Path to) throws IOException {
-        Files.walkFileTree(from, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
-                Files.copy(dir, to.resolve(from.relativize(dir)));
-                return FileVisitResult.CONTINUE;
-            }
-
-            @Override
-            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
-                Files.copy(file, to.resolve(from.relativize(file)));
-                return FileVisitResult.CONTINUE;
-            }
-        });
-    }
-
-    private static boolean deleteDir(final Path toDelete) throws IOException {
-        final AtomicBoolean empty = new AtomicBoolean(true);
-        Files.walkFileTree(toDelete, new SimpleFileVisitor<>() {
-            @Override
-            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
-                Files.delete(dir);
-                if (!dir.equals(toDelete)) {
-                    empty.compareAndSet(true, false);
-                }
-                return FileVisitResult.CONTINUE;
-            }
-
-            @Override
-            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
-                Files.delete(file);
-                empty.compareAndSet(true, false);
-                return FileVisitResult.CONTINUE;
-            }
-        });
-        return empty.get();
-    }
 }
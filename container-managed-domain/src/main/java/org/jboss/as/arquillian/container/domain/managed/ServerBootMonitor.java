@@ -0,0 +1,110 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container.domain.managed;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Waits for a launched server to complete its boot.
+ * <p>
+ * Rather than polling in fixed intervals, waiting threads are woken as soon as the boot complete message is seen in
+ * the console output of the process or the process exits. The readiness check is then used to confirm the state of
+ * the server. If the boot complete message is never seen, for example if console logging has been disabled, the
+ * readiness check is still invoked periodically.
+ * </p>
+ */
+final class ServerBootMonitor {
+    // WFLYSRV0025: started in, WFLYSRV0026: started (with errors) in
+    private static final String[] BOOT_COMPLETE_MARKERS = {
+            "WFLYSRV0025",
+            "WFLYSRV0026",
+    };
+    private static final int MAX_LINE_LENGTH = 1024;
+    private static final long FALLBACK_POLL_INTERVAL = 250L;
+
+    private final Process process;
+    private final StringBuilder line;
+    private int signals;
+
+    ServerBootMonitor(final Process process) {
+        this.process = process;
+        this.line = new StringBuilder(128);
+        process.onExit().thenRun(this::signal);
+    }
+
+    /**
+     * Scans output of the process for the boot complete message. This is expected to be invoked from a single thread
+     * only, i.e. the thread consuming the output of the process.
+     *
+     * @param buffer the buffer holding the output
+     * @param offset the offset in the buffer
+     * @param len    the number of bytes to scan
+     */
+    void update(final byte[] buffer, final int offset, final int len) {
+        for (int i = offset; i < offset + len; i++) {
+            final char c = (char) (buffer[i] & 0xFF);
+            if (c == '\n' || c == '\r') {
+                if (line.length() > 0) {
+                    checkLine();
+                    line.setLength(0);
+                }
+            } else if (line.length() < MAX_LINE_LENGTH) {
+                line.append(c);
+            }
+        }
+    }
+
+    /**
+     * Waits until the readiness check reports the server as ready, the process exits or the timeout is reached.
+     *
+     * @param readinessCheck the check which determines whether the server is ready
+     * @param timeout        the maximum time to wait
+     * @param unit           the unit for the timeout
+     *
+     * @return {@code true} if the server is ready, {@code false} if the process exited or the timeout was reached
+     *
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    boolean await(final BooleanSupplier readinessCheck, final long timeout, final TimeUnit unit)
+            throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            final int seen;
+            synchronized (this) {
+                seen = signals;
+            }
+            if (readinessCheck.getAsBoolean()) {
+                return true;
+            }
+            if (!process.isAlive()) {
+                return false;
+            }
+            final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0L) {
+                return false;
+            }
+            synchronized (this) {
+                if (signals == seen) {
+                    wait(Math.min(remaining, FALLBACK_POLL_INTERVAL));
+                }
+            }
+        }
+    }
+
+    private void checkLine() {
+        for (String marker : BOOT_COMPLETE_MARKERS) {
+            if (line.indexOf(marker) >= 0) {
+                signal();
+                return;
+            }
+        }
+    }
+
+    private synchronized void signal() {
+        signals++;
+        notifyAll();
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.container.domain.managed;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Creates clean server directories from cached pristine templates.
+ * <p>
+ * A template is a copy of a source directory keyed by a hash of the source directories contents. The template is
+ * created once and reused for every clean directory created from the same, unchanged, source. Files from the content
+ * repository are never modified in place by the server and are hard linked from the template where the file system
+ * supports it. All other files are copied in parallel.
+ * </p>
+ */
+final class ServerDirectoryTemplates {
+    private static final Logger LOGGER = Logger.getLogger(ServerDirectoryTemplates.class.getName());
+
+    static final String TEMPLATE_DIR = "arquillian-server-templates";
+    private static final String DELETE_SUFFIX = ".arquillian-delete-";
+    private static final String CONTENT_DIR = "content";
+
+    private static final ExecutorService DELETE_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        final Thread thread = new Thread(r, "arquillian-clean-directory-delete");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ServerDirectoryTemplates() {
+    }
+
+    /**
+     * Copies the source directory into the target directory. The files are copied from a template located in the
+     * template cache directory, the template is created first if required.
+     *
+     * @param source        the directory to copy
+     * @param target        the directory to copy the source to, this must not exist
+     * @param templateCache the directory the templates are cached in
+     *
+     * @throws IOException if an error occurs copying the directory
+     */
+    static void copy(final Path source, final Path target, final Path templateCache) throws IOException {
+        final Path template = getOrCreateTemplate(source, templateCache);
+        final List<Path> files = new ArrayList<>();
+        Files.walkFileTree(template, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(template.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        final AtomicBoolean linkSupported = new AtomicBoolean(true);
+        try {
+            files.parallelStream().forEach(file -> {
+                final Path relative = template.relativize(file);
+                final Path dest = target.resolve(relative.toString());
+                try {
+                    if (linkSupported.get() && relative.getNameCount() > 1
+                            && CONTENT_DIR.equals(relative.getName(0).toString())) {
+                        try {
+                            Files.createLink(dest, file);
+                            return;
+                        } catch (UnsupportedOperationException | IOException e) {
+                            if (linkSupported.compareAndSet(true, false)) {
+                                LOGGER.log(Level.FINE, e,
+                                        () -> String.format("Hard links are not supported for %s, falling back to copying",
+                                                dest));
+                            }
+                        }
+                    }
+                    Files.copy(file, dest);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Deletes the directory in the background. The directory is first moved to a sibling directory so a new directory
+     * with the same name can be created immediately. If the directory cannot be moved it is deleted before returning.
+     *
+     * @param dir the directory to delete
+     *
+     * @return {@code true} if the directory was empty, otherwise {@code false}
+     *
+     * @throws IOException if an error occurs moving or deleting the directory
+     */
+    static boolean deleteInBackground(final Path dir) throws IOException {
+        final boolean empty;
+        try (Stream<Path> children = Files.list(dir)) {
+            empty = children.findAny().isEmpty();
+        }
+        final Path toDelete = dir.resolveSibling(dir.getFileName() + DELETE_SUFFIX + System.nanoTime());
+        try {
+            Files.move(dir, toDelete, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, e, () -> String.format("Could not move %s, deleting it in the foreground.", dir));
+            deleteDir(dir);
+            return empty;
+        }
+        // Include directories a previous JVM did not finish deleting before it exited
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.toAbsolutePath().getParent(),
+                dir.getFileName() + DELETE_SUFFIX + "*")) {
+            for (Path path : stream) {
+                DELETE_EXECUTOR.submit(() -> {
+                    try {
+                        deleteDir(path);
+                    } catch (IOException e) {
+                        LOGGER.log(Level.WARNING, e, () -> String.format("Failed to delete directory %s", path));
+                    }
+                });
+            }
+        }
+        return empty;
+    }
+
+    private static Path getOrCreateTemplate(final Path source, final Path templateCache) throws IOException {
+        final String prefix = hash(source.toAbsolutePath().normalize().toString()).substring(0, 16);
+        final Path template = templateCache.resolve(prefix + "-" + fingerprint(source));
+        if (Files.isDirectory(template)) {
+            return template;
+        }
+        Files.createDirectories(templateCache);
+        // Other JVMs may be creating the same template
+        try (
+                FileChannel channel = FileChannel.open(templateCache.resolve(prefix + ".lock"), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE);
+                FileLock ignored = channel.lock()) {
+            if (Files.isDirectory(template)) {
+                return template;
+            }
+            LOGGER.fine(() -> String.format("Creating template %s for %s", template, source));
+            final Path tempDir = Files.createTempDirectory(templateCache, prefix + "-tmp");
+            final List<Path> files = new ArrayList<>();
+            Files.walkFileTree(source, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs)
+                        throws IOException {
+                    Files.createDirectories(tempDir.resolve(source.relativize(dir).toString()));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                    files.add(file);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            try {
+                files.parallelStream().forEach(file -> {
+                    try {
+                        Files.copy(file, tempDir.resolve(source.relativize(file).toString()));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            Files.move(tempDir, template, StandardCopyOption.ATOMIC_MOVE);
+
+            // Remove outdated templates for the same source directory
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(templateCache, prefix + "-*")) {
+                for (Path path : stream) {
+                    if (!path.equals(template) && Files.isDirectory(path)) {
+                        deleteInBackground(path);
+                    }
+                }
+            }
+        }
+        return template;
+    }
+
+    private static String fingerprint(final Path source) throws IOException {
+        final List<Path> files;
+        try (Stream<Path> stream = Files.walk(source)) {
+            files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        final StringBuilder builder = new StringBuilder();
+        for (Path file : files) {
+            builder.append(source.relativize(file))
+                    .append('|')
+                    .append(Files.size(file))
+                    .append('|')
+                    .append(Files.getLastModifiedTime(file).toMillis())
+                    .append('\n');
+        }
+        return hash(builder.toString());
+    }
+
+    private static String hash(final String value) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder result = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                result.append(String.format("%02x", b));
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteDir(final Path toDelete) throws IOException {
+        Files.walkFileTree(toDelete, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
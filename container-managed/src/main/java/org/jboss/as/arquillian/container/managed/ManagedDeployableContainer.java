@@ -7,19 +7,18 @@ package org.jboss.as.arquillian.container.managed;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import org.jboss.as.arquillian.container.CommonManagedDeployableContainer;
 import org.jboss.as.arquillian.container.ParameterUtils;
+import org.jboss.as.arquillian.container.ServerPoolLease;
 import org.jboss.logging.Logger;
 import org.wildfly.core.launcher.CommandBuilder;
 import org.wildfly.core.launcher.StandaloneCommandBuilder;
@@ -93,15 +92,33 @@ public final class ManagedDeployableContainer extends CommonManagedDeployableCon
             commandBuilder.setServerReadOnlyConfiguration(config.getReadOnlyServerConfig());
         }
 
+        final List<Path> yamlFiles = new ArrayList<>();
         if (config.getYamlConfiguration() != null) {
-            commandBuilder.setYamlFiles(findSupplementalConfigurationFiles(commandBuilder.getConfigurationDirectory(),
-                    config.getYamlConfiguration()));
+            yamlFiles.addAll(Arrays.asList(findSupplementalConfigurationFiles(
+                    commandBuilder.getConfigurationDirectory(), config.getYamlConfiguration())));
+        }
+        final Path bootDeployments = createBootDeploymentConfiguration();
+        if (bootDeployments != null) {
+            yamlFiles.add(bootDeployments);
+        }
+        if (!yamlFiles.isEmpty()) {
+            commandBuilder.setYamlFiles(yamlFiles.toArray(new Path[0]));
+        }
+
+        // Servers in a pool run concurrently and require their own port offset and server base directory
+        final ServerPoolLease serverPoolLease = getServerPoolLease();
+        if (serverPoolLease != null) {
+            commandBuilder.addJavaOption("-Djboss.socket.binding.port-offset=" + serverPoolLease.getPortOffset());
         }
 
         // Create a clean server base to run the container; ARQ-638
-        if (config.isSetupCleanServerBaseDir() || config.getCleanServerBaseDir() != null) {
+        if (config.isSetupCleanServerBaseDir() || config.getCleanServerBaseDir() != null || serverPoolLease != null) {
+            String cleanServerBaseDir = config.getCleanServerBaseDir();
+            if (cleanServerBaseDir != null && serverPoolLease != null) {
+                cleanServerBaseDir = cleanServerBaseDir + "-" + serverPoolLease.getSlot();
+            }
             try {
-                setupCleanServerDirectories(commandBuilder, config.getCleanServerBaseDir());
+                setupCleanServerDirectories(commandBuilder, cleanServerBaseDir);
             } catch (IOException e) {
                 throw new UncheckedIOException("Failed to setup the clean server directory.", e);
             }
@@ -160,7 +177,7 @@ public final class ManagedDeployableContainer extends CommonManagedDeployableCon
         if (cleanServerBaseDirPath != null) {
             cleanBase = Paths.get(cleanServerBaseDirPath);
             if (Files.exists(cleanBase)) {
-                if (!deleteDir(cleanBase)) {
+                if (!ServerDirectoryTemplates.deleteInBackground(cleanBase)) {
                     log.warnf("Clean directory %s was not empty when copied. Previous data will be lost.", cleanBase);
                 }
             }
@@ -176,53 +193,17 @@ public final class ManagedDeployableContainer extends CommonManagedDeployableCon
             throw new IllegalStateException(String.format("Base directory %s is not a directory.", cleanBase));
         }
 
+        // The templates are kept next to the clean directory so the content repository can be hard linked
+        final Path templateCache = cleanBase.toAbsolutePath().getParent().resolve(ServerDirectoryTemplates.TEMPLATE_DIR);
         final Path currentConfigDir = commandBuilder.getConfigurationDirectory();
         final Path configDir = cleanBase.resolve(CONFIG_DIR);
-        copyDir(currentConfigDir, configDir);
+        ServerDirectoryTemplates.copy(currentConfigDir, configDir, templateCache);
 
         final Path currentDataDir = commandBuilder.getBaseDirectory().resolve(DATA_DIR);
         if (Files.exists(currentDataDir)) {
-            copyDir(currentDataDir, cleanBase.resolve(DATA_DIR));
+            ServerDirectoryTemplates.copy(currentDataDir, cleanBase.resolve(DATA_DIR), templateCache);
         }
         commandBuilder.setBaseDirectory(cleanBase);
         commandBuilder.setConfigurationDirectory(configDir);
     }
-
-    private static void copyDir(final Path from, final Path to) throws IOException {
-        Files.walkFileTree(from, new SimpleFileVisitor<>() {
-            @Override
-            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
-                Files.copy(dir, to.resolve(from.relativize(dir)));
-                return FileVisitResult.CONTINUE;
-            }
-
-            @Override
-            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
-                Files.copy(file, to.resolve(from.relativize(file)));
-                return FileVisitResult.CONTINUE;
-            }
-        });
-    }
-
-    private static boolean deleteDir(final Path toDelete) throws IOException {
-        final AtomicBoolean empty = new AtomicBoolean(true);
-        Files.walkFileTree(toDelete, new SimpleFileVisitor<>() {
-            @Override
-            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
-                Files.delete(dir);
-                if (!dir.equals(toDelete)) {
-                    empty.compareAndSet(true, false);
-                }
-                return FileVisitResult.CONTINUE;
-            }
-
-            @Override
-            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
-                Files.delete(file);
-                empty.compareAndSet(true, false);
-                return FileVisitResult.CONTINUE;
-            }
-        });
-        return empty.get();
-    }
 }
@@ -6,7 +6,6 @@
 package org.jboss.as.arquillian.container.managed.setup;
 
 import java.io.IOException;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.stream.Collectors;
@@ -17,8 +16,6 @@ import javax.management.MBeanServerConnection;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 import javax.management.ReflectionException;
-import javax.management.remote.JMXConnector;
-import javax.management.remote.JMXConnectorFactory;
 
 import org.jboss.as.arquillian.api.ReloadIfRequired;
 import org.jboss.as.arquillian.api.ServerSetupTask;
@@ -50,11 +47,9 @@ public abstract class CreateModuleServerSetupTask implements ServerSetupTask {
     @Override
     public final void tearDown(final ManagementClient managementClient, final String containerId) throws Exception {
         try {
-            try (JMXConnector connector = createJmxConnector(managementClient)) {
-                unloadModule(connector.getMBeanServerConnection(), modules.stream()
-                        .map(ModuleDescription::name)
-                        .collect(Collectors.toSet()));
-            }
+            unloadModule(managementClient.getLongRunningMBeanServerConnection(), modules.stream()
+                    .map(ModuleDescription::name)
+                    .collect(Collectors.toSet()));
             for (ModuleDescription module : modules) {
                 module.close();
             }
@@ -114,9 +109,4 @@ public abstract class CreateModuleServerSetupTask implements ServerSetupTask {
         }
     }
 
-    private static JMXConnector createJmxConnector(final ManagementClient managementClient) throws IOException {
-        final Map<String, Object> env = Map.of("org.jboss.remoting-jmx.timeout", "600");
-        return JMXConnectorFactory.connect(managementClient.getRemoteJMXURL(), env);
-    }
-
 }
@@ -6,7 +6,11 @@ package org.jboss.as.arquillian.protocol.jmx;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -15,13 +19,19 @@ import org.jboss.arquillian.container.spi.Container;
 import org.jboss.arquillian.container.spi.client.container.DeployableContainer;
 import org.jboss.arquillian.container.spi.context.annotation.ContainerScoped;
 import org.jboss.arquillian.container.spi.event.container.BeforeDeploy;
+import org.jboss.arquillian.container.spi.event.container.BeforeStart;
 import org.jboss.arquillian.container.spi.event.container.BeforeStop;
 import org.jboss.arquillian.core.api.Instance;
 import org.jboss.arquillian.core.api.annotation.Inject;
 import org.jboss.arquillian.core.api.annotation.Observes;
+import org.jboss.as.arquillian.container.ArchiveDeployer;
+import org.jboss.as.arquillian.container.CommonManagedDeployableContainer;
 import org.jboss.as.arquillian.container.ManagementClient;
 import org.jboss.as.arquillian.container.NetworkUtils;
 import org.jboss.as.arquillian.protocol.jmx.ExtendedJMXProtocol.ServiceArchiveHolder;
+import org.jboss.as.controller.client.helpers.ClientConstants;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.dmr.ModelNode;
 import org.jboss.logging.Logger;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
@@ -41,20 +51,39 @@ public class ArquillianServiceDeployer {
     @ContainerScoped
     private Instance<ManagementClient> managementClientInstance;
 
+    @Inject
+    @ContainerScoped
+    private Instance<ArchiveDeployer> archiveDeployerInstance;
+
     private static final Logger log = Logger.getLogger(ArquillianServiceDeployer.class);
 
+    private static final String SERVICE_ARCHIVE_NAME = "arquillian-service";
+
     private Set<String> serviceArchiveDeployed = new HashSet<String>();
 
+    // Containers the cached service archive was deployed to, the deployment is not removed when the container stops
+    private Set<String> serviceArchiveRetained = new HashSet<String>();
+
+    // Containers which were started with the cached service archive as a boot deployment
+    private Set<String> bootDeployed = new HashSet<String>();
+
     public synchronized void doServiceDeploy(@Observes(precedence = 1) BeforeDeploy event, Container container,
             ServiceArchiveHolder archiveHolder) {
         // already deployed?
-        if (serviceArchiveDeployed.contains(container.getName())) {
+        if (serviceArchiveDeployed.contains(container.getName())
+                || serviceArchiveRetained.contains(container.getName())) {
             archiveHolder.deploymentExistsAndRemove(event.getDeployment().getName()); // cleanup
             return;
         }
 
         // only deploy the service if the deployment has been enriched by the jmx-as7 protocol
         if (archiveHolder.deploymentExistsAndRemove(event.getDeployment().getName())) {
+            // the server was started with the current service archive, the version check was done when it was deployed
+            if (bootDeployed.contains(container.getName()) && isBootDeploymentCurrent(container, archiveHolder)) {
+                log.infof("Using the arquillian service deployed at boot: %s", archiveHolder.getArchive());
+                serviceArchiveRetained.add(container.getName());
+                return;
+            }
             try {
                 final ManagementClient client = managementClientInstance.get();
                 // As of WildFly Arquillian 3.0.0 a minimum of WildFly 13 or JBoss EAP 7.2 is required. This is due to the
@@ -88,19 +117,18 @@ public class ArquillianServiceDeployer {
             JavaArchive serviceArchive = (JavaArchive) archiveHolder.getArchive();
             try {
                 log.infof("Deploy arquillian service: %s", serviceArchive);
-                final Map<String, String> props = container.getContainerConfiguration().getContainerProperties();
                 // MASSIVE HACK
                 // write the management connection props to the archive, so we can access them from the server
-                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-                ObjectOutputStream out = new ObjectOutputStream(bytes);
-                out.writeObject(props.get("managementPort"));
-                out.writeObject(NetworkUtils.formatPossibleIpv6Address(props.get("managementAddress")));
-                out.writeObject(NetworkUtils.formatPossibleIpv6Address(props.get("managementProtocol")));
-                out.writeObject(props.get("authenticationConfig"));
-                out.close();
-                serviceArchive.addAsManifestResource(new ByteArrayAsset(bytes.toByteArray()),
+                final byte[] connectionProps = getConnectionProperties(container);
+                serviceArchive.addAsManifestResource(new ByteArrayAsset(connectionProps),
                         "org.jboss.as.managementConnectionProps");
 
+                if (archiveHolder.getCacheKey() != null && archiveDeployerInstance.get() != null) {
+                    deployCached(archiveHolder.getCacheKey(), connectionProps, serviceArchive);
+                    serviceArchiveRetained.add(container.getName());
+                    return;
+                }
+                replaceRetainedDeployment(serviceArchive.getName());
                 DeployableContainer<?> deployableContainer = container.getDeployableContainer();
                 deployableContainer.deploy(serviceArchive);
                 serviceArchiveDeployed.add(container.getName());
@@ -110,7 +138,134 @@ public class ArquillianServiceDeployer {
         }
     }
 
+    /**
+     * Adds the most recently deployed content of the service archive as a boot deployment of managed containers, if
+     * enabled with the {@code wildfly.arquillian.service.boot-deploy} system property. The service archive cache must
+     * be enabled as well. If the content differs from the current service archive, the boot deployment is replaced when
+     * the service archive is deployed.
+     */
+    public synchronized void addBootDeployment(@Observes BeforeStart event, Container container) {
+        if (!Boolean.getBoolean("wildfly.arquillian.service.boot-deploy")) {
+            return;
+        }
+        final ServiceArchiveCache cache = ServiceArchiveCache.getInstance();
+        final DeployableContainer<?> deployableContainer = container.getDeployableContainer();
+        if (cache == null || !(deployableContainer instanceof CommonManagedDeployableContainer)) {
+            log.debugf("The arquillian service cannot be deployed at boot of container %s", container.getName());
+            return;
+        }
+        try {
+            final Path content = cache.findLatestDeploymentContent(getConnectionProperties(container));
+            if (content != null) {
+                ((CommonManagedDeployableContainer<?>) deployableContainer).addBootDeployment(SERVICE_ARCHIVE_NAME,
+                        content);
+                bootDeployed.add(container.getName());
+                log.debugf("Deploying arquillian service %s at boot of container %s", content, container.getName());
+            }
+        } catch (IOException e) {
+            log.debugf(e, "Failed to add the arquillian service as a boot deployment of %s", container.getName());
+        }
+    }
+
+    private boolean isBootDeploymentCurrent(final Container container, final ServiceArchiveHolder archiveHolder) {
+        final ServiceArchiveCache cache = ServiceArchiveCache.getInstance();
+        if (cache == null || archiveHolder.getCacheKey() == null || managementClientInstance.get() == null) {
+            return false;
+        }
+        try {
+            final Path content = cache.findDeploymentContent(archiveHolder.getCacheKey(),
+                    getConnectionProperties(container));
+            return content != null && isDeployed(SERVICE_ARCHIVE_NAME, null, content);
+        } catch (IOException e) {
+            log.debugf(e, "Failed to check the arquillian service deployed at boot of %s", container.getName());
+            return false;
+        }
+    }
+
+    /**
+     * Deploys the cached content of the service archive. If the server already has the same content deployed, from a
+     * previous test run, the deployment is reused. The deployment is left on the server when the container is stopped so
+     * subsequent test runs can reuse it too.
+     */
+    private void deployCached(final String cacheKey, final byte[] connectionProps, final Archive<?> serviceArchive)
+            throws Exception {
+        final ServiceArchiveCache cache = ServiceArchiveCache.getInstance();
+        final Path content = cache.getDeploymentContent(cacheKey, connectionProps, serviceArchive);
+        final String name = serviceArchive.getName();
+        final ArchiveDeployer deployer = archiveDeployerInstance.get();
+        if (deployer.hasDeployment(name)) {
+            if (isDeployed(name, ServiceArchiveCache.contentHash(content), null)) {
+                log.infof("Reusing the deployed arquillian service: %s", serviceArchive);
+                return;
+            }
+            deployer.undeploy(name);
+        }
+        try (InputStream in = Files.newInputStream(content)) {
+            deployer.deploy(name, in);
+        }
+    }
+
+    /**
+     * Removes a service archive which was left on the server, for example by a previous test run with the cache enabled,
+     * so the current service archive can be deployed.
+     */
+    private void replaceRetainedDeployment(final String name) throws Exception {
+        final ArchiveDeployer deployer = archiveDeployerInstance.get();
+        if (deployer != null && deployer.hasDeployment(name)) {
+            log.infof("Replacing the arquillian service deployed on the server: %s", name);
+            deployer.undeploy(name);
+        }
+    }
+
+    /**
+     * Checks whether the deployment is enabled and has either the managed content with the hash or the unmanaged
+     * content at the path.
+     */
+    private boolean isDeployed(final String name, final byte[] hash, final Path path) throws IOException {
+        final ModelNode address = Operations.createAddress(ClientConstants.DEPLOYMENT, name);
+        final ModelNode op = Operations.createReadResourceOperation(address);
+        final ModelNode result = managementClientInstance.get().getControllerClient().execute(op);
+        if (!Operations.isSuccessfulOutcome(result)) {
+            return false;
+        }
+        final ModelNode deployment = Operations.readResult(result);
+        if (!deployment.hasDefined("enabled") || !deployment.get("enabled").asBoolean()
+                || !deployment.hasDefined(ClientConstants.CONTENT)) {
+            return false;
+        }
+        for (ModelNode item : deployment.get(ClientConstants.CONTENT).asList()) {
+            if (hash != null && item.hasDefined("hash") && Arrays.equals(hash, item.get("hash").asBytes())) {
+                return true;
+            }
+            if (path != null && item.hasDefined("path") && path.toString().equals(item.get("path").asString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] getConnectionProperties(final Container container) throws IOException {
+        final Map<String, String> props = container.getContainerConfiguration().getContainerProperties();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(props.get("managementPort"));
+            out.writeObject(NetworkUtils.formatPossibleIpv6Address(props.get("managementAddress")));
+            out.writeObject(NetworkUtils.formatPossibleIpv6Address(props.get("managementProtocol")));
+            out.writeObject(props.get("authenticationConfig"));
+        }
+        return bytes.toByteArray();
+    }
+
     public synchronized void undeploy(@Observes BeforeStop event, Container container, ServiceArchiveHolder archiveHolder) {
+        final boolean retained = serviceArchiveRetained.remove(container.getName());
+        if (bootDeployed.remove(container.getName()) && retained && archiveDeployerInstance.get() != null) {
+            // the service archive is added again at the next boot, it must not be persisted in the configuration
+            try {
+                archiveDeployerInstance.get().undeploy(SERVICE_ARCHIVE_NAME, false);
+            } catch (Throwable th) {
+                log.debugf(th, "Cannot undeploy arquillian service from %s", container.getName());
+            }
+        }
         // clean up if we deployed to this container?
         if (serviceArchiveDeployed.contains(container.getName())) {
             try {
@@ -0,0 +1,47 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.protocol.jmx;
+
+import java.util.Map;
+
+/**
+ * The management interface of the in-container runner which executes several test methods of a test class in a single
+ * invocation.
+ * <p>
+ * The result of each test method is sent, as soon as the method has finished, as a notification with the type
+ * {@link #TEST_RESULT_NOTIFICATION} followed by {@code "."} and the batch id. The message of the notification is the
+ * name of the test method and the user data is the serialized {@link org.jboss.arquillian.test.spi.TestResult}. As
+ * notifications may be delivered after the invocation has returned, the results are also returned by the invocation.
+ * </p>
+ *
+ * @see ExtendedJMXProtocolConfiguration#isBatchTestMethods()
+ */
+public interface BatchTestRunnerMBean {
+
+    /**
+     * The name the runner is registered with.
+     */
+    String OBJECT_NAME = "jboss.arquillian:service=jmx-test-runner,type=batch";
+
+    /**
+     * The prefix of the notification type used to send the test results.
+     */
+    String TEST_RESULT_NOTIFICATION = "jboss.arquillian.test.result";
+
+    /**
+     * Runs the test methods of the test class in the order given. The test methods are run in the same context, the
+     * contexts of the deployment are only set up once for all test methods.
+     *
+     * @param batchId       the id used in the type of the notifications sent for the test results
+     * @param className     the name of the test class
+     * @param methodNames   the names of the test methods to run
+     * @param protocolProps the protocol properties
+     *
+     * @return the serialized results keyed by the names of the test methods which were run, test methods not supported
+     *             by the deployment of the first test method are not run
+     */
+    Map<String, byte[]> runTestMethods(String batchId, String className, String[] methodNames,
+            Map<String, String> protocolProps);
+}
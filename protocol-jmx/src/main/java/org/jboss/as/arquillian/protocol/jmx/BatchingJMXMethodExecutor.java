@@ -0,0 +1,352 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.protocol.jmx;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import javax.management.MBeanServerConnection;
+import javax.management.NotificationFilterSupport;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+
+import org.jboss.arquillian.container.test.spi.ContainerMethodExecutor;
+import org.jboss.arquillian.test.spi.TestMethodExecutor;
+import org.jboss.arquillian.test.spi.TestResult;
+import org.jboss.logging.Logger;
+
+/**
+ * A method executor which runs all in-container test methods of a test class when the first test method is executed.
+ * The results of the other test methods are returned when they are executed.
+ * <p>
+ * Test methods which are not part of the batch, or could not be run in the batch, are executed with the delegate.
+ * </p>
+ * <p>
+ * The filters of the test runner are not visible to the executor. A batch only contains test methods with the same
+ * tags, categories and groups as the test method executed first, so tag based filters select the whole batch or none
+ * of it. If a method filter is passed with the {@code test} or {@code it.test} system property no batch is run. Other
+ * filters, for example an IDE running a single test method, are not detected and the other in-container test methods
+ * of the test class are run as well.
+ * </p>
+ *
+ * @see ExtendedJMXProtocolConfiguration#isBatchTestMethods()
+ */
+class BatchingJMXMethodExecutor implements ContainerMethodExecutor {
+    private static final Logger log = Logger.getLogger(BatchingJMXMethodExecutor.class);
+
+    private static final Set<String> TEST_ANNOTATIONS = Set.of("org.junit.Test", "org.junit.jupiter.api.Test",
+            "org.testng.annotations.Test");
+    private static final Set<String> DISABLED_ANNOTATIONS = Set.of("org.junit.Ignore",
+            "org.junit.jupiter.api.Disabled");
+    private static final String RUN_AS_CLIENT = "org.jboss.arquillian.container.test.api.RunAsClient";
+    private static final String OPERATE_ON_DEPLOYMENT = "org.jboss.arquillian.container.test.api.OperateOnDeployment";
+    private static final String IN_SEQUENCE = "org.jboss.arquillian.junit.InSequence";
+    private static final Set<String> TAG_ANNOTATIONS = Set.of("org.junit.jupiter.api.Tag",
+            "org.junit.experimental.categories.Category");
+    private static final String TAGS = "org.junit.jupiter.api.Tags";
+    private static final String TESTNG_TEST = "org.testng.annotations.Test";
+    private static final List<String> METHOD_FILTER_PROPERTIES = List.of("test", "it.test");
+
+    private final ContainerMethodExecutor delegate;
+    private final MBeanServerConnection connection;
+    private final Map<String, String> protocolProps;
+    private final Map<String, TestMethodBatch> batches;
+
+    /**
+     * Creates a new executor.
+     *
+     * @param delegate      the executor used for test methods which are not run in a batch
+     * @param connection    the connection to the server
+     * @param protocolProps the protocol properties
+     * @param batches       the batches keyed by the test class name, shared between the executors of a protocol
+     */
+    BatchingJMXMethodExecutor(final ContainerMethodExecutor delegate, final MBeanServerConnection connection,
+            final Map<String, String> protocolProps, final Map<String, TestMethodBatch> batches) {
+        this.delegate = delegate;
+        this.connection = connection;
+        this.protocolProps = protocolProps;
+        this.batches = batches;
+    }
+
+    @Override
+    public TestResult invoke(final TestMethodExecutor testMethodExecutor) {
+        final Class<?> testClass = testMethodExecutor.getInstance().getClass();
+        final Method method = testMethodExecutor.getMethod();
+        TestMethodBatch batch = batches.get(testClass.getName());
+        if (batch == null || batch.connection != connection) {
+            // Only the batch of the current test class is kept
+            batches.clear();
+            batch = null;
+            final List<String> methodNames = findBatchMethods(testClass, method);
+            if (methodNames.size() > 1) {
+                batch = new TestMethodBatch(connection, testClass.getName(), methodNames, protocolProps);
+                batches.put(testClass.getName(), batch);
+                batch.start();
+            }
+        }
+        if (batch != null) {
+            final byte[] result = batch.awaitResult(method.getName());
+            if (result != null) {
+                try {
+                    return toTestResult(result);
+                } catch (IOException | ClassNotFoundException e) {
+                    return TestResult.failed(e);
+                }
+            }
+        }
+        return delegate.invoke(testMethodExecutor);
+    }
+
+    /**
+     * Returns the names of the test methods to run in a batch. The test method executed is first, followed by the other
+     * in-container test methods which operate on the same deployment.
+     * <p>
+     * No batch is run if the test class has a test method which runs on the client, as the batch would run the
+     * in-container test methods before the client test method regardless of their sequence. The batch also ends at the
+     * first test method with a sequence which cannot be run in the batch, for example because it operates on another
+     * deployment, so the test methods following it are not run before it.
+     * </p>
+     */
+    static List<String> findBatchMethods(final Class<?> testClass, final Method current) {
+        if (findAnnotation(testClass, RUN_AS_CLIENT) != null || hasMethodFilter()) {
+            return List.of();
+        }
+        final Object deployment = annotationValue(current, OPERATE_ON_DEPLOYMENT);
+        final Set<String> tags = findTags(current);
+        final Set<String> names = new HashSet<>();
+        names.add(current.getName());
+        final List<Method> methods = new ArrayList<>();
+        for (Class<?> c = testClass; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                if (!isTest(method)) {
+                    continue;
+                }
+                if (findAnnotation(method, RUN_AS_CLIENT) != null) {
+                    return List.of();
+                }
+                if (!isDisabled(method) && names.add(method.getName())) {
+                    methods.add(method);
+                }
+            }
+        }
+        methods.sort(Comparator.comparingInt(BatchingJMXMethodExecutor::sequence));
+        final List<String> result = new ArrayList<>();
+        result.add(current.getName());
+        for (Method method : methods) {
+            if (Objects.equals(deployment, annotationValue(method, OPERATE_ON_DEPLOYMENT))
+                    && tags.equals(findTags(method))) {
+                result.add(method.getName());
+            } else if (sequence(method) != Integer.MAX_VALUE) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isTest(final Method method) {
+        for (Annotation annotation : method.getAnnotations()) {
+            if (TEST_ANNOTATIONS.contains(annotation.annotationType().getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDisabled(final Method method) {
+        for (Annotation annotation : method.getAnnotations()) {
+            if (DISABLED_ANNOTATIONS.contains(annotation.annotationType().getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the test run is limited to single test methods, e.g. {@code -Dtest=SomeTest#someMethod}.
+     */
+    private static boolean hasMethodFilter() {
+        for (String name : METHOD_FILTER_PROPERTIES) {
+            final String value = System.getProperty(name);
+            if (value != null && value.contains("#")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the tags, categories and groups declared on the test method. Tags declared on the test class are the same
+     * for all test methods and are ignored.
+     */
+    private static Set<String> findTags(final Method method) {
+        final Set<String> tags = new HashSet<>();
+        for (Annotation annotation : method.getAnnotations()) {
+            final String name = annotation.annotationType().getName();
+            if (TAG_ANNOTATIONS.contains(name) || TAGS.equals(name)) {
+                addTags(annotationValue(annotation, "value"), tags);
+            } else if (TESTNG_TEST.equals(name)) {
+                addTags(annotationValue(annotation, "groups"), tags);
+            }
+        }
+        return tags;
+    }
+
+    private static void addTags(final Object value, final Set<String> tags) {
+        if (value instanceof Object[]) {
+            for (Object element : (Object[]) value) {
+                addTags(element, tags);
+            }
+        } else if (value instanceof Annotation) {
+            // A repeated @Tag
+            addTags(annotationValue((Annotation) value, "value"), tags);
+        } else if (value instanceof Class) {
+            tags.add(((Class<?>) value).getName());
+        } else if (value != null) {
+            tags.add(value.toString());
+        }
+    }
+
+    private static int sequence(final Method method) {
+        final Object value = annotationValue(method, IN_SEQUENCE);
+        return value instanceof Integer ? (Integer) value : Integer.MAX_VALUE;
+    }
+
+    private static Annotation findAnnotation(final AnnotatedElement element, final String annotationName) {
+        for (Annotation annotation : element.getAnnotations()) {
+            if (annotation.annotationType().getName().equals(annotationName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private static Object annotationValue(final AnnotatedElement element, final String annotationName) {
+        final Annotation annotation = findAnnotation(element, annotationName);
+        if (annotation == null) {
+            return null;
+        }
+        return annotationValue(annotation, "value");
+    }
+
+    private static Object annotationValue(final Annotation annotation, final String attributeName) {
+        try {
+            return annotation.annotationType().getMethod(attributeName).invoke(annotation);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static TestResult toTestResult(final byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (TestResult) in.readObject();
+        }
+    }
+
+    /**
+     * The test methods of a test class which are run in a single invocation.
+     */
+    static class TestMethodBatch {
+        private final MBeanServerConnection connection;
+        private final String className;
+        private final List<String> methodNames;
+        private final Map<String, String> protocolProps;
+        private final Map<String, CompletableFuture<byte[]>> results;
+        private final Set<String> consumed;
+
+        private TestMethodBatch(final MBeanServerConnection connection, final String className,
+                final List<String> methodNames, final Map<String, String> protocolProps) {
+            this.connection = connection;
+            this.className = className;
+            this.methodNames = methodNames;
+            this.protocolProps = protocolProps;
+            final Map<String, CompletableFuture<byte[]>> results = new LinkedHashMap<>();
+            for (String methodName : methodNames) {
+                results.put(methodName, new CompletableFuture<>());
+            }
+            this.results = Collections.unmodifiableMap(results);
+            consumed = ConcurrentHashMap.newKeySet();
+        }
+
+        private void start() {
+            final Thread thread = new Thread(this::run, "arquillian-batch-" + className);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Waits for the result of the test method. A result is only returned once.
+         *
+         * @return the serialized result or {@code null} if the test method was not run in the batch
+         */
+        private byte[] awaitResult(final String methodName) {
+            final CompletableFuture<byte[]> result = results.get(methodName);
+            if (result == null || !consumed.add(methodName)) {
+                return null;
+            }
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                return null;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void run() {
+            final String batchId = UUID.randomUUID().toString();
+            final NotificationFilterSupport filter = new NotificationFilterSupport();
+            filter.enableType(BatchTestRunnerMBean.TEST_RESULT_NOTIFICATION + "." + batchId);
+            final NotificationListener listener = (notification, handback) -> {
+                final CompletableFuture<byte[]> result = results.get(notification.getMessage());
+                if (result != null) {
+                    result.complete((byte[]) notification.getUserData());
+                }
+            };
+            try {
+                final ObjectName objectName = new ObjectName(BatchTestRunnerMBean.OBJECT_NAME);
+                connection.addNotificationListener(objectName, listener, filter, null);
+                try {
+                    final Object[] params = { batchId, className, methodNames.toArray(new String[0]), protocolProps };
+                    final String[] signature = { String.class.getName(), String.class.getName(),
+                            String[].class.getName(), Map.class.getName() };
+                    final Map<String, byte[]> returned = (Map<String, byte[]>) connection.invoke(objectName,
+                            "runTestMethods", params, signature);
+                    returned.forEach((methodName, bytes) -> {
+                        final CompletableFuture<byte[]> result = results.get(methodName);
+                        if (result != null) {
+                            result.complete(bytes);
+                        }
+                    });
+                } finally {
+                    connection.removeNotificationListener(objectName, listener, filter, null);
+                }
+            } catch (Exception e) {
+                log.debugf(e, "Failed to run the test methods of %s in a batch", className);
+            } finally {
+                // Test methods which were not run are executed individually
+                results.values().forEach(result -> result.complete(null));
+            }
+        }
+    }
+}
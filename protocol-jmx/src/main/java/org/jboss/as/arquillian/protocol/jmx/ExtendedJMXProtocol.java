@@ -4,10 +4,24 @@
  */
 package org.jboss.as.arquillian.protocol.jmx;
 
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.management.MBeanServerConnection;
+
+import org.jboss.arquillian.container.spi.client.protocol.metadata.JMXContext;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
+import org.jboss.arquillian.container.test.spi.ContainerMethodExecutor;
 import org.jboss.arquillian.container.test.spi.client.deployment.DeploymentPackager;
+import org.jboss.arquillian.container.test.spi.command.CommandCallback;
 import org.jboss.arquillian.core.api.InstanceProducer;
 import org.jboss.arquillian.core.api.annotation.Inject;
 import org.jboss.arquillian.protocol.jmx.AbstractJMXProtocol;
@@ -26,6 +40,8 @@ public class ExtendedJMXProtocol extends AbstractJMXProtocol<ExtendedJMXProtocol
     @SuiteScoped
     private InstanceProducer<ServiceArchiveHolder> archiveHolderInst;
 
+    private final Map<String, BatchingJMXMethodExecutor.TestMethodBatch> batches = new ConcurrentHashMap<>();
+
     public Class<ExtendedJMXProtocolConfiguration> getProtocolConfigurationClass() {
         return ExtendedJMXProtocolConfiguration.class;
     }
@@ -38,6 +54,43 @@ public class ExtendedJMXProtocol extends AbstractJMXProtocol<ExtendedJMXProtocol
         return new JMXProtocolPackager(archiveHolderInst.get());
     }
 
+    @Override
+    public ContainerMethodExecutor getExecutor(final ExtendedJMXProtocolConfiguration protocolConfiguration,
+            final ProtocolMetaData metaData, final CommandCallback callback) {
+        final ContainerMethodExecutor executor = super.getExecutor(protocolConfiguration, metaData, callback);
+        if (protocolConfiguration.isBatchTestMethods() && metaData.hasContext(JMXContext.class)) {
+            final MBeanServerConnection connection = metaData.getContexts(JMXContext.class).iterator().next()
+                    .getConnection();
+            return new BatchingJMXMethodExecutor(executor, connection, getProtocolProperties(protocolConfiguration),
+                    batches);
+        }
+        return executor;
+    }
+
+    /**
+     * Returns the properties of the configuration in the same way the {@link AbstractJMXProtocol} passes them to the
+     * in-container test runner.
+     */
+    private static Map<String, String> getProtocolProperties(final ExtendedJMXProtocolConfiguration config) {
+        final Map<String, String> protocolProps = new HashMap<>();
+        try {
+            final BeanInfo beanInfo = Introspector.getBeanInfo(config.getClass());
+            for (PropertyDescriptor propertyDescriptor : beanInfo.getPropertyDescriptors()) {
+                final Method readMethod = propertyDescriptor.getReadMethod();
+                if (readMethod == null) {
+                    continue;
+                }
+                final Object value = readMethod.invoke(config);
+                if (value != null) {
+                    protocolProps.put(propertyDescriptor.getName(), String.valueOf(value));
+                }
+            }
+        } catch (IntrospectionException | ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot obtain protocol config", e);
+        }
+        return protocolProps;
+    }
+
     @Override
     public String getProtocolName() {
         return "jmx-as7";
@@ -55,6 +108,11 @@ public class ExtendedJMXProtocol extends AbstractJMXProtocol<ExtendedJMXProtocol
          */
         private Set<String> preparedDeployments = new HashSet<String>();
 
+        /*
+         * The key of the serviceArchive in the ServiceArchiveCache, null if the archive is not cached.
+         */
+        private String cacheKey;
+
         Archive<?> getArchive() {
             return serviceArchive;
         }
@@ -63,6 +121,14 @@ public class ExtendedJMXProtocol extends AbstractJMXProtocol<ExtendedJMXProtocol
             this.serviceArchive = serviceArchive;
         }
 
+        String getCacheKey() {
+            return cacheKey;
+        }
+
+        void setCacheKey(String cacheKey) {
+            this.cacheKey = cacheKey;
+        }
+
         void addPreparedDeployment(String deploymentName) {
             if (deploymentName != null) {
                 preparedDeployments.add(deploymentName);
@@ -17,6 +17,7 @@ public class ExtendedJMXProtocolConfiguration extends JMXProtocolConfiguration {
     public static final String PROPERTY_ENABLE_TCCL = "enableThreadContextClassLoader";
 
     private boolean enableThreadContextClassLoader = true;
+    private boolean batchTestMethods;
 
     public boolean isEnableThreadContextClassLoader() {
         return enableThreadContextClassLoader;
@@ -25,4 +26,36 @@ public class ExtendedJMXProtocolConfiguration extends JMXProtocolConfiguration {
     public void setEnableThreadContextClassLoader(boolean enableThreadContextClassLoader) {
         this.enableThreadContextClassLoader = enableThreadContextClassLoader;
     }
+
+    /**
+     * Indicates whether the in-container test methods of a test class are run in a single invocation. The test methods
+     * are run when the first test method of the test class is executed and the results are returned as each test method
+     * finishes.
+     * <p>
+     * The first test method executed is run first, the remaining test methods are run in their {@code @InSequence}
+     * order, otherwise in the order they are found. Test classes with a {@code @RunAsClient} test method are not run
+     * in a batch, and a batch ends at the first test method with a sequence which operates on another deployment.
+     * Test methods which use in-container commands, for example the {@code Deployer}, should not be run in a batch.
+     * </p>
+     * <p>
+     * Filters of the test runner cannot be seen by the protocol. Test methods with different tags, categories or groups
+     * are not run in the same batch and method filters passed with the {@code test} system property disable batching.
+     * Other filters, such as an IDE running a single test method, are not detected: all in-container test methods of
+     * the test class are run on the server. Only enable batching when whole test classes are run.
+     * </p>
+     *
+     * @return {@code true} if the test methods are run in a batch, otherwise {@code false}
+     */
+    public boolean isBatchTestMethods() {
+        return batchTestMethods;
+    }
+
+    /**
+     * Sets whether the in-container test methods of a test class are run in a single invocation.
+     *
+     * @param batchTestMethods {@code true} to run the test methods in a batch
+     */
+    public void setBatchTestMethods(boolean batchTestMethods) {
+        this.batchTestMethods = batchTestMethods;
+    }
 }
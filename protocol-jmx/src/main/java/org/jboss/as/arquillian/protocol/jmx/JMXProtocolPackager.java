@@ -12,7 +12,9 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -35,6 +37,7 @@ import org.jboss.as.arquillian.container.Authentication;
 import org.jboss.as.arquillian.container.ManagementClient;
 import org.jboss.as.arquillian.container.NetworkUtils;
 import org.jboss.as.arquillian.protocol.jmx.ExtendedJMXProtocol.ServiceArchiveHolder;
+import org.jboss.as.arquillian.service.ArquillianDeploymentActivator;
 import org.jboss.as.arquillian.service.ArquillianService;
 import org.jboss.as.arquillian.service.DependenciesProvider;
 import org.jboss.as.arquillian.service.InContainerManagementClientExtension;
@@ -45,13 +48,17 @@ import org.jboss.msc.service.ServiceActivator;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ArchivePath;
 import org.jboss.shrinkwrap.api.ArchivePaths;
+import org.jboss.shrinkwrap.api.Filter;
 import org.jboss.shrinkwrap.api.Node;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
 import org.jboss.shrinkwrap.api.asset.Asset;
 import org.jboss.shrinkwrap.api.asset.StringAsset;
 import org.jboss.shrinkwrap.api.asset.UrlAsset;
 import org.jboss.shrinkwrap.api.container.ManifestContainer;
+import org.jboss.shrinkwrap.api.spec.EnterpriseArchive;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
 import org.jboss.shrinkwrap.descriptor.api.Descriptors;
 import org.jboss.shrinkwrap.descriptor.api.spec.se.manifest.ManifestDescriptor;
 
@@ -86,6 +93,9 @@ public class JMXProtocolPackager implements DeploymentPackager {
 
     private static final Logger log = Logger.getLogger(JMXProtocolPackager.class);
 
+    private static final String SERVICE_ACTIVATOR_PATH = "META-INF/services/" + ServiceActivator.class.getName();
+    private static final Filter<ArchivePath> ROOT_FILTER = (p) -> p.getParent() == null || p.getParent().get().equals("/");
+
     private ServiceArchiveHolder archiveHolder;
 
     JMXProtocolPackager(ServiceArchiveHolder archiveHolder) {
@@ -99,19 +109,40 @@ public class JMXProtocolPackager implements DeploymentPackager {
         if (archiveHolder.getArchive() == null) {
             try {
                 Collection<Archive<?>> auxArchives = testDeployment.getAuxiliaryArchives();
-                JavaArchive archive = generateArquillianServiceArchive(auxArchives);
+                final ServiceArchiveCache cache = ServiceArchiveCache.getInstance();
+                String cacheKey = null;
+                JavaArchive archive = null;
+                if (cache != null) {
+                    final List<Class<?>> processorTypes = new ArrayList<>();
+                    for (ProtocolArchiveProcessor processor : protocolProcessors) {
+                        processorTypes.add(processor.getClass());
+                    }
+                    cacheKey = cache.createKey(auxArchives, processorTypes);
+                    if (cacheKey != null) {
+                        archive = cache.load(cacheKey);
+                    }
+                }
+                if (archive == null) {
+                    archive = generateArquillianServiceArchive(auxArchives);
 
-                for (ProtocolArchiveProcessor processor : protocolProcessors) {
-                    processor.process(testDeployment, archive);
+                    for (ProtocolArchiveProcessor processor : protocolProcessors) {
+                        processor.process(testDeployment, archive);
+                    }
+                    if (cacheKey != null) {
+                        cache.store(cacheKey, archive);
+                    }
                 }
 
                 archiveHolder.setArchive(archive);
+                archiveHolder.setCacheKey(cacheKey);
             } catch (Exception ex) {
                 throw new IllegalStateException("Cannot generate arquillian service", ex);
             }
         }
         addModulesManifestDependencies(appArchive);
+        addDeploymentActivator(appArchive);
         TestDescription.addTestDescription(testDeployment);
+        TestIndex.addTestIndex(testDeployment);
         archiveHolder.addPreparedDeployment(testDeployment.getDeploymentName());
         return appArchive;
     }
@@ -125,7 +156,7 @@ public class JMXProtocolPackager implements DeploymentPackager {
         archive.addPackage(AbstractJMXProtocol.class.getPackage());
         // add the classes required for server setup
         archive.addClasses(ServerSetup.class, ServerSetupTask.class, ManagementClient.class, Authentication.class,
-                NetworkUtils.class, TestDescription.class);
+                NetworkUtils.class, TestDescription.class, TestIndex.class, BatchTestRunnerMBean.class);
 
         final Set<ModuleIdentifier> archiveDependencies = new LinkedHashSet<ModuleIdentifier>();
         archiveDependencies.add(ModuleIdentifier.create("org.jboss.as.jmx"));
@@ -215,6 +246,55 @@ public class JMXProtocolPackager implements DeploymentPackager {
         return archive;
     }
 
+    /**
+     * Registers the {@link ArquillianDeploymentActivator} as a service activator of the deployment. The activator
+     * registers the deployment with the Arquillian service while the deployment is being installed. For EAR's the
+     * activator is registered for each module and, for test classes in the libraries, for the EAR itself.
+     *
+     * @param appArchive The Archive to deploy
+     */
+    private void addDeploymentActivator(Archive<?> appArchive) {
+        if (appArchive instanceof EnterpriseArchive) {
+            final EnterpriseArchive ear = (EnterpriseArchive) appArchive;
+            for (Node module : ear.getContent(ROOT_FILTER).values()) {
+                if (module.getAsset() instanceof ArchiveAsset) {
+                    addDeploymentActivator(((ArchiveAsset) module.getAsset()).getArchive());
+                }
+            }
+            final JavaArchive lib = ShrinkWrap.create(JavaArchive.class, "arquillian-deployment-activator.jar");
+            addServiceActivator(lib, SERVICE_ACTIVATOR_PATH);
+            ear.addAsLibrary(lib);
+        } else if (appArchive instanceof WebArchive) {
+            addServiceActivator(appArchive, "WEB-INF/classes/" + SERVICE_ACTIVATOR_PATH);
+        } else {
+            addServiceActivator(appArchive, SERVICE_ACTIVATOR_PATH);
+        }
+    }
+
+    private static void addServiceActivator(final Archive<?> archive, final String path) {
+        final String activator = ArquillianDeploymentActivator.class.getName();
+        final StringBuilder content = new StringBuilder();
+        final Node node = archive.get(path);
+        if (node != null && node.getAsset() != null) {
+            // Keep any activators of the deployment itself
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(node.getAsset().openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (activator.equals(line.trim())) {
+                        return;
+                    }
+                    content.append(line).append('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            archive.delete(path);
+        }
+        content.append(activator).append('\n');
+        archive.add(new StringAsset(content.toString()), path);
+    }
+
     /**
      * Adds the Manifest Attribute "Dependencies" with the required dependencies for JBoss Modules to depend on the Arquillian
      * Service.
@@ -0,0 +1,323 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.protocol.jmx;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.jboss.arquillian.protocol.jmx.AbstractJMXProtocol;
+import org.jboss.as.arquillian.container.ManagementClient;
+import org.jboss.logging.Logger;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+import org.jboss.shrinkwrap.api.importer.ZipImporter;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+
+/**
+ * A cache, on disk, of the generated {@code arquillian-service} archive. The archive is keyed by a hash of the
+ * contents of the auxiliary archives, the protocol archive processors and the libraries the archive is generated from,
+ * so it is shared between test JVMs with the same class path.
+ * <p>
+ * Protocol archive processors are keyed by their class name and the JAR they are loaded from, the content they add to
+ * the archive is not part of the key. A processor which adds different content depending on the test deployment or
+ * on configuration, for example system properties, must not be used with the cache. The archive is not cached if a
+ * processor is not loaded from a JAR.
+ * </p>
+ * <p>
+ * The content deployed to a container is cached as well. As the same bytes are deployed for the same connection
+ * properties, the hash of the content can be compared with the hash of the content deployed on the server.
+ * </p>
+ * <p>
+ * The cache is enabled with the {@code wildfly.arquillian.service.cache} system property. The directory defaults to
+ * {@code wildfly-arquillian} in the temporary directory and can be changed with the
+ * {@code wildfly.arquillian.service.cache.dir} system property.
+ * </p>
+ */
+class ServiceArchiveCache {
+    private static final Logger log = Logger.getLogger(ServiceArchiveCache.class);
+
+    private static final String PREFIX = "arquillian-service-";
+
+    private final Path dir;
+
+    private ServiceArchiveCache(final Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Returns the cache if it is enabled.
+     *
+     * @return the cache or {@code null} if caching is not enabled
+     */
+    static ServiceArchiveCache getInstance() {
+        if (!Boolean.getBoolean("wildfly.arquillian.service.cache")) {
+            return null;
+        }
+        final String dir = System.getProperty("wildfly.arquillian.service.cache.dir");
+        if (dir == null) {
+            return new ServiceArchiveCache(Paths.get(System.getProperty("java.io.tmpdir"), "wildfly-arquillian"));
+        }
+        return new ServiceArchiveCache(Paths.get(dir));
+    }
+
+    /**
+     * Creates the key for the archive generated from the auxiliary archives.
+     *
+     * @param auxArchives    the auxiliary archives
+     * @param processorTypes the types of the protocol archive processors applied to the archive
+     *
+     * @return the key or {@code null} if a key could not be created, for example if a library is not a JAR
+     */
+    String createKey(final Collection<Archive<?>> auxArchives, final Collection<Class<?>> processorTypes) {
+        final MessageDigest digest = createDigest("SHA-256");
+        for (Class<?> type : new Class<?>[] { ServiceArchiveCache.class, AbstractJMXProtocol.class,
+                ManagementClient.class }) {
+            if (!updateLibrary(digest, type)) {
+                return null;
+            }
+        }
+        for (Class<?> processorType : processorTypes) {
+            update(digest, processorType.getName());
+            if (!updateLibrary(digest, processorType)) {
+                return null;
+            }
+        }
+        final byte[] buffer = new byte[8192];
+        for (Archive<?> aux : auxArchives) {
+            update(digest, aux.getName());
+            // Sort the content so the key does not depend on the order the content was added in
+            final Map<String, Asset> content = new TreeMap<>();
+            for (Map.Entry<ArchivePath, Node> entry : aux.getContent().entrySet()) {
+                final Asset asset = entry.getValue().getAsset();
+                if (asset != null) {
+                    content.put(entry.getKey().get(), asset);
+                }
+            }
+            for (Map.Entry<String, Asset> entry : content.entrySet()) {
+                update(digest, entry.getKey());
+                try (InputStream in = entry.getValue().openStream()) {
+                    int len;
+                    while ((len = in.read(buffer)) > 0) {
+                        digest.update(buffer, 0, len);
+                    }
+                } catch (IOException e) {
+                    log.debugf(e, "Failed to read %s from %s", entry.getKey(), aux);
+                    return null;
+                }
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Loads the archive for the key.
+     *
+     * @param key the key of the archive
+     *
+     * @return the archive or {@code null} if the archive is not in the cache
+     */
+    JavaArchive load(final String key) {
+        final Path file = dir.resolve(PREFIX + key + ".jar");
+        if (Files.notExists(file)) {
+            return null;
+        }
+        try {
+            final JavaArchive archive = ShrinkWrap.create(ZipImporter.class, "arquillian-service")
+                    .importFrom(file.toFile())
+                    .as(JavaArchive.class);
+            log.debugf("Loaded %s from %s", archive, file);
+            return archive;
+        } catch (RuntimeException e) {
+            log.debugf(e, "Failed to load the cached archive %s", file);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the archive for the key.
+     *
+     * @param key     the key of the archive
+     * @param archive the archive to store
+     */
+    void store(final String key, final Archive<?> archive) {
+        try {
+            write(dir.resolve(PREFIX + key + ".jar"), archive);
+        } catch (IOException e) {
+            log.debugf(e, "Failed to store %s in %s", archive, dir);
+        }
+    }
+
+    /**
+     * Returns the content to deploy for the archive with the connection properties. The content is exported the first
+     * time it is requested and reused afterwards.
+     *
+     * @param key                  the key of the archive
+     * @param connectionProperties the serialized connection properties which have been added to the archive
+     * @param archive              the archive to export if the content is not in the cache
+     *
+     * @return the path to the content
+     *
+     * @throws IOException if the content could not be written
+     */
+    Path getDeploymentContent(final String key, final byte[] connectionProperties, final Archive<?> archive)
+            throws IOException {
+        final Path file = dir.resolve(PREFIX + key + "-" + connectionKey(connectionProperties) + ".jar");
+        if (Files.notExists(file)) {
+            write(file, archive);
+        } else {
+            // Mark the content as the most recently used for the connection properties
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+        return file;
+    }
+
+    /**
+     * Returns the content to deploy for the archive with the connection properties if the content has been cached.
+     *
+     * @param key                  the key of the archive
+     * @param connectionProperties the serialized connection properties
+     *
+     * @return the path to the content or {@code null} if the content is not in the cache
+     */
+    Path findDeploymentContent(final String key, final byte[] connectionProperties) {
+        final Path file = dir.resolve(PREFIX + key + "-" + connectionKey(connectionProperties) + ".jar");
+        return Files.exists(file) ? file : null;
+    }
+
+    /**
+     * Returns the most recently cached content for the connection properties. This is used before the archive has
+     * been generated, so the content may be for a different archive.
+     *
+     * @param connectionProperties the serialized connection properties
+     *
+     * @return the path to the content or {@code null} if no content has been cached for the connection properties
+     */
+    Path findLatestDeploymentContent(final byte[] connectionProperties) {
+        if (Files.notExists(dir)) {
+            return null;
+        }
+        final String suffix = "-" + connectionKey(connectionProperties) + ".jar";
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> {
+                final String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(suffix);
+            }).max(Comparator.comparing(file -> {
+                try {
+                    return Files.getLastModifiedTime(file);
+                } catch (IOException e) {
+                    return FileTime.fromMillis(0L);
+                }
+            })).orElse(null);
+        } catch (IOException e) {
+            log.debugf(e, "Failed to list the content of %s", dir);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the SHA-1 hash, as used by the server for deployment content, of the file.
+     *
+     * @param file the file to hash
+     *
+     * @return the hash
+     *
+     * @throws IOException if the file could not be read
+     */
+    static byte[] contentHash(final Path file) throws IOException {
+        return createDigest("SHA-1").digest(Files.readAllBytes(file));
+    }
+
+    private void write(final Path file, final Archive<?> archive) throws IOException {
+        Files.createDirectories(dir);
+        // Write to a temporary file first so concurrent test JVMs never see a partially written archive
+        final Path tmp = Files.createTempFile(dir, PREFIX, ".tmp");
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            archive.as(ZipExporter.class).exportTo(out);
+            Files.write(tmp, out.toByteArray());
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static boolean updateLibrary(final MessageDigest digest, final Class<?> type) {
+        final Path library = getLibrary(type);
+        if (library == null) {
+            log.debugf("Cannot cache the arquillian service, %s is not loaded from a JAR", type.getName());
+            return false;
+        }
+        try {
+            update(digest, library.toString());
+            update(digest, Long.toString(Files.size(library)));
+            update(digest, Long.toString(Files.getLastModifiedTime(library).toMillis()));
+            return true;
+        } catch (IOException e) {
+            log.debugf(e, "Failed to read the attributes of %s", library);
+            return false;
+        }
+    }
+
+    private static Path getLibrary(final Class<?> type) {
+        final CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+        final URL location = codeSource == null ? null : codeSource.getLocation();
+        if (location == null || !"file".equals(location.getProtocol())) {
+            return null;
+        }
+        try {
+            final Path path = Paths.get(location.toURI());
+            // Class directories change without their attributes changing, only JARs can be keyed
+            return Files.isRegularFile(path) ? path : null;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String connectionKey(final byte[] connectionProperties) {
+        return toHex(createDigest("SHA-256").digest(connectionProperties));
+    }
+
+    private static void update(final MessageDigest digest, final String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest createDigest(final String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder result = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.jboss.as.arquillian.protocol.jmx;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.jboss.arquillian.container.test.spi.TestDeployment;
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.module.ResourceRoot;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Filter;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.asset.ClassAsset;
+import org.jboss.shrinkwrap.api.spec.EnterpriseArchive;
+import org.jboss.vfs.VirtualFile;
+
+/**
+ * An index of the test classes in a deployment and the methods of each test class which can operate on the
+ * deployment. The index is created when the deployment is generated so the annotation index of the deployment does not
+ * have to be scanned when the deployment is installed.
+ * <p>
+ * The index is only added to an archive if all classes in the archive can be inspected. If the archive contains class
+ * files which were not added as classes, for example an imported archive, no index is added and the annotation index
+ * is scanned.
+ * </p>
+ */
+public class TestIndex {
+
+    private static final String PATH = "/META-INF/test-index.properties";
+    private static final Filter<ArchivePath> ROOT_FILTER = (p) -> p.getParent() == null || p.getParent().get().equals("/");
+
+    /*
+     * Note: Do not put direct class references on JUnit or TestNG here; this
+     * must be compatible with both without resulting in NCDFE
+     */
+    private static final Set<String> TEST_CLASS_ANNOTATIONS = Set.of("org.junit.runner.RunWith",
+            "org.junit.jupiter.api.extension.ExtendWith");
+    private static final String CLASS_NAME_TESTNG_RUNNER = "org.jboss.arquillian.testng.Arquillian";
+    private static final String OPERATE_ON_DEPLOYMENT = "org.jboss.arquillian.container.test.api.OperateOnDeployment";
+
+    private final Properties properties;
+
+    private TestIndex(final Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Gets the test index from the deployment.
+     *
+     * @param deploymentUnit the deployment unit
+     *
+     * @return the test index or an empty optional if the deployment does not contain an index
+     */
+    public static Optional<TestIndex> from(final DeploymentUnit deploymentUnit) {
+        final ResourceRoot resourceRoot = deploymentUnit.getAttachment(Attachments.DEPLOYMENT_ROOT);
+        if (resourceRoot == null) {
+            return Optional.empty();
+        }
+        final VirtualFile testIndex = resourceRoot.getRoot().getChild(TestIndex.PATH);
+        if (testIndex == null || !testIndex.exists()) {
+            return Optional.empty();
+        }
+        final Properties properties = new Properties();
+        try (InputStream in = testIndex.openStream()) {
+            properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Optional.of(new TestIndex(properties));
+    }
+
+    /**
+     * Creates a test index for the test deployment and adds it to the deployment. For EAR's an index is added to each
+     * module in the EAR.
+     *
+     * @param testDeployment the test deployment to create the index for
+     */
+    public static void addTestIndex(final TestDeployment testDeployment) {
+        final String arqDeploymentName = testDeployment.getDeploymentName();
+        final Archive<?> archive = testDeployment.getApplicationArchive();
+        if (archive instanceof EnterpriseArchive) {
+            final Map<String, Set<String>> libraries = new TreeMap<>();
+            if (!indexEarLibraries(archive, arqDeploymentName, libraries)) {
+                return;
+            }
+            for (Node module : archive.getContent(ROOT_FILTER).values()) {
+                if (module.getAsset() instanceof ArchiveAsset) {
+                    final Archive<?> moduleArchive = ((ArchiveAsset) module.getAsset()).getArchive();
+                    final Map<String, Set<String>> testClasses = new TreeMap<>(libraries);
+                    if (index(moduleArchive, arqDeploymentName, testClasses)) {
+                        addTestIndex(moduleArchive, testClasses);
+                    }
+                }
+            }
+            addTestIndex(archive, libraries);
+        } else {
+            final Map<String, Set<String>> testClasses = new TreeMap<>();
+            if (index(archive, arqDeploymentName, testClasses)) {
+                addTestIndex(archive, testClasses);
+            }
+        }
+    }
+
+    /**
+     * The names of the test classes in the deployment.
+     *
+     * @return the test class names
+     */
+    public Set<String> getTestClasses() {
+        return properties.stringPropertyNames();
+    }
+
+    /**
+     * The names of the methods of the test class which can operate on the deployment.
+     *
+     * @param className the name of the test class
+     *
+     * @return the method names or an empty set if the class is not a test class
+     */
+    public Set<String> getTestMethods(final String className) {
+        final String methods = properties.getProperty(className);
+        if (methods == null || methods.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return new LinkedHashSet<>(Arrays.asList(methods.split(",")));
+    }
+
+    @Override
+    public String toString() {
+        return "TestIndex " + properties;
+    }
+
+    private static boolean indexEarLibraries(final Archive<?> ear, final String arqDeploymentName,
+            final Map<String, Set<String>> testClasses) {
+        for (Map.Entry<ArchivePath, Node> entry : ear.getContent().entrySet()) {
+            final Asset asset = entry.getValue().getAsset();
+            final String path = entry.getKey().get();
+            if (asset instanceof ArchiveAsset && !ROOT_FILTER.include(entry.getKey())) {
+                // Only the default library directory is known here
+                if (!path.startsWith("/lib/")
+                        || !index(((ArchiveAsset) asset).getArchive(), arqDeploymentName, testClasses)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the test classes of the archive, and of the libraries of a web archive, to the index.
+     *
+     * @return {@code true} if all classes could be inspected, otherwise {@code false}
+     */
+    private static boolean index(final Archive<?> archive, final String arqDeploymentName,
+            final Map<String, Set<String>> testClasses) {
+        for (Map.Entry<ArchivePath, Node> entry : archive.getContent().entrySet()) {
+            final Asset asset = entry.getValue().getAsset();
+            final String path = entry.getKey().get();
+            if (asset instanceof ClassAsset) {
+                try {
+                    addTestClass(((ClassAsset) asset).getSource(), arqDeploymentName, testClasses);
+                } catch (LinkageError e) {
+                    return false;
+                }
+            } else if (asset instanceof ArchiveAsset) {
+                if (path.startsWith("/WEB-INF/lib/")
+                        && !index(((ArchiveAsset) asset).getArchive(), arqDeploymentName, testClasses)) {
+                    return false;
+                }
+            } else if (asset != null && path.endsWith(".class")) {
+                // The class cannot be inspected without loading it, so the index would not be complete
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addTestClass(final Class<?> type, final String arqDeploymentName,
+            final Map<String, Set<String>> testClasses) {
+        if (!isTestClass(type)) {
+            return;
+        }
+        final Set<String> methods = new LinkedHashSet<>();
+        findAllMethods(type, arqDeploymentName, methods);
+        testClasses.put(type.getName(), methods);
+    }
+
+    private static boolean isTestClass(final Class<?> type) {
+        for (Annotation annotation : type.getDeclaredAnnotations()) {
+            if (TEST_CLASS_ANNOTATIONS.contains(annotation.annotationType().getName())) {
+                return true;
+            }
+        }
+        for (Class<?> superType = type.getSuperclass(); superType != null; superType = superType.getSuperclass()) {
+            if (CLASS_NAME_TESTNG_RUNNER.equals(superType.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void findAllMethods(final Class<?> type, final String arqDeploymentName, final Set<String> methods) {
+        if (type == null || type == Object.class) {
+            return;
+        }
+        for (Method method : type.getDeclaredMethods()) {
+            // If the @OperateOnDeployment method is present, it must match the deployment
+            final String deploymentName = operateOnDeployment(method);
+            if (deploymentName == null || deploymentName.equals(arqDeploymentName)) {
+                methods.add(method.getName());
+            }
+        }
+        findAllMethods(type.getSuperclass(), arqDeploymentName, methods);
+        // Interfaces can have default methods, we'll check those too
+        for (Class<?> intf : type.getInterfaces()) {
+            findAllMethods(intf, arqDeploymentName, methods);
+        }
+    }
+
+    private static String operateOnDeployment(final Method method) {
+        for (Annotation annotation : method.getDeclaredAnnotations()) {
+            if (OPERATE_ON_DEPLOYMENT.equals(annotation.annotationType().getName())) {
+                try {
+                    return String.valueOf(annotation.annotationType().getMethod("value").invoke(annotation));
+                } catch (ReflectiveOperationException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void addTestIndex(final Archive<?> archive, final Map<String, Set<String>> testClasses) {
+        final Properties properties = new Properties();
+        testClasses.forEach((className, methods) -> properties.put(className, String.join(",", methods)));
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            properties.store(out, null);
+            if (archive.contains(TestIndex.PATH)) {
+                archive.delete(TestIndex.PATH);
+            }
+            archive.add(new ByteArrayAsset(out.toByteArray()), TestIndex.PATH);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -39,6 +39,7 @@ public final class ArquillianConfig implements Service {
     private final Supplier<DeploymentUnit> deploymentUnitSupplier;
     private final ServiceName serviceName;
     private final Map<String, TestClassInfo> testClasses;
+    private volatile ContextManager contextManager;
 
     ArquillianConfig(final ServiceName serviceName, final Map<String, TestClassInfo> testClasses,
             final Supplier<ArquillianService> arquillianServiceSupplier,
@@ -62,10 +63,30 @@ public final class ArquillianConfig implements Service {
         return deploymentUnitSupplier.get();
     }
 
+    /**
+     * Returns the context manager for the deployment. The context manager is built when this service is started and is
+     * reused for all test invocations.
+     *
+     * @return the context manager
+     *
+     * @throws IllegalStateException if this service is not started
+     */
+    ContextManager getContextManager() {
+        final ContextManager contextManager = this.contextManager;
+        if (contextManager == null) {
+            throw new IllegalStateException("The Arquillian config " + serviceName + " is not started.");
+        }
+        return contextManager;
+    }
+
     ServiceName getServiceName() {
         return serviceName;
     }
 
+    Set<String> getTestClassNames() {
+        return testClasses.keySet();
+    }
+
     /**
      * Gets whether this config supports the given test class.
      *
@@ -112,6 +133,7 @@ public final class ArquillianConfig implements Service {
 
     @Override
     public void start(final StartContext context) {
+        contextManager = new ContextManagerBuilder(this).addAll(getDeploymentUnit()).build();
         arquillianServiceSupplier.get().registerArquillianConfig(this);
         for (final String testClass : testClasses.keySet()) {
             ServiceTargetAssociation.setServiceTarget(testClass, context.getChildTarget());
@@ -125,6 +147,7 @@ public final class ArquillianConfig implements Service {
         for (final String testClass : testClasses.keySet()) {
             ServiceTargetAssociation.clearServiceTarget(testClass);
         }
+        contextManager = null;
     }
 
     @Override
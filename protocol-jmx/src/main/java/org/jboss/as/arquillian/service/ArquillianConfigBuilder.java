@@ -10,9 +10,11 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 import org.jboss.as.arquillian.protocol.jmx.TestDescription;
+import org.jboss.as.arquillian.protocol.jmx.TestIndex;
 import org.jboss.as.server.deployment.AttachmentKey;
 import org.jboss.as.server.deployment.Attachments;
 import org.jboss.as.server.deployment.DeploymentUnit;
@@ -26,7 +28,8 @@ import org.jboss.logging.Logger;
 /**
  * Uses the annotation index to check whether there is a class annotated
  * with JUnit @RunWith, or extending from the TestNG Arquillian runner.
- * In which case an {@link ArquillianConfig} service is created.
+ * In which case an {@link ArquillianConfig} service is created. If the
+ * deployment contains a {@link TestIndex}, the index is used instead.
  *
  * @author Thomas.Diesler@jboss.com
  * @author <a href="mailto:ropalka@redhat.com">Richard Opalka</a>
@@ -74,16 +77,29 @@ class ArquillianConfigBuilder {
 
     static void handleParseAnnotations(final DeploymentUnit deploymentUnit) {
 
-        final CompositeIndex compositeIndex = deploymentUnit.getAttachment(Attachments.COMPOSITE_ANNOTATION_INDEX);
-        if (compositeIndex == null) {
-            log.warnf("Cannot find composite annotation index in: %s", deploymentUnit);
-            return;
-        }
         if (deploymentUnit.hasAttachment(CLASSES)) {
             // this hack is needed because ArquillianListener.handleEvent() method
             // DOWN event can happen multiple times during service lifecycle.
             return;
         }
+        // Use the index created when the deployment was generated if there is one
+        final Optional<TestIndex> testIndex = TestIndex.from(deploymentUnit);
+        if (testIndex.isPresent()) {
+            final TestDescription testDescription = TestDescription.from(deploymentUnit);
+            final Map<String, ArquillianConfig.TestClassInfo> testClasses = new LinkedHashMap<>();
+            for (String testClassName : testIndex.get().getTestClasses()) {
+                testClasses.put(testClassName, new ArquillianConfig.TestClassInfo(testDescription,
+                        testIndex.get().getTestMethods(testClassName)));
+            }
+            log.debugf("Using the test index of %s: %s", deploymentUnit, testClasses.keySet());
+            deploymentUnit.putAttachment(CLASSES, testClasses);
+            return;
+        }
+        final CompositeIndex compositeIndex = deploymentUnit.getAttachment(Attachments.COMPOSITE_ANNOTATION_INDEX);
+        if (compositeIndex == null) {
+            log.warnf("Cannot find composite annotation index in: %s", deploymentUnit);
+            return;
+        }
 
         // Got JUnit?
         final DotName runWithName = DotName.createSimple(CLASS_NAME_JUNIT_RUNNER);
@@ -0,0 +1,73 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.jboss.as.arquillian.service;
+
+import org.jboss.as.server.deployment.Services;
+import org.jboss.logging.Logger;
+import org.jboss.modules.Module;
+import org.jboss.msc.service.ServiceActivator;
+import org.jboss.msc.service.ServiceActivatorContext;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.ServiceRegistry;
+import org.jboss.msc.service.ServiceRegistryException;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * An activator added to each test deployment which registers the deployment with the {@link ArquillianService}.
+ * <p>
+ * Service activators of a deployment are invoked during the install phase of the deployment with the module of the
+ * deployment as the context class loader. The name of the module is used to resolve the deployment unit.
+ * </p>
+ */
+public class ArquillianDeploymentActivator implements ServiceActivator {
+
+    private static final Logger log = Logger.getLogger("org.jboss.as.arquillian");
+    private static final String MODULE_PREFIX = "deployment.";
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void activate(final ServiceActivatorContext context) throws ServiceRegistryException {
+        final Module module = Module.forClassLoader(WildFlySecurityManager.getCurrentContextClassLoaderPrivileged(), false);
+        if (module == null || !module.getName().startsWith(MODULE_PREFIX)) {
+            log.warnf("Cannot determine the test deployment for module %s", module);
+            return;
+        }
+        final ServiceRegistry registry = context.getServiceRegistry();
+        // The service is read from its controller as it is needed while the deployment is being installed, a service
+        // depending on it would only be started after the activator has returned
+        final ServiceController<?> arquillianService = registry.getService(ArquillianService.SERVICE_NAME);
+        if (arquillianService == null || arquillianService.getValue() == null) {
+            log.warnf("The Arquillian service is not available for %s", module.getName());
+            return;
+        }
+        final ServiceName deploymentUnitName = resolveDeploymentUnitName(registry,
+                module.getName().substring(MODULE_PREFIX.length()));
+        if (deploymentUnitName == null) {
+            log.warnf("Cannot find the deployment unit for module %s", module.getName());
+            return;
+        }
+        ((ArquillianService) arquillianService.getValue()).watchDeployment(registry, deploymentUnitName);
+    }
+
+    private static ServiceName resolveDeploymentUnitName(final ServiceRegistry registry, final String name) {
+        final ServiceName topLevel = Services.deploymentUnitName(name);
+        if (registry.getService(topLevel) != null) {
+            return topLevel;
+        }
+        // The module name of a subdeployment is the name of the parent followed by the name of the subdeployment
+        int index = name.indexOf('.');
+        while (index > 0) {
+            final ServiceName subdeployment = Services.deploymentUnitName(name.substring(0, index),
+                    name.substring(index + 1));
+            if (registry.getService(subdeployment) != null) {
+                return subdeployment;
+            }
+            index = name.indexOf('.', index + 1);
+        }
+        return null;
+    }
+}
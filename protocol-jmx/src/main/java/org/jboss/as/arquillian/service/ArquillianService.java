@@ -5,12 +5,17 @@
 
 package org.jboss.as.arquillian.service;
 
-import static org.jboss.as.server.deployment.Services.JBOSS_DEPLOYMENT;
-
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -32,6 +37,7 @@ import org.jboss.msc.service.LifecycleListener;
 import org.jboss.msc.service.ServiceBuilder;
 import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.ServiceRegistry;
 import org.jboss.msc.service.ServiceTarget;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
@@ -53,9 +59,13 @@ public class ArquillianService implements Service {
 
     private final Supplier<MBeanServer> mBeanServerSupplier;
     private final Consumer<ArquillianService> arquillianServiceConsumer;
-    private final Set<ArquillianConfig> deployedTests = new HashSet<>();
-    private volatile JMXTestRunner jmxTestRunner;
-    private volatile LifecycleListener listener;
+    private final Set<ArquillianConfig> deployedTests = ConcurrentHashMap.newKeySet();
+    private final Map<String, List<ArquillianConfig>> testClassIndex = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> waiters = new ConcurrentHashMap<>();
+    private volatile ExtendedJMXTestRunner jmxTestRunner;
+    private volatile BatchTestRunner batchTestRunner;
+    private final Set<ServiceName> watchedDeployments = ConcurrentHashMap.newKeySet();
+    private volatile ServiceTarget childTarget;
 
     private ArquillianService(final Supplier<MBeanServer> mBeanServerSupplier,
             final Consumer<ArquillianService> arquillianServiceConsumer) {
@@ -79,18 +89,22 @@ public class ArquillianService implements Service {
         try {
             jmxTestRunner = new ExtendedJMXTestRunner(new ThreadLocal<>());
             jmxTestRunner.registerMBean(mbeanServer);
+            batchTestRunner = new BatchTestRunner(jmxTestRunner::runTestMethods);
+            batchTestRunner.registerMBean(mbeanServer);
         } catch (Throwable t) {
             throw new StartException("Failed to start Arquillian Test Runner", t);
         }
 
-        listener = new ArquillianListener(context.getChildTarget());
-        context.getController().getServiceContainer().addListener(listener);
+        childTarget = context.getChildTarget();
     }
 
     public synchronized void stop(final StopContext context) {
         log.debugf("Stopping Arquillian Test Runner");
 
         try {
+            if (batchTestRunner != null) {
+                batchTestRunner.unregisterMBean(mBeanServerSupplier.get());
+            }
             if (jmxTestRunner != null) {
                 jmxTestRunner.unregisterMBean(mBeanServerSupplier.get());
             }
@@ -98,21 +112,63 @@ public class ArquillianService implements Service {
             log.errorf(ex, "Cannot stop Arquillian Test Runner");
         }
 
-        context.getController().getServiceContainer().removeListener(listener);
+        childTarget = null;
+        watchedDeployments.clear();
+    }
+
+    /**
+     * Parses the test classes of the deployment unit and installs the {@link ArquillianConfig} for the deployment unit
+     * once its {@link Phase#INSTALL INSTALL} phase has completed. This is invoked by the
+     * {@link ArquillianDeploymentActivator} of each test deployment while the deployment is being installed.
+     *
+     * @param registry           the service registry
+     * @param deploymentUnitName the service name of the deployment unit
+     */
+    void watchDeployment(final ServiceRegistry registry, final ServiceName deploymentUnitName) {
+        final ServiceTarget serviceTarget = childTarget;
+        if (serviceTarget == null || !watchedDeployments.add(deploymentUnitName)) {
+            return;
+        }
+        final ServiceController<?> deploymentController = registry.getService(deploymentUnitName);
+        final ServiceController<?> installController = registry
+                .getService(deploymentUnitName.append(Phase.INSTALL.toString()));
+        if (deploymentController == null || installController == null) {
+            log.warnf("Cannot find the deployment unit %s", deploymentUnitName);
+            watchedDeployments.remove(deploymentUnitName);
+            return;
+        }
+        // The value is read from the controller as the annotation index is removed once the install phase is complete,
+        // the value of a dependency would not be available while the deployment is being installed
+        @SuppressWarnings("deprecation")
+        final DeploymentUnit deploymentUnit = (DeploymentUnit) deploymentController.getValue();
+        ArquillianConfigBuilder.handleParseAnnotations(deploymentUnit);
+        installController.addListener(new ArquillianListener(serviceTarget, deploymentUnit));
     }
 
     void registerArquillianConfig(final ArquillianConfig arqConfig) {
-        synchronized (deployedTests) {
-            log.debugf("Register Arquillian config: %s", arqConfig.getServiceName());
-            deployedTests.add(arqConfig);
-            deployedTests.notifyAll();
+        log.debugf("Register Arquillian config: %s", arqConfig.getServiceName());
+        deployedTests.add(arqConfig);
+        for (String className : arqConfig.getTestClassNames()) {
+            testClassIndex.compute(className, (key, configs) -> {
+                final List<ArquillianConfig> result = configs == null ? new CopyOnWriteArrayList<>() : configs;
+                result.add(arqConfig);
+                return result;
+            });
+            final CompletableFuture<Void> waiter = waiters.remove(className);
+            if (waiter != null) {
+                waiter.complete(null);
+            }
         }
     }
 
     void unregisterArquillianConfig(final ArquillianConfig arqConfig) {
-        synchronized (deployedTests) {
-            log.debugf("Unregister Arquillian config: %s", arqConfig.getServiceName());
-            deployedTests.remove(arqConfig);
+        log.debugf("Unregister Arquillian config: %s", arqConfig.getServiceName());
+        deployedTests.remove(arqConfig);
+        for (String className : arqConfig.getTestClassNames()) {
+            testClassIndex.computeIfPresent(className, (key, configs) -> {
+                configs.remove(arqConfig);
+                return configs.isEmpty() ? null : configs;
+            });
         }
     }
 
@@ -121,45 +177,59 @@ public class ArquillianService implements Service {
     }
 
     private ArquillianConfig getArquillianConfig(final String className, String methodName, final long timeout) {
-        synchronized (deployedTests) {
-            if (methodName == null && deployedTests.size() > 1) {
-                log.warn(
-                        "An attempt was made to lookup an Arquillian configuration with more than one deployed test. This may result in unexpected behavior.");
-            }
-            log.debugf("Getting Arquillian config for: %s", className);
-            for (ArquillianConfig arqConfig : deployedTests) {
-                // A test class with methods annotated with @OperateOnDeployment may be packaged in multiple
-                // deployments and thus multiple ArquillianConfig instances that recognize that class name
-                // may be present. But different configs will support different test methods.
-                //
-                // If we don't have a method name (i.e. we are called from TestClassLoader.loadClass,
-                // where no method name is available), we just look for the first ArquillianConfig with a
-                // DeploymentUnit that provides the class. This allows a class to be loaded, and we assume
-                // that if there are multiple configs with a class with that name then the class we load
-                // from the first config we find can work with all of them.
-                //
-                // For other calls, the target method is available, so we should find the config that supports
-                // that specific method.
-                boolean supports = methodName == null ? arqConfig.supports(className)
-                        : arqConfig.supports(className, methodName);
-                if (supports) {
-                    log.debugf("Found Arquillian config for class %s and method %s", className, methodName);
-                    return arqConfig;
-                }
+        if (methodName == null && deployedTests.size() > 1) {
+            log.warn(
+                    "An attempt was made to lookup an Arquillian configuration with more than one deployed test. This may result in unexpected behavior.");
+        }
+        log.debugf("Getting Arquillian config for: %s", className);
+        final long deadline = System.currentTimeMillis() + timeout;
+        while (true) {
+            // Register the waiter before the lookup so a config registered in between is not missed
+            final CompletableFuture<Void> waiter = timeout > 0 ? waiters.computeIfAbsent(className,
+                    key -> new CompletableFuture<>()) : null;
+            final ArquillianConfig arqConfig = findArquillianConfig(className, methodName);
+            if (arqConfig != null) {
+                return arqConfig;
             }
-
-            if (timeout <= 0) {
+            final long remaining = deadline - System.currentTimeMillis();
+            if (waiter == null || remaining <= 0) {
                 throw new IllegalStateException("Cannot obtain Arquillian config for: " + className);
             }
-
             try {
                 log.debugf("Waiting on Arquillian config for: %s", className);
-                deployedTests.wait(timeout);
-            } catch (InterruptedException e) {
-                // ignore
+                waiter.get(remaining, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ExecutionException | TimeoutException e) {
+                waiters.remove(className, waiter);
+                return getArquillianConfig(className, methodName, -1);
             }
         }
-        return getArquillianConfig(className, methodName, -1);
+    }
+
+    private ArquillianConfig findArquillianConfig(final String className, final String methodName) {
+        final List<ArquillianConfig> configs = testClassIndex.get(className);
+        if (configs == null) {
+            return null;
+        }
+        for (ArquillianConfig arqConfig : configs) {
+            // A test class with methods annotated with @OperateOnDeployment may be packaged in multiple
+            // deployments and thus multiple ArquillianConfig instances that recognize that class name
+            // may be present. But different configs will support different test methods.
+            //
+            // If we don't have a method name (i.e. we are called from TestClassLoader.loadClass,
+            // where no method name is available), we just look for the first ArquillianConfig with a
+            // DeploymentUnit that provides the class. This allows a class to be loaded, and we assume
+            // that if there are multiple configs with a class with that name then the class we load
+            // from the first config we find can work with all of them.
+            //
+            // For other calls, the target method is available, so we should find the config that supports
+            // that specific method.
+            boolean supports = methodName == null || arqConfig.supports(className, methodName);
+            if (supports) {
+                log.debugf("Found Arquillian config for class %s and method %s", className, methodName);
+                return arqConfig;
+            }
+        }
+        return null;
     }
 
     private class ExtendedJMXTestRunner extends JMXTestRunner {
@@ -172,8 +242,34 @@ public class ArquillianService implements Service {
 
         @Override
         public byte[] runTestMethod(final String className, final String methodName, Map<String, String> protocolProps) {
-            // Setup the ContextManager
             final ArquillianConfig config = getArquillianConfig(className, methodName, 30000L);
+            return runWithConfig(config, className, protocolProps,
+                    () -> super.runTestMethod(className, methodName, protocolProps));
+        }
+
+        /**
+         * Runs the test methods with the contexts of the deployment only set up once. Test methods which are not
+         * supported by the deployment of the first test method are skipped.
+         */
+        void runTestMethods(final String className, final String[] methodNames, final Map<String, String> protocolProps,
+                final BiConsumer<String, byte[]> resultConsumer) {
+            if (methodNames.length == 0) {
+                return;
+            }
+            final ArquillianConfig config = getArquillianConfig(className, methodNames[0], 30000L);
+            runWithConfig(config, className, protocolProps, () -> {
+                for (String methodName : methodNames) {
+                    if (config.supports(className, methodName)) {
+                        resultConsumer.accept(methodName, super.runTestMethod(className, methodName, protocolProps));
+                    }
+                }
+                return null;
+            });
+        }
+
+        private <T> T runWithConfig(final ArquillianConfig config, final String className,
+                final Map<String, String> protocolProps, final Supplier<T> task) {
+            // Setup the ContextManager
             Map<String, Object> properties = Collections.singletonMap(TEST_CLASS_PROPERTY, className);
             ContextManager contextManager = setupContextManager(config, properties);
             try {
@@ -188,7 +284,7 @@ public class ArquillianService implements Service {
                 }
                 ClassLoader tccl = WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(runWithClassLoader);
                 try {
-                    return super.runTestMethod(className, methodName, protocolProps);
+                    return task.get();
                 } finally {
                     WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(tccl);
                 }
@@ -226,9 +322,7 @@ public class ArquillianService implements Service {
 
         private ContextManager setupContextManager(final ArquillianConfig config, final Map<String, Object> properties) {
             try {
-                final DeploymentUnit depUnit = config.getDeploymentUnit();
-                final ContextManagerBuilder builder = new ContextManagerBuilder(config).addAll(depUnit);
-                ContextManager contextManager = builder.build();
+                final ContextManager contextManager = config.getContextManager();
                 contextManager.setup(properties);
                 return contextManager;
             } catch (Throwable t) {
@@ -258,34 +352,25 @@ public class ArquillianService implements Service {
         }
     }
 
-    // TODO: This listener based solution is still too hacky. Proper integration should be:
-    // TODO: 1) either parentController service will expose DU retrieval via public method
-    // TODO: 2) or this listener based solution will be replaced with WildFly Extension based solution
-    private static class ArquillianListener implements LifecycleListener {
+    /**
+     * Installs the {@link ArquillianConfig} of a deployment unit once the {@link Phase#INSTALL INSTALL} phase it is
+     * registered on is up. The listener is only registered on the phase of a test deployment.
+     */
+    private class ArquillianListener implements LifecycleListener {
         private final ServiceTarget serviceTarget;
+        private final DeploymentUnit depUnit;
 
-        private ArquillianListener(final ServiceTarget serviceTarget) {
+        private ArquillianListener(final ServiceTarget serviceTarget, final DeploymentUnit depUnit) {
             this.serviceTarget = serviceTarget;
+            this.depUnit = depUnit;
         }
 
         @Override
         public void handleEvent(final ServiceController<?> controller, final LifecycleEvent event) {
-            final ServiceName serviceName = controller.getName();
-            if (!JBOSS_DEPLOYMENT.isParentOf(serviceName))
-                return;
-            final String simpleName = serviceName.getSimpleName();
-
-            if (event == LifecycleEvent.DOWN && simpleName.equals(Phase.DEPENDENCIES.toString())) {
-                // DOWN event can happen multiple times during service lifecycle so this is handled
-                // in ArquillianConfigBuilder.handleParseAnnotations(depUnit) method below.
-                ServiceName parentName = serviceName.getParent();
-                ServiceController<?> parentController = controller.getServiceContainer().getService(parentName);
-                DeploymentUnit depUnit = (DeploymentUnit) parentController.getValue(); // TODO: eliminate deprecated API usage
-                ArquillianConfigBuilder.handleParseAnnotations(depUnit);
-            } else if (event == LifecycleEvent.UP && simpleName.equals(Phase.INSTALL.toString())) {
-                ServiceName parentName = serviceName.getParent();
-                ServiceController<?> parentController = controller.getServiceContainer().getService(parentName);
-                DeploymentUnit depUnit = (DeploymentUnit) parentController.getValue(); // TODO: eliminate deprecated API usage
+            if (event == LifecycleEvent.UP) {
+                controller.removeListener(this);
+                ServiceName parentName = controller.getName().getParent();
+                watchedDeployments.remove(parentName);
                 Map<String, ArquillianConfig.TestClassInfo> testClasses = ArquillianConfigBuilder.getClasses(depUnit);
                 if (testClasses != null) {
                     String duName = ArquillianConfigBuilder.getName(depUnit);
@@ -294,12 +379,14 @@ public class ArquillianService implements Service {
                             .addService(arqConfigSN);
                     ArquillianConfig arqConfig = new ArquillianConfig(arqConfigSN, testClasses,
                             builder.requires(ArquillianService.SERVICE_NAME),
-                            builder.requires(parentController.getName()));
+                            builder.requires(parentName));
                     arqConfig.addDeps(builder, controller);
                     builder.setInstance(arqConfig);
                     builder.install();
                     log.infof("Arquillian deployment detected: %s", arqConfig);
                 }
+            } else if (event == LifecycleEvent.REMOVED) {
+                watchedDeployments.remove(controller.getName().getParent());
             }
         }
     }
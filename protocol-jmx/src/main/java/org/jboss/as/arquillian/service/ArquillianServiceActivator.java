@@ -20,6 +20,10 @@ public class ArquillianServiceActivator implements ServiceActivator {
 
     @Override
     public void activate(ServiceActivatorContext context) throws ServiceRegistryException {
+        // Test deployments import the services of the Arquillian service deployment, only install the service once
+        if (context.getServiceRegistry().getService(ArquillianService.SERVICE_NAME) != null) {
+            return;
+        }
         ServiceTarget serviceTarget = context.getServiceTarget();
         ArquillianService.addService(serviceTarget);
     }
@@ -0,0 +1,70 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.jboss.as.arquillian.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
+import javax.management.ObjectName;
+import javax.management.StandardEmitterMBean;
+
+import org.jboss.as.arquillian.protocol.jmx.BatchTestRunnerMBean;
+
+/**
+ * Runs several test methods of a test class in a single invocation and sends the result of each test method as a
+ * notification once it has finished.
+ */
+class BatchTestRunner extends NotificationBroadcasterSupport implements BatchTestRunnerMBean {
+
+    /**
+     * Runs the test methods and passes the serialized result of each test method to the consumer.
+     */
+    interface TestMethodsRunner {
+        void runTestMethods(String className, String[] methodNames, Map<String, String> protocolProps,
+                BiConsumer<String, byte[]> resultConsumer);
+    }
+
+    private final TestMethodsRunner runner;
+    private final AtomicLong sequence = new AtomicLong();
+
+    BatchTestRunner(final TestMethodsRunner runner) {
+        this.runner = runner;
+    }
+
+    @Override
+    public Map<String, byte[]> runTestMethods(final String batchId, final String className, final String[] methodNames,
+            final Map<String, String> protocolProps) {
+        final String type = TEST_RESULT_NOTIFICATION + "." + batchId;
+        final Map<String, byte[]> results = new LinkedHashMap<>();
+        runner.runTestMethods(className, methodNames, protocolProps, (methodName, result) -> {
+            results.put(methodName, result);
+            final Notification notification = new Notification(type, OBJECT_NAME, sequence.incrementAndGet(),
+                    System.currentTimeMillis(), methodName);
+            notification.setUserData(result);
+            sendNotification(notification);
+        });
+        return results;
+    }
+
+    ObjectName registerMBean(final MBeanServer mbeanServer) throws JMException {
+        final ObjectName objectName = new ObjectName(OBJECT_NAME);
+        // The management interface is in the client package, so it has to be named explicitly
+        mbeanServer.registerMBean(new StandardEmitterMBean(this, BatchTestRunnerMBean.class, this), objectName);
+        return objectName;
+    }
+
+    void unregisterMBean(final MBeanServer mbeanServer) throws JMException {
+        final ObjectName objectName = new ObjectName(OBJECT_NAME);
+        if (mbeanServer.isRegistered(objectName)) {
+            mbeanServer.unregisterMBean(objectName);
+        }
+    }
+}
@@ -12,7 +12,6 @@ import java.util.ListIterator;
 import java.util.Map;
 
 import org.jboss.as.server.deployment.Attachments;
-import org.jboss.as.server.deployment.DeploymentUnit;
 import org.jboss.as.server.deployment.SetupAction;
 import org.jboss.modules.Module;
 import org.wildfly.security.manager.WildFlySecurityManager;
@@ -21,6 +20,9 @@ import org.wildfly.security.manager.WildFlySecurityManager;
  * Sets up and tears down a set of contexts, represented by a list of {@link SetupAction}s. If {@link #setup(java.util.Map)}
  * completes
  * successfully then {@link #teardown(java.util.Map)} must be called.
+ * <p>
+ * The setup actions are sorted and the class loader of the deployment is resolved once, when the context manager is
+ * built, so a context manager can be reused for all invocations on a deployment.
  *
  * @author Stuart Douglas
  * @author <a href="mailto:alr@jboss.org">Andrew Lee Rubinger</a>
@@ -29,10 +31,11 @@ import org.wildfly.security.manager.WildFlySecurityManager;
 public class ContextManager {
 
     private final List<SetupAction> setupActions;
-    private final ArquillianConfig config;
+    private final ClassLoader classLoader;
 
     ContextManager(final ArquillianConfig config, final List<SetupAction> setupActions) {
-        this.config = config;
+        final Module module = config.getDeploymentUnit().getAttachment(Attachments.MODULE);
+        this.classLoader = module == null ? null : module.getClassLoader();
         final List<SetupAction> actions = new ArrayList<SetupAction>(setupActions);
         Collections.sort(actions, new Comparator<SetupAction>() {
 
@@ -49,10 +52,11 @@ public class ContextManager {
      * wrapped and thrown
      */
     public void setup(final Map<String, Object> properties) {
+        if (classLoader == null) {
+            throw new IllegalStateException("The deployment does not have a module class loader");
+        }
         final List<SetupAction> successfulActions = new ArrayList<SetupAction>();
-        final DeploymentUnit depUnit = config.getDeploymentUnit();
-        final Module module = depUnit.getAttachment(Attachments.MODULE);
-        ClassLoader tccl = WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(module.getClassLoader());
+        ClassLoader tccl = WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(classLoader);
         try {
             for (final SetupAction action : setupActions) {
                 try {
@@ -86,9 +90,7 @@ public class ContextManager {
     public void teardown(final Map<String, Object> properties) {
         Throwable exceptionToThrow = null;
         final ListIterator<SetupAction> itr = setupActions.listIterator(setupActions.size());
-        final DeploymentUnit depUnit = config.getDeploymentUnit();
-        final Module module = depUnit.getAttachment(Attachments.MODULE);
-        ClassLoader tccl = WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(module.getClassLoader());
+        ClassLoader tccl = WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(classLoader);
         try {
             while (itr.hasPrevious()) {
                 final SetupAction action = itr.previous();
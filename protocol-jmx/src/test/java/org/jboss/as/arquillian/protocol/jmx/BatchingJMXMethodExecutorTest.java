@@ -0,0 +1,267 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.jboss.as.arquillian.protocol.jmx;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.container.test.api.RunAsClient;
+import org.jboss.arquillian.junit.InSequence;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * TestCases for {@link BatchingJMXMethodExecutor}.
+ */
+public class BatchingJMXMethodExecutorTest {
+
+    @Test
+    public void inSequence() throws Exception {
+        Assert.assertEquals(List.of("second", "first", "third", "unordered"), findBatchMethods(SequenceTest.class,
+                "second"));
+        Assert.assertEquals(List.of("unordered", "first", "second", "third"), findBatchMethods(SequenceTest.class,
+                "unordered"));
+    }
+
+    @Test
+    public void operateOnDeployment() throws Exception {
+        Assert.assertEquals(List.of("a1", "a2"), findBatchMethods(DeploymentTest.class, "a1"));
+        Assert.assertEquals(List.of("b1", "b2"), findBatchMethods(DeploymentTest.class, "b1"));
+        Assert.assertEquals(List.of("none1", "none2"), findBatchMethods(DeploymentTest.class, "none1"));
+    }
+
+    @Test
+    public void runAsClient() throws Exception {
+        Assert.assertEquals(List.of(), findBatchMethods(MixedTest.class, "inContainer1"));
+        Assert.assertEquals(List.of(), findBatchMethods(ClientTest.class, "test1"));
+    }
+
+    @Test
+    public void runAsClientInSequence() throws Exception {
+        Assert.assertEquals(List.of(), findBatchMethods(ClientSequenceTest.class, "first"));
+        Assert.assertEquals(List.of(), findBatchMethods(ClientSequenceTest.class, "third"));
+    }
+
+    @Test
+    public void sequenceOnOtherDeployment() throws Exception {
+        Assert.assertEquals(List.of("a1"), findBatchMethods(DeploymentSequenceTest.class, "a1"));
+        Assert.assertEquals(List.of("b1"), findBatchMethods(DeploymentSequenceTest.class, "b1"));
+        Assert.assertEquals(List.of("a2", "a1"), findBatchMethods(DeploymentSequenceTest.class, "a2"));
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        Assert.assertEquals(List.of("inContainer2", "inContainer1"), findBatchMethods(DisabledTest.class,
+                "inContainer2"));
+    }
+
+    @Test
+    public void categories() throws Exception {
+        Assert.assertEquals(List.of("fast1", "fast2"), findBatchMethods(CategoryTest.class, "fast1"));
+        Assert.assertEquals(List.of("plain1", "plain2"), findBatchMethods(CategoryTest.class, "plain1"));
+        Assert.assertEquals(List.of("slow"), findBatchMethods(CategoryTest.class, "slow"));
+    }
+
+    @Test
+    public void methodFilter() throws Exception {
+        final String previous = System.getProperty("test");
+        try {
+            System.setProperty("test", "CategoryTest#plain1");
+            Assert.assertEquals(List.of(), findBatchMethods(CategoryTest.class, "plain1"));
+            System.setProperty("test", "CategoryTest");
+            Assert.assertEquals(List.of("plain1", "plain2"), findBatchMethods(CategoryTest.class, "plain1"));
+        } finally {
+            if (previous == null) {
+                System.clearProperty("test");
+            } else {
+                System.setProperty("test", previous);
+            }
+        }
+    }
+
+    /**
+     * Returns the batch with the test methods following the first test method sorted by name, unless they have a
+     * sequence, as the order of the declared methods is not defined.
+     */
+    private static List<String> findBatchMethods(final Class<?> testClass, final String methodName) throws Exception {
+        final List<String> result = BatchingJMXMethodExecutor.findBatchMethods(testClass, testClass.getMethod(methodName));
+        if (testClass == SequenceTest.class || testClass == DeploymentSequenceTest.class || result.isEmpty()) {
+            return result;
+        }
+        final List<String> sorted = new ArrayList<>(result.subList(1, result.size()));
+        Collections.sort(sorted);
+        sorted.add(0, result.get(0));
+        return sorted;
+    }
+
+    public static class SequenceTest {
+        @Test
+        @InSequence(3)
+        public void third() {
+        }
+
+        @Test
+        public void unordered() {
+        }
+
+        @Test
+        @InSequence(1)
+        public void first() {
+        }
+
+        @Test
+        @InSequence(2)
+        public void second() {
+        }
+    }
+
+    public static class DeploymentTest {
+        @Test
+        @OperateOnDeployment("a")
+        public void a1() {
+        }
+
+        @Test
+        @OperateOnDeployment("a")
+        public void a2() {
+        }
+
+        @Test
+        @OperateOnDeployment("b")
+        public void b1() {
+        }
+
+        @Test
+        @OperateOnDeployment("b")
+        public void b2() {
+        }
+
+        @Test
+        public void none1() {
+        }
+
+        @Test
+        public void none2() {
+        }
+    }
+
+    public static class DeploymentSequenceTest {
+        @Test
+        @InSequence(1)
+        @OperateOnDeployment("a")
+        public void a1() {
+        }
+
+        @Test
+        @InSequence(2)
+        @OperateOnDeployment("b")
+        public void b1() {
+        }
+
+        @Test
+        @InSequence(3)
+        @OperateOnDeployment("a")
+        public void a2() {
+        }
+    }
+
+    public static class MixedTest {
+        @Test
+        public void inContainer1() {
+        }
+
+        @Test
+        public void inContainer2() {
+        }
+
+        @Test
+        @RunAsClient
+        public void client() {
+        }
+    }
+
+    public static class ClientSequenceTest {
+        @Test
+        @InSequence(1)
+        public void first() {
+        }
+
+        @Test
+        @InSequence(2)
+        @RunAsClient
+        public void second() {
+        }
+
+        @Test
+        @InSequence(3)
+        public void third() {
+        }
+    }
+
+    public static class DisabledTest {
+        @Test
+        public void inContainer1() {
+        }
+
+        @Test
+        public void inContainer2() {
+        }
+
+        @Test
+        @Ignore
+        public void ignored() {
+        }
+
+        public void notATest() {
+        }
+    }
+
+    @RunAsClient
+    public static class ClientTest {
+        @Test
+        public void test1() {
+        }
+
+        @Test
+        public void test2() {
+        }
+    }
+
+    public interface Fast {
+    }
+
+    public interface Slow {
+    }
+
+    public static class CategoryTest {
+        @Test
+        @Category(Fast.class)
+        public void fast1() {
+        }
+
+        @Test
+        @Category(Fast.class)
+        public void fast2() {
+        }
+
+        @Test
+        @Category({ Fast.class, Slow.class })
+        public void slow() {
+        }
+
+        @Test
+        public void plain1() {
+        }
+
+        @Test
+        public void plain2() {
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.jboss.as.arquillian.protocol.jmx;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.jboss.arquillian.container.spi.client.deployment.DeploymentDescription;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.container.test.spi.TestDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+import org.jboss.shrinkwrap.api.spec.EnterpriseArchive;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.Extension;
+import org.junit.runner.RunWith;
+
+/**
+ * TestCases for {@link TestIndex}.
+ */
+public class TestIndexTest {
+
+    private static final String DEPLOYMENT = "deployment";
+    private static final String INDEX = "/META-INF/test-index.properties";
+
+    @Test
+    public void testClasses() throws Exception {
+        final WebArchive war = ShrinkWrap.create(WebArchive.class, "test.war")
+                .addClasses(RunWithTest.class, ExtendWithTest.class, TestNGTest.class, NotATest.class);
+        addTestIndex(war);
+
+        final Properties index = readIndex(war);
+        Assert.assertNotNull("No index was added", index);
+        Assert.assertEquals(new TreeSet<>(List.of(RunWithTest.class.getName(), ExtendWithTest.class.getName(),
+                TestNGTest.class.getName())), index.stringPropertyNames());
+        Assert.assertTrue(methods(index, RunWithTest.class).contains("runWith"));
+        Assert.assertTrue(methods(index, ExtendWithTest.class).contains("extendWith"));
+        Assert.assertTrue(methods(index, TestNGTest.class).contains("testNG"));
+    }
+
+    @Test
+    public void inheritedMethods() throws Exception {
+        final WebArchive war = ShrinkWrap.create(WebArchive.class, "test.war")
+                .addClasses(InheritingTest.class, BaseTest.class, DefaultMethods.class);
+        addTestIndex(war);
+
+        final Properties index = readIndex(war);
+        Assert.assertNotNull("No index was added", index);
+        // The base class is not a test class itself, only its methods are indexed for the subclass
+        Assert.assertEquals(Set.of(InheritingTest.class.getName()), index.stringPropertyNames());
+        final Set<String> methods = methods(index, InheritingTest.class);
+        Assert.assertTrue(methods.contains("declared"));
+        Assert.assertTrue(methods.contains("inherited"));
+        Assert.assertTrue(methods.contains("defaultMethod"));
+    }
+
+    @Test
+    public void operateOnDeployment() throws Exception {
+        final WebArchive war = ShrinkWrap.create(WebArchive.class, "test.war")
+                .addClass(OperateOnDeploymentTest.class);
+        addTestIndex(war);
+
+        final Set<String> methods = methods(readIndex(war), OperateOnDeploymentTest.class);
+        Assert.assertTrue(methods.contains("any"));
+        Assert.assertTrue(methods.contains("same"));
+        Assert.assertFalse(methods.contains("other"));
+    }
+
+    @Test
+    public void webArchiveLibraries() throws Exception {
+        final WebArchive war = ShrinkWrap.create(WebArchive.class, "test.war")
+                .addClass(RunWithTest.class)
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "lib.jar").addClass(ExtendWithTest.class));
+        addTestIndex(war);
+
+        Assert.assertEquals(Set.of(RunWithTest.class.getName(), ExtendWithTest.class.getName()),
+                readIndex(war).stringPropertyNames());
+    }
+
+    @Test
+    public void enterpriseArchive() throws Exception {
+        final WebArchive war = ShrinkWrap.create(WebArchive.class, "module.war")
+                .addClass(RunWithTest.class);
+        final JavaArchive lib = ShrinkWrap.create(JavaArchive.class, "lib.jar")
+                .addClass(ExtendWithTest.class);
+        final EnterpriseArchive ear = ShrinkWrap.create(EnterpriseArchive.class, "test.ear")
+                .addAsModule(war)
+                .addAsLibrary(lib);
+        addTestIndex(ear);
+
+        // Each module sees its own test classes and the test classes of the libraries of the EAR
+        Assert.assertEquals(Set.of(RunWithTest.class.getName(), ExtendWithTest.class.getName()),
+                readIndex(moduleOf(ear, "/module.war")).stringPropertyNames());
+        Assert.assertEquals(Set.of(ExtendWithTest.class.getName()), readIndex(ear).stringPropertyNames());
+    }
+
+    @Test
+    public void importedClassFiles() throws Exception {
+        final WebArchive war = ShrinkWrap.create(WebArchive.class, "test.war")
+                .addClass(RunWithTest.class)
+                .add(new ByteArrayAsset(readClass(ExtendWithTest.class)),
+                        "/WEB-INF/classes/" + ExtendWithTest.class.getName().replace('.', '/') + ".class");
+        addTestIndex(war);
+
+        Assert.assertNull("An index was added for an archive with imported class files", readIndex(war));
+    }
+
+    @Test
+    public void libraryOutsideOfLibDirectory() throws Exception {
+        final WebArchive war = ShrinkWrap.create(WebArchive.class, "module.war")
+                .addClass(RunWithTest.class);
+        final EnterpriseArchive ear = ShrinkWrap.create(EnterpriseArchive.class, "test.ear")
+                .addAsModule(war)
+                .add(ShrinkWrap.create(JavaArchive.class, "lib.jar").addClass(ExtendWithTest.class), "/other",
+                        ZipExporter.class);
+        addTestIndex(ear);
+
+        Assert.assertNull("An index was added for an EAR with a library outside of lib/", readIndex(ear));
+        Assert.assertNull("An index was added for a module of an EAR with a library outside of lib/",
+                readIndex(moduleOf(ear, "/module.war")));
+    }
+
+    private static void addTestIndex(final Archive<?> archive) {
+        TestIndex.addTestIndex(new TestDeployment(new DeploymentDescription(DEPLOYMENT, archive), archive, List.of()));
+    }
+
+    private static Properties readIndex(final Archive<?> archive) throws IOException {
+        final Node node = archive.get(INDEX);
+        if (node == null) {
+            return null;
+        }
+        final Properties properties = new Properties();
+        try (InputStream in = node.getAsset().openStream()) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    private static Set<String> methods(final Properties index, final Class<?> testClass) {
+        return new TreeSet<>(Arrays.asList(index.getProperty(testClass.getName()).split(",")));
+    }
+
+    private static Archive<?> moduleOf(final EnterpriseArchive ear, final String path) {
+        return ((ArchiveAsset) ear.get(path).getAsset()).getArchive();
+    }
+
+    private static byte[] readClass(final Class<?> type) throws IOException {
+        final String name = type.getName();
+        try (InputStream in = type.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+            return in.readAllBytes();
+        }
+    }
+
+    @RunWith(Arquillian.class)
+    public static class RunWithTest {
+        @Test
+        public void runWith() {
+        }
+    }
+
+    public static class NoopExtension implements Extension {
+    }
+
+    @ExtendWith(NoopExtension.class)
+    public static class ExtendWithTest {
+        @org.junit.jupiter.api.Test
+        public void extendWith() {
+        }
+    }
+
+    public static class TestNGTest extends org.jboss.arquillian.testng.Arquillian {
+        @org.testng.annotations.Test
+        public void testNG() {
+        }
+    }
+
+    public static class NotATest {
+        @Test
+        public void notIndexed() {
+        }
+    }
+
+    public interface DefaultMethods {
+        @Test
+        default void defaultMethod() {
+        }
+    }
+
+    public static class BaseTest {
+        @Test
+        public void inherited() {
+        }
+    }
+
+    @RunWith(Arquillian.class)
+    public static class InheritingTest extends BaseTest implements DefaultMethods {
+        @Test
+        public void declared() {
+        }
+    }
+
+    @RunWith(Arquillian.class)
+    public static class OperateOnDeploymentTest {
+        @Test
+        public void any() {
+        }
+
+        @Test
+        @OperateOnDeployment(DEPLOYMENT)
+        public void same() {
+        }
+
+        @Test
+        @OperateOnDeployment("other")
+        public void other() {
+        }
+    }
+}